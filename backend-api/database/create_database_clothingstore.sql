@@ -19,7 +19,8 @@ CREATE TABLE users (
     username VARCHAR(50) NOT NULL,
     hashed_password VARCHAR(255) NOT NULL,
     role VARCHAR(50) NOT NULL,
-    PRIMARY KEY (user_id)
+    PRIMARY KEY (user_id),
+    UNIQUE KEY uq_users_username (username)
 );
 
 CREATE TABLE profiles (
@@ -61,13 +62,15 @@ CREATE TABLE orders (
     order_id INT NOT NULL AUTO_INCREMENT,
     user_id INT NOT NULL,
     date DATETIME NOT NULL,
+    placed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
     address VARCHAR(100) NOT NULL,
     city VARCHAR(50) NOT NULL,
     state VARCHAR(50) NOT NULL,
     zip VARCHAR(20) NOT NULL,
     shipping_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,
     PRIMARY KEY (order_id),
-    FOREIGN KEY (user_id) REFERENCES users(user_id)
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    INDEX idx_orders_user_date (user_id, date)
 );
 
 CREATE TABLE order_line_items (
@@ -82,6 +85,68 @@ CREATE TABLE order_line_items (
     FOREIGN KEY (product_id) REFERENCES products(product_id)
 );
 
+-- read model: one precomputed totals row per order (maintained at checkout)
+CREATE TABLE order_summaries (
+    order_id INT NOT NULL,
+    user_id INT NOT NULL,
+    item_count INT NOT NULL DEFAULT 0,
+    subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    discount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    shipping_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,
+    grand_total DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (order_id),
+    FOREIGN KEY (order_id) REFERENCES orders(order_id),
+    INDEX idx_order_summaries_user (user_id, order_id)
+);
+
+-- analytics rollups: sales per product per hour / day, filled in order_id batches by SalesRollupJob
+CREATE TABLE sales_hourly (
+    bucket_start DATETIME NOT NULL,
+    product_id INT NOT NULL,
+    category_id INT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    units INT NOT NULL DEFAULT 0,
+    gross_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    discount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    net_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_start, product_id),
+    INDEX idx_sales_hourly_category (category_id, bucket_start),
+    INDEX idx_sales_hourly_product (product_id, bucket_start)
+);
+
+CREATE TABLE sales_daily (
+    bucket_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    category_id INT NOT NULL,
+    order_count INT NOT NULL DEFAULT 0,
+    units INT NOT NULL DEFAULT 0,
+    gross_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    discount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    net_sales DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (bucket_date, product_id),
+    INDEX idx_sales_daily_category (category_id, bucket_date),
+    INDEX idx_sales_daily_product (product_id, bucket_date)
+);
+
+-- how far (last order_id) each rollup has read
+CREATE TABLE rollup_watermarks (
+    name VARCHAR(50) NOT NULL,
+    last_order_id INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (name)
+);
+
+-- catalog change log behind GET /catalog/changes: one row per product/category write;
+-- change_id is the sync version. CatalogChangeCompactionJob drops rows a newer one supersedes
+CREATE TABLE catalog_changes (
+    change_id BIGINT NOT NULL AUTO_INCREMENT,
+    entity VARCHAR(20) NOT NULL,
+    entity_id INT NOT NULL,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    changed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (change_id),
+    INDEX idx_catalog_changes_entity (entity, entity_id, change_id)
+);
+
 -- new tables
 CREATE TABLE shopping_cart (
 	user_id INT NOT NULL,
@@ -190,4 +255,10 @@ VALUES  ('ButterGoods Classic Logo Hoodie', 94.99, 1, 'Limited edition ButterGoo
 -- add shopping cart items
 INSERT INTO shopping_cart (user_id, product_id, quantity)
 VALUES  (3, 8, 1),
-        (3, 10, 1);
\ No newline at end of file
+        (3, 10, 1);
+
+-- the starting catalog is the first changes, so GET /catalog/changes?since=0 is a full sync
+INSERT INTO catalog_changes (entity, entity_id)
+SELECT 'category', category_id FROM categories ORDER BY category_id;
+INSERT INTO catalog_changes (entity, entity_id)
+SELECT 'product', product_id FROM products ORDER BY product_id;
@@ -0,0 +1,183 @@
+package org.yearup.assets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.models.CacheStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Files in one folder, one per key, bounded by their total size: when a new
+ * file pushes the folder past maxBytes, the least recently used ones are
+ * deleted. Recency is kept in memory; after a restart the existing files
+ * are picked up oldest modification time first.
+ *
+ * Files are written next to their final name and moved into place, so a
+ * reader never sees half a file, and a crash leaves at most a *.tmp that
+ * the next start deletes.
+ */
+public class DiskLruCache
+{
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Logger log = LoggerFactory.getLogger(DiskLruCache.class);
+
+    private final String name;
+    private final Path dir;
+    private final long maxBytes;
+
+    // access order: iteration starts at the least recently used file; values are sizes
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public DiskLruCache(String name, Path dir, long maxBytes)
+    {
+        this.name = name;
+        this.dir = dir.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+
+        try
+        {
+            Files.createDirectories(this.dir);
+            load();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error opening disk cache " + this.dir, e);
+        }
+    }
+
+    /**
+     * The file for key, or null if it isn't cached.
+     */
+    public synchronized Path get(String key)
+    {
+        if (entries.get(key) == null)
+        {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return dir.resolve(key);
+    }
+
+    /**
+     * Same as get() without counting a hit or miss or touching the order.
+     */
+    public synchronized boolean contains(String key)
+    {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * A temp file in the cache's folder to write the next entry to; hand it to put().
+     */
+    public Path newTempFile(String key) throws IOException
+    {
+        return Files.createTempFile(dir, key + ".", TEMP_SUFFIX);
+    }
+
+    /**
+     * Moves the finished temp file into place under key and makes room for it.
+     */
+    public synchronized Path put(String key, Path temp) throws IOException
+    {
+        // renaming and deleting small files is quick; doing it under the lock
+        // keeps an eviction from deleting a file that was just put back
+        Path file = dir.resolve(key);
+        long size = Files.size(temp);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Long previous = entries.put(key, size);
+        bytes += size - (previous == null ? 0 : previous);
+
+        for (String old : evict(key))
+            Files.deleteIfExists(dir.resolve(old));
+        return file;
+    }
+
+    public synchronized long getBytes()
+    {
+        return bytes;
+    }
+
+    public synchronized CacheStats stats()
+    {
+        return new CacheStats(name, entries.size(), hits, 0, misses, evictions, 0);
+    }
+
+    private List<String> evict(String keep)
+    {
+        List<String> evicted = new ArrayList<>();
+        for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); )
+        {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep))
+                continue;
+
+            it.remove();
+            bytes -= eldest.getValue();
+            evictions++;
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+
+    private void load() throws IOException
+    {
+        try (Stream<Path> files = Files.list(dir))
+        {
+            List<Path> existing = files.filter(Files::isRegularFile).toList();
+
+            for (Path file : existing.stream().sorted(Comparator.comparing(DiskLruCache::lastModified)).toList())
+            {
+                String key = file.getFileName().toString();
+
+                // left behind by a write that never finished
+                if (key.endsWith(TEMP_SUFFIX))
+                {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+
+                long size = Files.size(file);
+                entries.put(key, size);
+                bytes += size;
+            }
+        }
+
+        for (String old : evict(null))
+            Files.deleteIfExists(dir.resolve(old));
+
+        log.info("Disk cache {}: {} files, {} bytes in {}.", name, entries.size(), bytes, dir);
+    }
+
+    private static long lastModified(Path file)
+    {
+        try
+        {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        }
+        catch (IOException e)
+        {
+            return 0;
+        }
+    }
+}
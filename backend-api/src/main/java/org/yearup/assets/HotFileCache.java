@@ -0,0 +1,111 @@
+package org.yearup.assets;
+
+import org.yearup.models.CacheStats;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bytes of the most requested small files (mostly product images),
+ * bounded by their total size instead of a count: the least recently used
+ * files are dropped until a new one fits. An entry is only handed out while
+ * the file's size and modification time are still the ones it was read at.
+ */
+public class HotFileCache
+{
+    private final String name;
+    private final long maxBytes;
+    private final long maxFileBytes;
+
+    // access order: iteration starts at the least recently used file
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public HotFileCache(String name, long maxBytes, long maxFileBytes)
+    {
+        this.name = name;
+        this.maxBytes = maxBytes;
+        this.maxFileBytes = Math.min(maxFileBytes, maxBytes);
+    }
+
+    /**
+     * Whether a file this big is kept here at all; bigger ones are sent from disk.
+     */
+    public boolean fits(long size)
+    {
+        return size <= maxFileBytes;
+    }
+
+    /**
+     * The cached bytes of this version of the file, or null.
+     */
+    public synchronized byte[] get(Path file, long size, long lastModified)
+    {
+        Entry entry = entries.get(file);
+        if (entry != null && entry.data.length == size && entry.lastModified == lastModified)
+        {
+            hits++;
+            return entry.data;
+        }
+
+        // the file changed on disk since it was cached
+        if (entry != null)
+        {
+            entries.remove(file);
+            bytes -= entry.data.length;
+            expirations++;
+        }
+
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(Path file, long lastModified, byte[] data)
+    {
+        if (!fits(data.length))
+            return;
+
+        Entry previous = entries.put(file, new Entry(data, lastModified));
+        bytes += data.length - (previous == null ? 0 : previous.data.length);
+
+        for (Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); )
+        {
+            Map.Entry<Path, Entry> eldest = it.next();
+            if (eldest.getKey().equals(file))
+                continue;
+
+            it.remove();
+            bytes -= eldest.getValue().data.length;
+            evictions++;
+        }
+    }
+
+    public synchronized long getBytes()
+    {
+        return bytes;
+    }
+
+    public synchronized CacheStats stats()
+    {
+        return new CacheStats(name, entries.size(), hits, 0, misses, evictions, expirations);
+    }
+
+    private static final class Entry
+    {
+        private final byte[] data;
+        private final long lastModified;
+
+        private Entry(byte[] data, long lastModified)
+        {
+            this.data = data;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package org.yearup.assets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.SingleFlight;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Serves the storefront (frontend-ui: index.html, js, css, templates and the
+ * product images) from the API's own port.
+ *
+ * - small files (assets.cache.max-file-bytes) are answered from HotFileCache,
+ *   bounded by assets.cache.max-bytes and dropping the least recently used
+ * - bigger ones go out with Tomcat's sendfile: the connector hands the file to
+ *   the kernel (FileChannel.transferTo on the socket), so the bytes never pass
+ *   through the heap. Elsewhere (tests, other servers) they are transferred
+ *   to the response stream instead
+ * - strong ETags from a SHA-256 of the content (hashed once per file version),
+ *   so If-None-Match answers 304 and If-Range/Range answer 206 reliably
+ * - fingerprinted URLs (app.3f2a9c1b.js, or ?v= with the start of the hash)
+ *   are cached by browsers for a year as immutable; everything else gets
+ *   assets.max-age-seconds (0 = revalidate every time, which a 304 makes cheap)
+ *
+ * Resized product images (see Thumbnails) go through serveFile() and get all of the above.
+ */
+@Component
+public class StaticAssets
+{
+    // request attributes Tomcat's connector reads after the servlet returns (see DefaultServlet)
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    // name.<8+ hex>.ext, the way bundlers fingerprint files
+    private static final Pattern FINGERPRINTED_NAME = Pattern.compile(".+\\.[0-9a-f]{8,}\\.[A-Za-z0-9]+");
+    private static final int MIN_VERSION_LENGTH = 8;
+
+    private final Logger log = LoggerFactory.getLogger(StaticAssets.class);
+
+    private final Path root;
+    private final String cacheControl;
+    private final long sendfileMinBytes;
+    private final HotFileCache hotFiles;
+    private final SingleFlight<Path, byte[]> reads;
+
+    // content hashes by file, re-hashed when size or modification time change
+    private final Map<Path, Asset> assets = new ConcurrentHashMap<>();
+
+    public StaticAssets(CacheRegistry cacheRegistry,
+                        @Value("${assets.root:../frontend-ui}") String root,
+                        @Value("${assets.max-age-seconds:0}") long maxAgeSeconds,
+                        @Value("${assets.cache.max-bytes:67108864}") long cacheMaxBytes,
+                        @Value("${assets.cache.max-file-bytes:262144}") long cacheMaxFileBytes,
+                        @Value("${assets.sendfile-min-bytes:49152}") long sendfileMinBytes)
+    {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.cacheControl = maxAgeSeconds <= 0 ? "no-cache" : "public, max-age=" + maxAgeSeconds;
+        this.sendfileMinBytes = sendfileMinBytes;
+        this.hotFiles = new HotFileCache("assets.hot-files", cacheMaxBytes, cacheMaxFileBytes);
+        // the bytes are never modified, so readers can share one array
+        this.reads = cacheRegistry.register(new SingleFlight<>("assets.reads", UnaryOperator.identity()));
+        cacheRegistry.registerStats(hotFiles::stats);
+
+        if (!Files.isDirectory(this.root))
+            log.warn("Static assets folder {} does not exist; set assets.root to the frontend-ui folder.", this.root);
+    }
+
+    /**
+     * Writes the file at path ("/images/products/camera.jpg", already URL
+     * decoded) including status and headers. Returns false when there is no
+     * such file, without touching the response.
+     */
+    public boolean serve(String path, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        Path file = find(path);
+        return file != null && serveFile(file, null, request, response);
+    }
+
+    /**
+     * Like serve(), for a file that is not under assets.root (thumbnails).
+     * ?v= is checked against version instead of the file's own hash, so a
+     * resized copy is immutable under its source image's fingerprint.
+     */
+    public boolean serveFile(Path file, String version, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        Asset asset = lookup(file);
+        if (asset == null)
+            return false;
+
+        response.setHeader(HttpHeaders.ETAG, asset.etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, asset.lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                isFingerprinted(asset, version == null ? asset.hash : version, request.getParameter("v")) ? IMMUTABLE : cacheControl);
+
+        if (notModified(asset, request))
+        {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return true;
+        }
+
+        long start = 0;
+        long length = asset.size;
+
+        long[] range = rangeApplies(asset, request) ? range(request.getHeader(HttpHeaders.RANGE), asset.size) : null;
+        if (range != null && range.length == 0)
+        {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + asset.size);
+            return true;
+        }
+        if (range != null)
+        {
+            start = range[0];
+            length = range[1] - range[0] + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + asset.size);
+        }
+
+        String contentType = request.getServletContext().getMimeType(asset.file.getFileName().toString());
+        response.setContentType(contentType == null ? "application/octet-stream" : contentType);
+        if (contentType != null && contentType.startsWith("text/"))
+            response.setCharacterEncoding("UTF-8");
+        response.setContentLengthLong(length);
+
+        if (!"HEAD".equals(request.getMethod()))
+            writeBody(asset, start, length, request, response);
+        return true;
+    }
+
+    /**
+     * {start, end} (inclusive) of a single "bytes=" range, an empty array when
+     * it can't be satisfied, or null to send the whole file (no header, a
+     * header we don't understand, or several ranges, which RFC 7233 allows
+     * answering with everything).
+     */
+    static long[] range(String header, long size)
+    {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0)
+            return null;
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+            return null;
+
+        try
+        {
+            // "-500": the last 500 bytes
+            if (dash == 0)
+            {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0 || size == 0)
+                    return new long[0];
+                return new long[] { Math.max(0, size - suffix), size - 1 };
+            }
+
+            // "500-" runs to the end of the file, "500-999" is cut at the end
+            long start = Long.parseLong(spec.substring(0, dash));
+            long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+            if (end < start)
+                return null;
+            if (start >= size)
+                return new long[0];
+            return new long[] { start, Math.min(end, size - 1) };
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * The file under assets.root for this path, or null when it is missing,
+     * a folder, hidden, or outside the root.
+     */
+    public Path find(String path)
+    {
+        Path file = resolve(path);
+        return file != null && Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Hex SHA-256 (first 128 bits) of the file's current content, or null if
+     * it is gone. Hashed once per version of the file.
+     */
+    public String contentHash(Path file) throws IOException
+    {
+        Asset asset = lookup(file);
+        return asset == null ? null : asset.hash;
+    }
+
+    private Asset lookup(Path file) throws IOException
+    {
+        BasicFileAttributes attributes;
+        try
+        {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        catch (NoSuchFileException e)
+        {
+            // deleted (e.g. a thumbnail dropped from the disk cache): forget its hash too
+            assets.remove(file);
+            return null;
+        }
+        if (!attributes.isRegularFile())
+            return null;
+
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        Asset asset = assets.get(file);
+        if (asset == null || asset.size != size || asset.lastModified != lastModified)
+        {
+            asset = new Asset(file, size, lastModified, sha256(file));
+            assets.put(file, asset);
+        }
+        return asset;
+    }
+
+    // the file under root, or null for anything that would leave it or is hidden ("..", ".git", ".env")
+    private Path resolve(String path)
+    {
+        if (path == null || path.indexOf('\0') >= 0)
+            return null;
+
+        for (String segment : path.split("[/\\\\]"))
+        {
+            if (segment.startsWith("."))
+                return null;
+        }
+
+        Path file = root.resolve(path.replaceFirst("^[/\\\\]+", "")).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+
+    private static boolean isFingerprinted(Asset asset, String hash, String version)
+    {
+        if (version != null)
+            return version.length() >= MIN_VERSION_LENGTH && hash.startsWith(version);
+
+        return FINGERPRINTED_NAME.matcher(asset.file.getFileName().toString()).matches();
+    }
+
+    private static boolean notModified(Asset asset, HttpServletRequest request)
+    {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null)
+        {
+            // If-None-Match uses the weak comparison, so W/"x" matches "x"
+            for (String tag : ifNoneMatch.split(","))
+            {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/"))
+                    candidate = candidate.substring(2);
+                if (candidate.equals("*") || candidate.equals(asset.etag))
+                    return true;
+            }
+            return false;
+        }
+
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && asset.lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range: only resume from the same version, otherwise send the whole (new) file
+    private static boolean rangeApplies(Asset asset, HttpServletRequest request)
+    {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null)
+            return true;
+
+        if (ifRange.trim().startsWith("\""))
+            return ifRange.trim().equals(asset.etag);
+
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && asset.lastModified / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name)
+    {
+        try
+        {
+            return request.getDateHeader(name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return -1;
+        }
+    }
+
+    private void writeBody(Asset asset, long start, long length,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        if (hotFiles.fits(asset.size))
+        {
+            byte[] bytes = hotBytes(asset);
+            if (bytes != null)
+            {
+                response.getOutputStream().write(bytes, (int) start, (int) length);
+                return;
+            }
+        }
+
+        // below sendfileMinBytes setting up sendfile costs more than copying (Tomcat's default is 48 KB)
+        if (length >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED)))
+        {
+            request.setAttribute(SENDFILE_FILENAME, asset.file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(asset.file, StandardOpenOption.READ))
+        {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end)
+            {
+                long sent = channel.transferTo(position, end - position, out);
+
+                // the file got shorter while we were sending it
+                if (sent <= 0)
+                    throw new IOException("Error sending " + asset.file + ": file changed while sending.");
+                position += sent;
+            }
+        }
+    }
+
+    // from HotFileCache, reading the file once however many requests miss at the same time
+    private byte[] hotBytes(Asset asset)
+    {
+        byte[] bytes = hotFiles.get(asset.file, asset.size, asset.lastModified);
+        if (bytes != null)
+            return bytes;
+
+        bytes = reads.run(asset.file, file ->
+        {
+            try
+            {
+                return Files.readAllBytes(file);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Error reading " + file, e);
+            }
+        });
+
+        // changed on disk since lookup(): send it from disk, the next request caches the new version
+        if (bytes.length != asset.size)
+            return null;
+
+        hotFiles.put(asset.file, asset.lastModified, bytes);
+        return bytes;
+    }
+
+    private static String sha256(Path file) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            for (int read; (read = in.read(buffer)) > 0; )
+                sha256.update(buffer, 0, read);
+
+            // 128 bits is plenty to tell versions of one file apart
+            return HexFormat.of().formatHex(sha256.digest(), 0, 16);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 is missing from this JVM.", e);
+        }
+    }
+
+    private static final class Asset
+    {
+        private final Path file;
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+        private final String etag;
+
+        private Asset(Path file, long size, long lastModified, String hash)
+        {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.etag = "\"" + hash + "\"";
+        }
+    }
+}
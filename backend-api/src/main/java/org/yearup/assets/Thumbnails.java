@@ -0,0 +1,308 @@
+package org.yearup.assets;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.SingleFlight;
+import org.yearup.models.Product;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resized JPEG copies of the product images, for tiles that show a 500 px
+ * photo 100-160 px wide: GET /images/products/camera.jpg?w=160&q=75.
+ *
+ * - only thumbnails.widths and thumbnails.qualities are made, so the number
+ *   of variants (and the work a client can ask for) stays bounded
+ * - each variant is stored once in a DiskLruCache (thumbnails.dir, at most
+ *   thumbnails.cache.max-bytes), named by the source's content hash, so a
+ *   changed image gets new variants and the old ones age out
+ * - rendering runs on thumbnails.threads workers with a queue of
+ *   thumbnails.queue-size; when both are full the request is refused
+ *   (RejectedExecutionException) instead of piling up decodes
+ * - concurrent requests for the same variant wait for one render (SingleFlight)
+ * - large sources are decoded subsampled, at no less than twice the target width
+ * - Product.thumbnailUrl is built here: thumbnails.grid-width, checked against
+ *   thumbnails.widths at startup, and ?v= with the start of the source hash
+ *
+ * Variants are sent by StaticAssets, so they get ETags, ranges, the in-memory
+ * hot cache and, with ?v=<source hash>, immutable caching.
+ */
+@Component
+public class Thumbnails implements DisposableBean
+{
+    // hex digits of the source hash in ?v=; StaticAssets wants at least 8
+    private static final int VERSION_LENGTH = 16;
+
+    private final StaticAssets staticAssets;
+    private final List<Integer> widths;
+    private final List<Integer> qualities;
+    private final int defaultQuality;
+    private final int gridWidth;
+    private final DiskLruCache variants;
+    private final SingleFlight<String, Path> renders;
+    private final ThreadPoolExecutor executor;
+
+    public Thumbnails(StaticAssets staticAssets,
+                      CacheRegistry cacheRegistry,
+                      @Value("${thumbnails.widths:80,160,320,640}") List<Integer> widths,
+                      @Value("${thumbnails.qualities:60,75,90}") List<Integer> qualities,
+                      @Value("${thumbnails.default-quality:75}") int defaultQuality,
+                      @Value("${thumbnails.grid-width:160}") int gridWidth,
+                      @Value("${thumbnails.dir:thumbnail-cache}") String dir,
+                      @Value("${thumbnails.cache.max-bytes:268435456}") long cacheMaxBytes,
+                      @Value("${thumbnails.threads:2}") int threads,
+                      @Value("${thumbnails.queue-size:32}") int queueSize)
+    {
+        this.staticAssets = staticAssets;
+        this.widths = List.copyOf(widths);
+        this.qualities = List.copyOf(qualities);
+        this.defaultQuality = defaultQuality;
+        this.gridWidth = gridWidth;
+        if (!isAllowed(gridWidth, null))
+            throw new IllegalStateException("thumbnails.grid-width " + gridWidth + " is not one of thumbnails.widths " + this.widths
+                                             + " (or thumbnails.default-quality is not one of thumbnails.qualities).");
+
+        this.variants = new DiskLruCache("thumbnails.variants", Paths.get(dir), cacheMaxBytes);
+        // a Path is immutable, so waiting callers can share it
+        this.renders = cacheRegistry.register(new SingleFlight<>("thumbnails.renders", UnaryOperator.identity()));
+        cacheRegistry.registerStats(variants::stats);
+
+        // ImageIO's own disk cache only slows down reading from files we already have
+        ImageIO.setUseCache(false);
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r ->
+                {
+                    Thread thread = new Thread(r, "thumbnails-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Product.setThumbnailUrls(this::gridUrl);
+    }
+
+    /**
+     * Whether this width and quality (null = thumbnails.default-quality) are
+     * among the ones we make.
+     */
+    public boolean isAllowed(int width, Integer quality)
+    {
+        return widths.contains(width) && qualities.contains(quality == null ? defaultQuality : quality);
+    }
+
+    /**
+     * URL of the grid's thumbnail for a product's imageUrl ("camera.jpg"):
+     * /images/products/camera.jpg?w=160&v=3f2a9c1b5e7d4a60. The version is
+     * left out when the image is missing, so the URL is just not immutable.
+     */
+    public String gridUrl(String imageUrl)
+    {
+        String path = "/images/products/" + imageUrl;
+        String url = path + "?w=" + gridWidth;
+        try
+        {
+            Path source = staticAssets.find(path);
+            String sourceHash = source == null ? null : staticAssets.contentHash(source);
+            return sourceHash == null ? url : url + "&v=" + sourceHash.substring(0, VERSION_LENGTH);
+        }
+        catch (IOException e)
+        {
+            return url;
+        }
+    }
+
+    /**
+     * Writes the resized copy of the image at path ("/images/products/camera.jpg"),
+     * making it first if needed. Returns false when there is no such image.
+     * Throws RejectedExecutionException when it would have to be made and the
+     * workers are all busy.
+     */
+    public boolean serve(String path, int width, Integer quality,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        Path source = staticAssets.find(path);
+        String sourceHash = source == null ? null : staticAssets.contentHash(source);
+        if (sourceHash == null)
+            return false;
+
+        int q = quality == null ? defaultQuality : quality;
+        Path variant = variant(source, sourceHash, width, q);
+        return variant != null && staticAssets.serveFile(variant, sourceHash, request, response);
+    }
+
+    // the variant's file, rendering it once however many requests ask at the same time; null if source isn't an image
+    private Path variant(Path source, String sourceHash, int width, int quality)
+    {
+        String key = sourceHash + "-w" + width + "-q" + quality + ".jpg";
+
+        Path cached = variants.get(key);
+        if (cached != null)
+            return cached;
+
+        return renders.run(key, k ->
+        {
+            // finished by a render that ended between get() and run()
+            if (variants.contains(k))
+                return variants.get(k);
+
+            Future<Path> render = executor.submit(() -> render(source, k, width, quality));
+            try
+            {
+                return render.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                render.cancel(true);
+                throw new IllegalStateException("Interrupted while resizing " + source, e);
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException("Error resizing " + source, e.getCause());
+            }
+        });
+    }
+
+    private Path render(Path source, String key, int width, int quality) throws IOException
+    {
+        BufferedImage image = read(source, width);
+        if (image == null)
+            return null;
+
+        BufferedImage resized = resize(image, Math.min(width, image.getWidth()));
+
+        Path temp = variants.newTempFile(key);
+        try
+        {
+            writeJpeg(resized, quality, temp);
+            return variants.put(key, temp);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // decodes every n-th row and column of big images: a 4000 px photo for a 160 px tile reads every 12th
+    static BufferedImage read(Path source, int width) throws IOException
+    {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile()))
+        {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext())
+                return null;
+
+            ImageReader reader = readers.next();
+            try
+            {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+
+                // keep at least twice the target width for the smooth downscale below
+                int step = reader.getWidth(0) / (width * 2);
+                if (step > 1)
+                    param.setSourceSubsampling(step, step, 0, 0);
+
+                return reader.read(0, param);
+            }
+            finally
+            {
+                reader.dispose();
+            }
+        }
+    }
+
+    // halves with bilinear until close, then one bicubic step; one big bicubic step would alias
+    static BufferedImage resize(BufferedImage image, int width)
+    {
+        BufferedImage current = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        int height = Math.max(1, Math.round((float) currentHeight * width / currentWidth));
+
+        do
+        {
+            boolean last = currentWidth / 2 < width;
+            int nextWidth = last ? width : currentWidth / 2;
+            int nextHeight = last ? height : Math.max(height, currentHeight / 2);
+
+            // RGB on white: JPEG has no alpha, and transparent pixels would turn black
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try
+            {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, last
+                        ? RenderingHints.VALUE_INTERPOLATION_BICUBIC
+                        : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nextWidth, nextHeight, Color.WHITE, null);
+            }
+            finally
+            {
+                g.dispose();
+            }
+
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        }
+        while (currentWidth != width || currentHeight != height);
+
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, int quality, Path file) throws IOException
+    {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile()))
+        {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100f);
+
+            // decodes top to bottom as it arrives; for thumbnails progressive only costs bytes
+            param.setProgressiveMode(ImageWriteParam.MODE_DISABLED);
+
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        }
+        finally
+        {
+            writer.dispose();
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package org.yearup.bootstrap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ProfileDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.Bootstrap;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+import org.yearup.models.Profile;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.User;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the storefront's first page (categories, products, cart, profile)
+ * with the four DAO calls running in parallel; see FanOut.
+ *
+ * The pool is shared by all bootstrap requests and bounded on both ends:
+ * bootstrap.threads workers and a queue of bootstrap.queue-size calls. When
+ * both are full, parts are skipped (and reported as incomplete) instead of
+ * queueing behind a slow database.
+ */
+@Component
+public class BootstrapLoader implements DisposableBean
+{
+    private final CategoryDao categoryDao;
+    private final ProductDao productDao;
+    private final ShoppingCartDao shoppingCartDao;
+    private final ProfileDao profileDao;
+    private final long deadlineMillis;
+    private final ThreadPoolExecutor executor;
+
+    public BootstrapLoader(CategoryDao categoryDao,
+                           ProductDao productDao,
+                           ShoppingCartDao shoppingCartDao,
+                           ProfileDao profileDao,
+                           @Value("${bootstrap.threads:16}") int threads,
+                           @Value("${bootstrap.queue-size:64}") int queueSize,
+                           @Value("${bootstrap.deadline-ms:500}") long deadlineMillis)
+    {
+        this.categoryDao = categoryDao;
+        this.productDao = productDao;
+        this.shoppingCartDao = shoppingCartDao;
+        this.profileDao = profileDao;
+        this.deadlineMillis = deadlineMillis;
+
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r ->
+                {
+                    Thread thread = new Thread(r, "bootstrap-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The first page for this user (null = not logged in), with products
+     * matching the given filters like GET /products.
+     */
+    public Bootstrap load(User user, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        FanOut fanOut = new FanOut(executor, deadlineMillis);
+
+        Future<List<Category>> categories = fanOut.submit(categoryDao::getAllCategories);
+        Future<List<Product>> products = fanOut.submit(() -> productDao.search(categoryId, minPrice, maxPrice, subCategory));
+        Future<ShoppingCart> cart = user == null ? null : fanOut.submit(() -> shoppingCartDao.getByUserId(user.getId()));
+        Future<Profile> profile = user == null ? null : fanOut.submit(() -> profileDao.getByUserId(user.getId()));
+
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.setCategories(fanOut.await("categories", categories));
+        bootstrap.setProducts(fanOut.await("products", products));
+        if (user != null)
+        {
+            bootstrap.setCart(fanOut.await("cart", cart));
+            bootstrap.setProfile(fanOut.await("profile", profile));
+        }
+        bootstrap.setIncomplete(fanOut.getMissed());
+        return bootstrap;
+    }
+
+    @Override
+    public void destroy()
+    {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,83 @@
+package org.yearup.bootstrap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs a request's independent calls side by side on a shared, bounded
+ * executor and waits for each of them until one deadline (counted from
+ * when this FanOut was created).
+ *
+ * A call that is not back by then, that throws, or that the executor
+ * has no room for, gives null and is listed in getMissed(); the others
+ * still come back. Late calls are cancelled.
+ *
+ *   FanOut fanOut = new FanOut(executor, 300);
+ *   Future<A> a = fanOut.submit(this::loadA);
+ *   Future<B> b = fanOut.submit(this::loadB);
+ *   A resultA = fanOut.await("a", a);   // null if "a" missed the deadline
+ */
+public class FanOut
+{
+    private final Logger log = LoggerFactory.getLogger(FanOut.class);
+
+    private final ExecutorService executor;
+    private final long deadline;
+    private final List<String> missed = new ArrayList<>();
+
+    public FanOut(ExecutorService executor, long deadlineMillis)
+    {
+        this.executor = executor;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    }
+
+    public <T> Future<T> submit(Callable<T> call)
+    {
+        try
+        {
+            return executor.submit(call);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the pool and its queue are full: skip this part rather than wait for room
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The call's result, or null if it missed the deadline or failed.
+     */
+    public <T> T await(String name, Future<T> call)
+    {
+        try
+        {
+            return call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            call.cancel(true);
+            log.warn("{} missed its deadline; answering without it.", name);
+        }
+        catch (ExecutionException e)
+        {
+            log.error("{} failed; answering without it.", name, e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+        }
+
+        missed.add(name);
+        return null;
+    }
+
+    public List<String> getMissed()
+    {
+        return missed;
+    }
+}
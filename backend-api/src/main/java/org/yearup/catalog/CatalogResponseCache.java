@@ -0,0 +1,211 @@
+package org.yearup.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.CachingCategoryDao;
+import org.yearup.data.cache.NearCache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Finished catalog responses: the UTF-8 JSON bytes of a browse/search
+ * result, plus a gzipped copy, serialized and compressed once and then
+ * written straight to the servlet output stream for every identical request.
+ * Clients that ask for Smile or CBOR (see BinaryFormatsConfig) get those
+ * bytes instead, cached the same way.
+ *
+ * Keys are the normalized request plus the catalog version (ProductIndex
+ * and CachingCategoryDao bump theirs on every change), so a write simply
+ * makes the old entries unreachable; they age out by TTL or make room for
+ * new ones. The version is read BEFORE the body is built, so a body can be
+ * newer than its key but never older.
+ *
+ *   catalogResponses.write("products", key, () -> productDao.search(...), request, response);
+ */
+@Component
+public class CatalogResponseCache
+{
+    private final ProductIndex productIndex;
+    private final CachingCategoryDao categoryDao;
+    // JSON first: it answers wildcard and missing Accept headers
+    private final Map<MediaType, ObjectMapper> formats = new LinkedHashMap<>();
+    private final int gzipMinBytes;
+    private final NearCache<String, Body> bodies;
+
+    public CatalogResponseCache(ProductIndex productIndex,
+                                CachingCategoryDao categoryDao,
+                                ObjectMapper objectMapper,
+                                MappingJackson2SmileHttpMessageConverter smile,
+                                MappingJackson2CborHttpMessageConverter cbor,
+                                CacheRegistry cacheRegistry,
+                                @Value("${catalog.response-cache.max-entries:500}") int maxEntries,
+                                @Value("${catalog.response-cache.ttl-seconds:600}") long ttlSeconds,
+                                @Value("${catalog.response-cache.gzip-min-bytes:1024}") int gzipMinBytes)
+    {
+        this.productIndex = productIndex;
+        this.categoryDao = categoryDao;
+        this.formats.put(MediaType.APPLICATION_JSON, objectMapper);
+        this.formats.put(smile.getSupportedMediaTypes().get(0), smile.getObjectMapper());
+        this.formats.put(MediaType.APPLICATION_CBOR, cbor.getObjectMapper());
+        this.gzipMinBytes = gzipMinBytes;
+        this.bodies = cacheRegistry.register(new NearCache<>("catalog.responses", maxEntries,
+                Duration.ofSeconds(ttlSeconds), Duration.ZERO));
+    }
+
+    /**
+     * Writes the cached response for this request, building it from body
+     * first if needed. key must name everything the body depends on; see
+     * key(...) for turning request parameters into one.
+     */
+    public void write(String key, Supplier<Object> body,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        MediaType format = negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String versionedKey = productIndex.getVersion() + "." + categoryDao.getVersion() + " " + format + " " + key;
+        Body cached = bodies.get(versionedKey, k -> serialize(body.get(), formats.get(format)));
+
+        boolean gzip = cached.gzip != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] bytes = gzip ? cached.gzip : cached.bytes;
+
+        response.setContentType(format.toString());
+        if (format.equals(MediaType.APPLICATION_JSON))
+            response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (gzip)
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    /**
+     * One cache key per distinct result: "products?cat=1&min=10&max=&sub=red"
+     * for ?cat=1&minPrice=10.00&subCategory=Red .
+     */
+    public static String key(String path, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        // subcategory matching is a case-insensitive contains, prices are compared by value
+        String sub = subCategory == null || subCategory.isBlank() ? "" : subCategory.trim().toLowerCase(Locale.ROOT);
+        return path + "?cat=" + (categoryId == null ? "" : categoryId)
+                + "&min=" + price(minPrice)
+                + "&max=" + price(maxPrice)
+                + "&sub=" + sub;
+    }
+
+    // the client's most preferred format we have; JSON when nothing else matches
+    MediaType negotiate(String accept)
+    {
+        if (accept == null || accept.isBlank())
+            return MediaType.APPLICATION_JSON;
+
+        try
+        {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(accepted);
+
+            for (MediaType type : accepted)
+            {
+                if (type.getQualityValue() == 0)
+                    continue;
+
+                for (MediaType format : formats.keySet())
+                {
+                    if (type.isCompatibleWith(format))
+                        return format;
+                }
+            }
+        }
+        catch (InvalidMediaTypeException e)
+        {
+            // fall through to JSON, like a missing header
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    // true for "gzip", "gzip, br", "*"; false for "gzip;q=0" or no header
+    static boolean acceptsGzip(String acceptEncoding)
+    {
+        if (acceptEncoding == null)
+            return false;
+
+        for (String part : acceptEncoding.split(","))
+        {
+            String[] coding = part.trim().split(";");
+            String name = coding[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*"))
+                continue;
+
+            for (int i = 1; i < coding.length; i++)
+            {
+                String param = coding[i].trim().replace(" ", "");
+                if (param.equals("q=0") || param.matches("q=0\\.0*"))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private Body serialize(Object value, ObjectMapper mapper)
+    {
+        try
+        {
+            byte[] bytes = mapper.writeValueAsBytes(value);
+
+            // small bodies don't shrink enough to be worth a Content-Encoding
+            return new Body(bytes, bytes.length < gzipMinBytes ? null : gzip(bytes));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Error serializing catalog response.", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+
+        // compressed once per catalog version, so use the best ratio
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }})
+        {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static String price(BigDecimal price)
+    {
+        return price == null ? "" : price.stripTrailingZeros().toPlainString();
+    }
+
+    private static final class Body
+    {
+        private final byte[] bytes;
+        private final byte[] gzip;
+
+        private Body(byte[] bytes, byte[] gzip)
+        {
+            this.bytes = bytes;
+            this.gzip = gzip;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.yearup.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Sparse "bought in the same order" counts between products.
+ *
+ * Each product has a row: an IntIntMap of other product -> number of orders
+ * containing both, plus its current top-N as an immutable TopN. Counts only
+ * ever go up by one, so the top-N can be maintained exactly on every
+ * increment (a product enters the list only when its count passes the
+ * smallest one in it), and a lookup just returns the row's TopN as is.
+ *
+ * Writes (addOrder) are serialized; reads never lock or allocate.
+ */
+public final class CoOccurrenceMatrix
+{
+    private final int topN;
+
+    // indexed by product id; replaced (never resized in place) when a larger id shows up
+    private volatile Row[] rows = new Row[0];
+
+    public CoOccurrenceMatrix(int topN)
+    {
+        this.topN = topN;
+    }
+
+    /**
+     * Counts one order. productIds may contain duplicates (one per line item).
+     */
+    public synchronized void addOrder(int[] productIds)
+    {
+        int[] distinct = Arrays.stream(productIds).filter(id -> id > 0).distinct().toArray();
+
+        for (int a : distinct)
+        {
+            for (int b : distinct)
+            {
+                if (a != b)
+                    row(a).increment(b, topN);
+            }
+        }
+    }
+
+    /**
+     * The products most often bought with productId, best first.
+     * Returns a shared, immutable object (TopN.EMPTY if there are none).
+     */
+    public TopN top(int productId)
+    {
+        Row[] current = rows;
+        Row row = productId >= 0 && productId < current.length ? current[productId] : null;
+        // a row published by a concurrent writer may not show its fields yet
+        TopN top = row == null ? null : row.top;
+        return top == null ? TopN.EMPTY : top;
+    }
+
+    private Row row(int productId)
+    {
+        Row[] current = rows;
+        if (productId >= current.length)
+        {
+            current = Arrays.copyOf(current, Math.max(productId + 1, current.length * 2));
+            rows = current;
+        }
+
+        Row row = current[productId];
+        if (row == null)
+        {
+            row = new Row();
+            current[productId] = row;
+        }
+        return row;
+    }
+
+    private static final class Row
+    {
+        private final IntIntMap counts = new IntIntMap();
+        private volatile TopN top = TopN.EMPTY;
+
+        private void increment(int other, int topN)
+        {
+            int count = counts.addTo(other, 1);
+            TopN next = top.offer(other, count, topN);
+            if (next != top)
+                top = next;
+        }
+    }
+
+    /**
+     * Immutable top-N list: productId(i) was bought together count(i) times.
+     */
+    public static final class TopN
+    {
+        public static final TopN EMPTY = new TopN(new int[0], new int[0]);
+
+        private final int[] productIds;
+        private final int[] counts;
+
+        private TopN(int[] productIds, int[] counts)
+        {
+            this.productIds = productIds;
+            this.counts = counts;
+        }
+
+        public int size()
+        {
+            return productIds.length;
+        }
+
+        public int productId(int i)
+        {
+            return productIds[i];
+        }
+
+        public int count(int i)
+        {
+            return counts[i];
+        }
+
+        // this list after `other` reached `count`; returns this if nothing changed
+        private TopN offer(int other, int count, int limit)
+        {
+            int position = -1;
+            for (int i = 0; i < productIds.length; i++)
+            {
+                if (productIds[i] == other)
+                    position = i;
+            }
+
+            int[] ids;
+            int[] values;
+            if (position >= 0)
+            {
+                ids = productIds.clone();
+                values = counts.clone();
+            }
+            else if (productIds.length < limit)
+            {
+                position = productIds.length;
+                ids = Arrays.copyOf(productIds, position + 1);
+                values = Arrays.copyOf(counts, position + 1);
+            }
+            else if (count > counts[counts.length - 1])
+            {
+                // replaces the weakest entry
+                position = productIds.length - 1;
+                ids = productIds.clone();
+                values = counts.clone();
+            }
+            else
+            {
+                return this;
+            }
+
+            ids[position] = other;
+            values[position] = count;
+
+            // bubble up; ties keep the earlier entry first
+            while (position > 0 && values[position - 1] < values[position])
+            {
+                swap(ids, position, position - 1);
+                swap(values, position, position - 1);
+                position--;
+            }
+
+            return new TopN(ids, values);
+        }
+
+        private static void swap(int[] array, int i, int j)
+        {
+            int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.yearup.catalog;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Answers product searches from the in-memory ProductIndex; everything
+ * else (single lookups and writes) goes straight to MySQL.
+ *
+ * Set catalog.index.enabled=false to send searches back to SQL.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "catalog.index.enabled", havingValue = "true", matchIfMissing = true)
+public class IndexedProductDao implements ProductDao
+{
+    private final MySqlProductDao productDao;
+    private final ProductIndex productIndex;
+
+    public IndexedProductDao(MySqlProductDao productDao, ProductIndex productIndex)
+    {
+        this.productDao = productDao;
+        this.productIndex = productIndex;
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        return productIndex.search(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Override
+    public List<Product> listByCategoryId(int categoryId)
+    {
+        return productIndex.search(categoryId, null, null, null);
+    }
+
+    @Override
+    public Product getById(int productId)
+    {
+        return productDao.getById(productId);
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        return productDao.create(product);
+    }
+
+    @Override
+    public void update(int productId, Product product)
+    {
+        productDao.update(productId, product);
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        productDao.delete(productId);
+    }
+}
@@ -0,0 +1,91 @@
+package org.yearup.catalog;
+
+/**
+ * Open-addressing int -> int hash map (linear probing, no boxing).
+ * Missing keys read as 0. Keys must not be 0, which marks an empty slot;
+ * product ids start at 1. Not thread-safe.
+ */
+public final class IntIntMap
+{
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntMap()
+    {
+        this(8);
+    }
+
+    public IntIntMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    public int get(int key)
+    {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Adds delta to the value for key (starting from 0) and returns the new value.
+     */
+    public int addTo(int key, int delta)
+    {
+        if (key == 0)
+            throw new IllegalArgumentException("0 cannot be used as a key.");
+
+        int slot = find(key);
+        if (keys[slot] == key)
+            return values[slot] += delta;
+
+        keys[slot] = key;
+        values[slot] = delta;
+        // keep the table at most half full so probes stay short
+        if (++size * 2 > keys.length)
+            grow();
+        return delta;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // the key's slot, or the empty slot where it would go
+    private int find(int key)
+    {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow()
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != 0)
+            {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // sequential ids would otherwise fill neighbouring slots
+    private static int mix(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,36 @@
+package org.yearup.catalog;
+
+import org.yearup.models.Product;
+
+/**
+ * Published by ProductIndex after it applied a product change it read from
+ * the catalog change log, i.e. one made by another instance or straight in
+ * the database. Writes made through this instance are ProductChangedEvents.
+ */
+public class ProductFollowedEvent
+{
+    private final int productId;
+    // the row as the change log has it now; null when it was deleted
+    private final Product product;
+
+    public ProductFollowedEvent(int productId, Product product)
+    {
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public Product getProduct()
+    {
+        return product;
+    }
+
+    public boolean isDeleted()
+    {
+        return product == null;
+    }
+}
@@ -0,0 +1,889 @@
+package org.yearup.catalog;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CatalogChangeDao;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.CatalogChanges;
+import org.yearup.models.FacetCount;
+import org.yearup.models.PriceBucketCount;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented, in-memory copy of the products table that answers
+ * product searches and the filter UI's counts without going to MySQL.
+ *
+ * Every product gets a row number. Each filter value (a category, a
+ * subcategory, a price bucket) owns a compressed bitmap of the rows that
+ * have it, so "which products match X and Y" is an AND of two bitmaps
+ * instead of a scan over the table. Inside each price bucket the rows are
+ * also kept sorted by price, so a min/max price that falls in the middle of
+ * a bucket is trimmed with a binary search rather than row by row.
+ *
+ * The whole table is loaded once (at startup, or on first use), then kept
+ * current from the ProductChangedEvents MySqlProductDao publishes. Those
+ * only cover writes made through this instance, so the index also follows
+ * the catalog change log (catalog_changes) every follow-interval-ms, which
+ * picks up other instances' writes and edits made straight in the database.
+ * Each followed change is published as a ProductFollowedEvent.
+ *
+ * Loads and compactions build a complete new set of columns without the
+ * lock and swap it in under it, so searches never wait on MySQL or a rebuild.
+ */
+@Component
+public class ProductIndex
+{
+    private final Logger log = LoggerFactory.getLogger(ProductIndex.class);
+
+    private final MySqlProductDao productDao;
+    // null = only this instance's own writes are followed
+    private final CatalogChangeDao catalogChangeDao;
+    private final int followPageSize;
+    private final int settleSeconds;
+    private final ApplicationEventPublisher events;
+
+    // bucket edges in cents: bucket i holds prices in [edge[i-1], edge[i])
+    private final long[] priceEdges;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // one reload or compaction at a time; taken before the read/write lock, never inside it
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // null until the first load
+    private Columns columns;
+    private long version;
+    // the catalog_changes version the rows are current to
+    private long changeVersion;
+
+    // local writes that land while a reload reads MySQL; replayed onto its columns
+    private boolean reloading;
+    private final List<ProductChangedEvent> changedDuringReload = new ArrayList<>();
+
+    public ProductIndex(MySqlProductDao productDao, BigDecimal[] priceBuckets)
+    {
+        this(productDao, priceBuckets, null, 1000, 2, event -> { });
+    }
+
+    @Autowired
+    public ProductIndex(MySqlProductDao productDao,
+                        @Value("${catalog.price-buckets:25,50,100,250,500,1000}") BigDecimal[] priceBuckets,
+                        CatalogChangeDao catalogChangeDao,
+                        @Value("${catalog.changes.max-page-size:1000}") int followPageSize,
+                        @Value("${catalog.changes.settle-seconds:2}") int settleSeconds,
+                        ApplicationEventPublisher events)
+    {
+        this.productDao = productDao;
+        this.catalogChangeDao = catalogChangeDao;
+        this.followPageSize = followPageSize;
+        this.settleSeconds = settleSeconds;
+        this.events = events;
+
+        this.priceEdges = new long[priceBuckets.length];
+        for (int i = 0; i < priceBuckets.length; i++)
+            priceEdges[i] = toCents(priceBuckets[i], RoundingMode.CEILING);
+        Arrays.sort(priceEdges);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp()
+    {
+        try
+        {
+            reload();
+        }
+        catch (Exception e)
+        {
+            // not fatal: the first request will try again
+            log.error("Could not load the product index at startup.", e);
+        }
+    }
+
+    /**
+     * Rebuilds every column and bitmap from MySQL. Searches keep using the
+     * current columns until the new ones are swapped in.
+     */
+    public void reload()
+    {
+        rebuildLock.lock();
+        try
+        {
+            lock.writeLock().lock();
+            try
+            {
+                reloading = true;
+                changedDuringReload.clear();
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+
+            Columns next = null;
+            long changesAt = 0;
+            int loaded = 0;
+            try
+            {
+                // read before the rows: changes that land during the scan are then replayed, not missed
+                if (catalogChangeDao != null)
+                    changesAt = catalogChangeDao.getLatestVersion(settleSeconds);
+                next = new Columns(priceEdges, productDao.search(null, null, null, null));
+            }
+            finally
+            {
+                lock.writeLock().lock();
+                try
+                {
+                    if (next != null)
+                    {
+                        // the scan may have read some of these rows before they were written
+                        for (ProductChangedEvent event : changedDuringReload)
+                            next.apply(event.getProductId(), event.getProduct());
+
+                        columns = next;
+                        version++;
+                        changeVersion = changesAt;
+                        loaded = next.live.getCardinality();
+                    }
+                    reloading = false;
+                    changedDuringReload.clear();
+                }
+                finally
+                {
+                    lock.writeLock().unlock();
+                }
+            }
+
+            log.info("Product index loaded {} product(s).", loaded);
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * A deleted product's row number is never handed out again, so the
+     * columns only grow. Once dead rows are a quarter of them, this builds
+     * new columns from the live rows in memory (no MySQL) and swaps them in.
+     */
+    @Scheduled(initialDelayString = "${catalog.index.compact-interval-ms:600000}",
+               fixedDelayString = "${catalog.index.compact-interval-ms:600000}")
+    public void compact()
+    {
+        // a reload in progress compacts anyway
+        if (!rebuildLock.tryLock())
+            return;
+
+        try
+        {
+            List<Product> products;
+            long at;
+            int deadRows;
+            lock.readLock().lock();
+            try
+            {
+                if (columns == null)
+                    return;
+
+                deadRows = columns.rowCount - columns.live.getCardinality();
+                if (deadRows == 0 || deadRows * 4 < columns.rowCount)
+                    return;
+
+                products = columns.liveProducts();
+                at = version;
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+
+            Columns next = new Columns(priceEdges, products);
+
+            lock.writeLock().lock();
+            try
+            {
+                // a write came in while we built; try again next time rather than lose it
+                if (version != at)
+                    return;
+                columns = next;
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+
+            log.info("Product index compacted: {} dead row(s) dropped.", deadRows);
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            if (reloading)
+                changedDuringReload.add(event);
+
+            // nothing to keep current yet; the first load will read the new row
+            if (columns == null)
+                return;
+
+            columns.apply(event.getProductId(), event.getProduct());
+            version++;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies every product change in catalog_changes since the last load or
+     * follow. The log also holds this instance's own writes, which are already
+     * in the index; those rows compare equal and leave the version alone, so
+     * cached responses are only thrown away for real changes.
+     */
+    @Scheduled(initialDelayString = "${catalog.index.follow-interval-ms:5000}",
+               fixedDelayString = "${catalog.index.follow-interval-ms:5000}")
+    public void followChanges()
+    {
+        if (catalogChangeDao == null || !isLoaded())
+            return;
+
+        try
+        {
+            CatalogChanges changes;
+            do
+            {
+                long since = currentChangeVersion();
+                // the query runs outside the lock, so searches carry on meanwhile
+                changes = catalogChangeDao.getChangesSince(since, followPageSize, settleSeconds);
+                if (!apply(since, changes))
+                    return;
+            }
+            while (changes.isHasMore());
+        }
+        catch (Exception e)
+        {
+            log.error("Could not follow the catalog change log; trying again next interval.", e);
+        }
+    }
+
+    // false if a reload ran while the changes were being read; they may be older than its rows
+    private boolean apply(long since, CatalogChanges changes)
+    {
+        List<ProductFollowedEvent> followed = new ArrayList<>();
+
+        lock.writeLock().lock();
+        try
+        {
+            if (columns == null || changeVersion != since)
+                return false;
+
+            for (int productId : changes.getDeletedProductIds())
+            {
+                if (columns.remove(productId))
+                    followed.add(new ProductFollowedEvent(productId, null));
+            }
+            for (Product product : changes.getProducts())
+            {
+                Integer row = columns.rowByProductId.get(product.getProductId());
+                if (row != null && sameValues(columns.rows[row], product))
+                    continue;
+
+                columns.upsert(product);
+                followed.add(new ProductFollowedEvent(product.getProductId(), product));
+            }
+
+            changeVersion = changes.getVersion();
+            if (!followed.isEmpty())
+                version++;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        // after the lock is released, so listeners never hold up searches
+        followed.forEach(events::publishEvent);
+        return true;
+    }
+
+    private long currentChangeVersion()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return changeVersion;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * True once the index is loaded, i.e. reads no longer need MySQL.
+     */
+    public boolean isLoaded()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return columns != null;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getVersion()
+    {
+        ensureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            return version;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A copy of one product, or null if it does not exist.
+     */
+    public Product getById(int productId)
+    {
+        ensureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            Integer row = columns.rowByProductId.get(productId);
+            return row == null ? null : copy(columns.rows[row]);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same result as MySqlProductDao.search: every product matching all the
+     * given filters, in product_id order. The products are copies.
+     */
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        ensureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            Columns c = columns;
+            RoaringBitmap matches = c.live;
+            // cheapest filters first, so the later ANDs work on smaller bitmaps
+            if (categoryId != null)
+                matches = RoaringBitmap.and(matches, c.categoryRows(categoryId));
+            if (subCategory != null && !subCategory.isBlank())
+                matches = RoaringBitmap.and(matches, c.subCategoryRows(subCategory));
+            if (minPrice != null || maxPrice != null)
+                matches = RoaringBitmap.and(matches, c.priceRows(minPrice, maxPrice));
+
+            List<Product> products = new ArrayList<>(matches.getCardinality());
+            for (int row : matches)
+                products.add(copy(c.rows[row]));
+
+            // rows are in insert order, which is product_id order unless ids were set by hand
+            products.sort(Comparator.comparingInt(Product::getProductId));
+            return products;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts for the filter UI. Takes the same filters as ProductDao.search,
+     * with the same meaning (subCategory is a case-insensitive "contains").
+     */
+    public ProductFacets facets(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        ensureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            Columns c = columns;
+            // null = that filter was not given
+            RoaringBitmap categoryFilter = categoryId == null ? null : c.categoryRows(categoryId);
+            RoaringBitmap subCategoryFilter = subCategory == null || subCategory.isBlank() ? null : c.subCategoryRows(subCategory);
+            RoaringBitmap priceFilter = minPrice == null && maxPrice == null ? null : c.priceRows(minPrice, maxPrice);
+
+            ProductFacets facets = new ProductFacets();
+            facets.setVersion(version);
+            facets.setTotal(c.and(categoryFilter, subCategoryFilter, priceFilter).getCardinality());
+
+            // each facet is counted with every filter except its own
+            RoaringBitmap withoutCategory = c.and(null, subCategoryFilter, priceFilter);
+            for (Map.Entry<Integer, RoaringBitmap> entry : c.byCategory.entrySet())
+            {
+                int count = RoaringBitmap.andCardinality(withoutCategory, entry.getValue());
+                facets.getCategories().add(new FacetCount(String.valueOf(entry.getKey()), count));
+            }
+
+            RoaringBitmap withoutSubCategory = c.and(categoryFilter, null, priceFilter);
+            for (Map.Entry<String, RoaringBitmap> entry : c.bySubCategory.entrySet())
+            {
+                int count = RoaringBitmap.andCardinality(withoutSubCategory, entry.getValue());
+                facets.getSubCategories().add(new FacetCount(entry.getKey(), count));
+            }
+
+            RoaringBitmap withoutPrice = c.and(categoryFilter, subCategoryFilter, null);
+            for (int bucket = 0; bucket < c.byPriceBucket.length; bucket++)
+            {
+                int count = RoaringBitmap.andCardinality(withoutPrice, c.byPriceBucket[bucket]);
+                BigDecimal min = bucket == 0 ? BigDecimal.ZERO : toDollars(priceEdges[bucket - 1]);
+                BigDecimal max = bucket == priceEdges.length ? null : toDollars(priceEdges[bucket]);
+                facets.getPriceBuckets().add(new PriceBucketCount(min, max, count));
+            }
+
+            return facets;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Row numbers handed out so far, live or dead; for tests
+    int rowCount()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return columns == null ? 0 : columns.rowCount;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded()
+    {
+        if (isLoaded())
+            return;
+
+        rebuildLock.lock();
+        try
+        {
+            // another request may have loaded it while we waited
+            if (!isLoaded())
+                reload();
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode rounding)
+    {
+        return amount.setScale(2, rounding).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toDollars(long cents)
+    {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static boolean sameValues(Product a, Product b)
+    {
+        return a.getCategoryId() == b.getCategoryId()
+                && a.getStock() == b.getStock()
+                && a.isFeatured() == b.isFeatured()
+                && Objects.equals(a.getName(), b.getName())
+                && (a.getPrice() == null ? b.getPrice() == null : b.getPrice() != null && a.getPrice().compareTo(b.getPrice()) == 0)
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && Objects.equals(a.getSubCategory(), b.getSubCategory())
+                && Objects.equals(a.getImageUrl(), b.getImageUrl());
+    }
+
+    private static Product copy(Product product)
+    {
+        return new Product(product.getProductId(), product.getName(), product.getPrice(), product.getCategoryId(),
+                           product.getDescription(), product.getSubCategory(), product.getStock(),
+                           product.isFeatured(), product.getImageUrl());
+    }
+
+    /**
+     * One complete set of columns and bitmaps. Built whole, outside the
+     * index's lock, by reload() and compact(); once swapped in, only read
+     * or changed under that lock.
+     */
+    private static final class Columns
+    {
+        private final long[] priceEdges;
+
+        // indexed by row
+        private Product[] rows;
+        private long[] priceCents;
+        private int rowCount;
+
+        private final Map<Integer, Integer> rowByProductId = new HashMap<>();
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final Map<Integer, RoaringBitmap> byCategory = new TreeMap<>();
+        private final Map<String, RoaringBitmap> bySubCategory = new TreeMap<>();
+        private final RoaringBitmap featured = new RoaringBitmap();
+        private final RoaringBitmap[] byPriceBucket;
+        // per bucket: its rows ordered by (price, row), in the first sortedCount[bucket] slots
+        private final int[][] sortedByPrice;
+        private final int[] sortedCount;
+
+        // false during the bulk load: upsert() only fills the bitmaps, the price columns are sorted once at the end
+        private boolean priceColumnsSorted;
+
+        private Columns(long[] priceEdges, List<Product> products)
+        {
+            this.priceEdges = priceEdges;
+            this.rows = new Product[Math.max(16, products.size())];
+            this.priceCents = new long[rows.length];
+
+            this.byPriceBucket = new RoaringBitmap[priceEdges.length + 1];
+            for (int i = 0; i < byPriceBucket.length; i++)
+                byPriceBucket[i] = new RoaringBitmap();
+            this.sortedByPrice = new int[byPriceBucket.length][0];
+            this.sortedCount = new int[byPriceBucket.length];
+
+            for (Product product : products)
+                upsert(product);
+            sortPriceColumns();
+            priceColumnsSorted = true;
+
+            for (RoaringBitmap bitmap : allBitmaps())
+                bitmap.runOptimize();
+        }
+
+        // the live rows in row order; stored Products are never changed in place, so sharing them is safe
+        private List<Product> liveProducts()
+        {
+            List<Product> products = new ArrayList<>(live.getCardinality());
+            for (int row : live)
+                products.add(rows[row]);
+            return products;
+        }
+
+        // ---- filters ----
+
+        private RoaringBitmap and(RoaringBitmap category, RoaringBitmap subCategory, RoaringBitmap price)
+        {
+            RoaringBitmap result = live.clone();
+            if (category != null)
+                result.and(category);
+            if (subCategory != null)
+                result.and(subCategory);
+            if (price != null)
+                result.and(price);
+            return result;
+        }
+
+        private RoaringBitmap categoryRows(int categoryId)
+        {
+            RoaringBitmap bitmap = byCategory.get(categoryId);
+            return bitmap == null ? new RoaringBitmap() : bitmap;
+        }
+
+        // Same as "subcategory LIKE %value%": OR of every subcategory containing it
+        private RoaringBitmap subCategoryRows(String subCategory)
+        {
+            String needle = subCategory.trim().toLowerCase(Locale.ROOT);
+
+            RoaringBitmap result = new RoaringBitmap();
+            for (Map.Entry<String, RoaringBitmap> entry : bySubCategory.entrySet())
+            {
+                if (entry.getKey().toLowerCase(Locale.ROOT).contains(needle))
+                    result.or(entry.getValue());
+            }
+            return result;
+        }
+
+        /**
+         * Buckets that lie entirely inside [min, max] are taken whole; in the
+         * (at most two) buckets the bounds cut through, the matching rows are a
+         * contiguous run of the bucket's price-sorted column.
+         */
+        private RoaringBitmap priceRows(BigDecimal minPrice, BigDecimal maxPrice)
+        {
+            long min = minPrice == null ? Long.MIN_VALUE : toCents(minPrice, RoundingMode.CEILING);
+            long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice, RoundingMode.FLOOR);
+
+            RoaringBitmap result = new RoaringBitmap();
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++)
+            {
+                long bucketMin = bucket == 0 ? Long.MIN_VALUE : priceEdges[bucket - 1];
+                long bucketMax = bucket == priceEdges.length ? Long.MAX_VALUE : priceEdges[bucket] - 1;
+
+                if (bucketMax < min || bucketMin > max)
+                    continue;
+
+                if (bucketMin >= min && bucketMax <= max)
+                {
+                    result.or(byPriceBucket[bucket]);
+                    continue;
+                }
+
+                int[] sorted = sortedByPrice[bucket];
+                int count = sortedCount[bucket];
+                int from = firstAtLeast(sorted, count, min);
+                int to = firstAtLeast(sorted, count, max == Long.MAX_VALUE ? max : max + 1);
+                if (to > from)
+                    result.addN(sorted, from, to - from);
+            }
+            return result;
+        }
+
+        // index of the first of the count rows in sorted whose price is >= cents
+        private int firstAtLeast(int[] sorted, int count, long cents)
+        {
+            int low = 0;
+            int high = count;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (priceCents[sorted[mid]] < cents)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        // ---- maintenance ----
+
+        // product null = deleted
+        private void apply(int productId, Product product)
+        {
+            if (product == null)
+                remove(productId);
+            else
+                upsert(product);
+        }
+
+        private void upsert(Product product)
+        {
+            Integer existing = rowByProductId.get(product.getProductId());
+            int row;
+
+            if (existing != null)
+            {
+                // same row number, new values
+                row = existing;
+                unindex(row);
+            }
+            else
+            {
+                row = rowCount++;
+                if (row == rows.length)
+                {
+                    rows = Arrays.copyOf(rows, rows.length * 2);
+                    priceCents = Arrays.copyOf(priceCents, rows.length);
+                }
+                rowByProductId.put(product.getProductId(), row);
+            }
+
+            rows[row] = copy(product);
+            priceCents[row] = product.getPrice() == null ? 0 : toCents(product.getPrice(), RoundingMode.HALF_UP);
+
+            live.add(row);
+            byCategory.computeIfAbsent(product.getCategoryId(), k -> new RoaringBitmap()).add(row);
+            if (product.getSubCategory() != null)
+                bySubCategory.computeIfAbsent(product.getSubCategory(), k -> new RoaringBitmap()).add(row);
+            if (product.isFeatured())
+                featured.add(row);
+            addToBucket(row);
+        }
+
+        private boolean remove(int productId)
+        {
+            Integer row = rowByProductId.remove(productId);
+            if (row == null)
+                return false;
+
+            // the row number is not reused; compact() drops it once enough have piled up
+            unindex(row);
+            rows[row] = null;
+            return true;
+        }
+
+        private void unindex(int row)
+        {
+            Product old = rows[row];
+
+            live.remove(row);
+            removeFrom(byCategory, old.getCategoryId(), row);
+            if (old.getSubCategory() != null)
+                removeFrom(bySubCategory, old.getSubCategory(), row);
+            featured.remove(row);
+
+            // still at its old price, so this finds the right bucket and the right slot in it
+            int bucket = bucketOf(priceCents[row]);
+            byPriceBucket[bucket].remove(row);
+            if (priceColumnsSorted)
+                removeSorted(bucket, row);
+        }
+
+        private void addToBucket(int row)
+        {
+            int bucket = bucketOf(priceCents[row]);
+            byPriceBucket[bucket].add(row);
+            if (priceColumnsSorted)
+                insertSorted(bucket, row);
+        }
+
+        /**
+         * One write moves one row: a binary search for its slot and a shift of
+         * the rows after it, instead of re-sorting the whole bucket.
+         */
+        private void insertSorted(int bucket, int row)
+        {
+            int[] sorted = sortedByPrice[bucket];
+            int count = sortedCount[bucket];
+            if (count == sorted.length)
+            {
+                sorted = Arrays.copyOf(sorted, Math.max(16, count * 2));
+                sortedByPrice[bucket] = sorted;
+            }
+
+            int slot = slotOf(sorted, count, row);
+            System.arraycopy(sorted, slot, sorted, slot + 1, count - slot);
+            sorted[slot] = row;
+            sortedCount[bucket] = count + 1;
+        }
+
+        private void removeSorted(int bucket, int row)
+        {
+            int[] sorted = sortedByPrice[bucket];
+            int count = sortedCount[bucket];
+
+            int slot = slotOf(sorted, count, row);
+            if (slot == count || sorted[slot] != row)
+                return;
+
+            System.arraycopy(sorted, slot + 1, sorted, slot, count - slot - 1);
+            sortedCount[bucket] = count - 1;
+        }
+
+        // index of the first of the count rows in sorted that does not come before row
+        private int slotOf(int[] sorted, int count, int row)
+        {
+            int low = 0;
+            int high = count;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (comesBefore(sorted[mid], row))
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        // price order, ties broken by row so the order is stable
+        private boolean comesBefore(int a, int b)
+        {
+            return priceCents[a] < priceCents[b] || (priceCents[a] == priceCents[b] && a < b);
+        }
+
+        // Sorts every bucket's price column from scratch; only the bulk load needs this
+        private void sortPriceColumns()
+        {
+            for (int bucket = 0; bucket < byPriceBucket.length; bucket++)
+            {
+                // the bitmap hands the rows over in row order, so a stable sort on price alone is enough
+                int[] sorted = byPriceBucket[bucket].toArray();
+                mergeSortByPrice(sorted, new int[sorted.length], 0, sorted.length);
+                sortedByPrice[bucket] = sorted;
+                sortedCount[bucket] = sorted.length;
+            }
+        }
+
+        // Plain top-down merge sort on primitives; stable, and no boxing
+        private void mergeSortByPrice(int[] rows, int[] scratch, int from, int to)
+        {
+            if (to - from < 2)
+                return;
+
+            int middle = (from + to) >>> 1;
+            mergeSortByPrice(rows, scratch, from, middle);
+            mergeSortByPrice(rows, scratch, middle, to);
+            if (priceCents[rows[middle - 1]] <= priceCents[rows[middle]])
+                return;
+
+            System.arraycopy(rows, from, scratch, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++)
+            {
+                if (right == to || (left < middle && priceCents[scratch[left]] <= priceCents[scratch[right]]))
+                    rows[i] = scratch[left++];
+                else
+                    rows[i] = scratch[right++];
+            }
+        }
+
+        private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int row)
+        {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap == null)
+                return;
+
+            bitmap.remove(row);
+            // an option with no products left disappears from the facets
+            if (bitmap.isEmpty())
+                bitmaps.remove(key);
+        }
+
+        private List<RoaringBitmap> allBitmaps()
+        {
+            List<RoaringBitmap> bitmaps = new ArrayList<>();
+            bitmaps.add(live);
+            bitmaps.add(featured);
+            bitmaps.addAll(byCategory.values());
+            bitmaps.addAll(bySubCategory.values());
+            bitmaps.addAll(Arrays.asList(byPriceBucket));
+            return bitmaps;
+        }
+
+        private int bucketOf(long cents)
+        {
+            int bucket = 0;
+            while (bucket < priceEdges.length && cents >= priceEdges[bucket])
+                bucket++;
+            return bucket;
+        }
+    }
+}
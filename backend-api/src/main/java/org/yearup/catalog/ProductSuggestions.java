@@ -0,0 +1,121 @@
+package org.yearup.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.OrderDao;
+import org.yearup.models.Product;
+import org.yearup.models.Suggestion;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autocomplete for the search box (GET /products/suggest).
+ *
+ * Suggestions are product names and subcategories, ranked by units sold
+ * (a subcategory scores the units of all its products). They are served
+ * from an immutable SuggestionTrie; a background job builds a new one when
+ * the ProductIndex version moved (a write here, or one followed from another
+ * instance), or when popularity is older than popularity-refresh-ms, and
+ * swaps it in with one volatile write. Until the first build finishes,
+ * suggest() returns nothing.
+ */
+@Component
+public class ProductSuggestions
+{
+    private final Logger log = LoggerFactory.getLogger(ProductSuggestions.class);
+
+    private final ProductIndex productIndex;
+    private final OrderDao orderDao;
+    private final int topK;
+    private final int maxDepth;
+    private final long popularityRefreshMillis;
+
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+    // the ProductIndex version the trie was built from; -1 until the first build
+    private volatile long builtFromVersion = -1;
+    private volatile long builtAt;
+
+    public ProductSuggestions(ProductIndex productIndex,
+                              OrderDao orderDao,
+                              @Value("${catalog.suggest.top-k:10}") int topK,
+                              @Value("${catalog.suggest.max-prefix-length:24}") int maxDepth,
+                              @Value("${catalog.suggest.popularity-refresh-ms:3600000}") long popularityRefreshMillis)
+    {
+        this.productIndex = productIndex;
+        this.orderDao = orderDao;
+        this.topK = topK;
+        this.maxDepth = maxDepth;
+        this.popularityRefreshMillis = popularityRefreshMillis;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit)
+    {
+        return trie.lookup(prefix, Math.min(limit, topK));
+    }
+
+    public int getMaxResults()
+    {
+        return topK;
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.suggest.check-interval-ms:5000}")
+    public void rebuildIfNeeded()
+    {
+        try
+        {
+            boolean popularityStale = System.currentTimeMillis() - builtAt > popularityRefreshMillis;
+            if (productIndex.getVersion() == builtFromVersion && !popularityStale)
+                return;
+
+            rebuild();
+        }
+        catch (Exception e)
+        {
+            log.error("Could not rebuild product suggestions; keeping the previous ones.", e);
+        }
+    }
+
+    public void rebuild()
+    {
+        long started = System.nanoTime();
+
+        // read before the products: a change that lands while we build triggers another build
+        long version = productIndex.getVersion();
+        List<Product> products = productIndex.search(null, null, null, null);
+        Map<Integer, Integer> unitsSold = orderDao.getUnitsSoldByProduct();
+
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(topK, maxDepth);
+        Map<String, Long> subCategoryUnits = new HashMap<>();
+        Map<String, String> subCategoryText = new HashMap<>();
+
+        for (Product product : products)
+        {
+            long units = unitsSold.getOrDefault(product.getProductId(), 0);
+            builder.add(new Suggestion(product.getName(), Suggestion.PRODUCT, product.getProductId()), units);
+
+            if (product.getSubCategory() != null && !product.getSubCategory().isBlank())
+            {
+                // "Red" and "red " are one suggestion
+                String key = SuggestionTrie.normalize(product.getSubCategory());
+                subCategoryUnits.merge(key, units, Long::sum);
+                subCategoryText.putIfAbsent(key, product.getSubCategory().trim());
+            }
+        }
+
+        for (Map.Entry<String, Long> entry : subCategoryUnits.entrySet())
+            builder.add(new Suggestion(subCategoryText.get(entry.getKey()), Suggestion.SUB_CATEGORY, null), entry.getValue());
+
+        SuggestionTrie next = builder.build();
+        trie = next;
+        builtFromVersion = version;
+        builtAt = System.currentTimeMillis();
+
+        log.info("Product suggestions rebuilt: {} suggestion(s), {} node(s) in {} ms.",
+                 next.size(), next.nodeCount(), (System.nanoTime() - started) / 1_000_000);
+    }
+}
@@ -0,0 +1,156 @@
+package org.yearup.catalog;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.yearup.data.OrderDao;
+import org.yearup.data.OrderPlacedEvent;
+import org.yearup.models.OrderLineItem;
+import org.yearup.models.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * "Frequently bought together" (GET /products/{id}/related).
+ *
+ * Backed by a CoOccurrenceMatrix that is rebuilt from order_line_items at
+ * startup and then updated with every OrderPlacedEvent, so the line items
+ * table is read once, not per request.
+ *
+ * Orders placed while a rebuild is streaming are held back and applied
+ * afterwards, unless the rebuild already read them.
+ */
+@Component
+public class RelatedProducts
+{
+    private final Logger log = LoggerFactory.getLogger(RelatedProducts.class);
+
+    private final OrderDao orderDao;
+    private final ProductIndex productIndex;
+    private final int topN;
+
+    private volatile CoOccurrenceMatrix matrix;
+
+    // guarded by this
+    private boolean rebuilding;
+    private final List<int[]> pendingOrders = new ArrayList<>();
+    private final List<Integer> pendingOrderIds = new ArrayList<>();
+
+    public RelatedProducts(OrderDao orderDao,
+                           ProductIndex productIndex,
+                           @Value("${catalog.related.top-n:10}") int topN)
+    {
+        this.orderDao = orderDao;
+        this.productIndex = productIndex;
+        this.topN = topN;
+        this.matrix = new CoOccurrenceMatrix(topN);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup()
+    {
+        try
+        {
+            rebuild();
+        }
+        catch (Exception e)
+        {
+            log.error("Could not build related products; recommendations start empty.", e);
+        }
+    }
+
+    public void rebuild()
+    {
+        synchronized (this)
+        {
+            rebuilding = true;
+            pendingOrders.clear();
+            pendingOrderIds.clear();
+        }
+
+        CoOccurrenceMatrix next = new CoOccurrenceMatrix(topN);
+        RoaringBitmap scanned = new RoaringBitmap();
+        boolean succeeded = false;
+
+        try
+        {
+            long started = System.nanoTime();
+            orderDao.forEachOrderProducts((orderId, productIds) -> {
+                next.addOrder(productIds);
+                scanned.add(orderId);
+            });
+            succeeded = true;
+
+            log.info("Related products built from {} order(s) in {} ms.",
+                     scanned.getCardinality(), (System.nanoTime() - started) / 1_000_000);
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                // a failed rebuild keeps the old matrix, which still needs these orders
+                CoOccurrenceMatrix target = succeeded ? next : matrix;
+                for (int i = 0; i < pendingOrders.size(); i++)
+                {
+                    if (!succeeded || !scanned.contains(pendingOrderIds.get(i)))
+                        target.addOrder(pendingOrders.get(i));
+                }
+
+                matrix = target;
+                rebuilding = false;
+                pendingOrders.clear();
+                pendingOrderIds.clear();
+            }
+        }
+    }
+
+    @EventListener
+    public void onOrderPlaced(OrderPlacedEvent event)
+    {
+        List<OrderLineItem> items = event.getOrder().getItems();
+        int[] productIds = new int[items.size()];
+        for (int i = 0; i < productIds.length; i++)
+            productIds[i] = items.get(i).getProductId();
+
+        synchronized (this)
+        {
+            if (rebuilding)
+            {
+                pendingOrders.add(productIds);
+                pendingOrderIds.add(event.getOrder().getOrderId());
+            }
+            else
+            {
+                matrix.addOrder(productIds);
+            }
+        }
+    }
+
+    /**
+     * Up to limit products most often bought with productId, best first.
+     * Products deleted since they were ordered are skipped.
+     */
+    public List<Product> related(int productId, int limit)
+    {
+        CoOccurrenceMatrix.TopN top = matrix.top(productId);
+
+        List<Product> products = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && products.size() < limit; i++)
+        {
+            Product product = productIndex.getById(top.productId(i));
+            if (product != null)
+                products.add(product);
+        }
+        return products;
+    }
+
+    public int getMaxResults()
+    {
+        return topN;
+    }
+}
@@ -0,0 +1,233 @@
+package org.yearup.catalog;
+
+import org.yearup.models.Suggestion;
+
+import java.util.*;
+
+/**
+ * Immutable prefix trie for autocomplete.
+ *
+ * Every node stores its best topK suggestions (highest score first), so a
+ * lookup is one walk down the typed prefix and a copy of that node's list;
+ * nothing below the node is visited. Each suggestion is reachable from the
+ * start of every word in its text ("blue" finds "Navy Blue Jacket").
+ *
+ * The tree is flattened into arrays in breadth-first order, which puts the
+ * children of a node next to each other, sorted by character.
+ */
+public final class SuggestionTrie
+{
+    public static final SuggestionTrie EMPTY = new Builder(1, 1).build();
+
+    private final Suggestion[] suggestions;
+    private final int maxDepth;
+
+    // per node, indexed by node number (0 = root)
+    private final char[] label;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[][] top;
+
+    private SuggestionTrie(Suggestion[] suggestions, int maxDepth, char[] label, int[] firstChild, int[] childCount, int[][] top)
+    {
+        this.suggestions = suggestions;
+        this.maxDepth = maxDepth;
+        this.label = label;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.top = top;
+    }
+
+    /**
+     * Best suggestions for what the user has typed so far, highest score first.
+     */
+    public List<Suggestion> lookup(String prefix, int limit)
+    {
+        String key = normalize(prefix);
+        if (key.isEmpty())
+            return new ArrayList<>();
+
+        int node = 0;
+        for (int i = 0; i < key.length() && i < maxDepth; i++)
+        {
+            node = child(node, key.charAt(i));
+            if (node < 0)
+                return new ArrayList<>();
+        }
+
+        // past maxDepth the node only knows the first maxDepth characters matched
+        boolean checkRest = key.length() > maxDepth;
+
+        int[] best = top[node];
+        List<Suggestion> results = new ArrayList<>(Math.min(limit, best.length));
+        for (int i = 0; i < best.length && results.size() < limit; i++)
+        {
+            Suggestion suggestion = suggestions[best[i]];
+            if (checkRest && !hasWordStartingWith(normalize(suggestion.getText()), key))
+                continue;
+            results.add(new Suggestion(suggestion.getText(), suggestion.getType(), suggestion.getProductId()));
+        }
+        return results;
+    }
+
+    public int size()
+    {
+        return suggestions.length;
+    }
+
+    public int nodeCount()
+    {
+        return label.length;
+    }
+
+    private static boolean hasWordStartingWith(String text, String key)
+    {
+        return text.startsWith(key) || text.contains(" " + key);
+    }
+
+    // binary search among the node's (sorted, contiguous) children
+    private int child(int node, char c)
+    {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (label[mid] < c)
+                low = mid + 1;
+            else if (label[mid] > c)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    // lower case, single spaces, no leading/trailing whitespace
+    static String normalize(String text)
+    {
+        if (text == null)
+            return "";
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public static final class Builder
+    {
+        private final int topK;
+        private final int maxDepth;
+        private final List<Suggestion> suggestions = new ArrayList<>();
+        private final List<Long> scores = new ArrayList<>();
+
+        /**
+         * @param topK     suggestions kept per prefix
+         * @param maxDepth longest prefix indexed; longer input is checked against the text of those candidates
+         */
+        public Builder(int topK, int maxDepth)
+        {
+            this.topK = topK;
+            this.maxDepth = maxDepth;
+        }
+
+        public Builder add(Suggestion suggestion, long score)
+        {
+            if (!normalize(suggestion.getText()).isEmpty())
+            {
+                suggestions.add(suggestion);
+                scores.add(score);
+            }
+            return this;
+        }
+
+        public SuggestionTrie build()
+        {
+            // best first: once a node holds topK, everything arriving later ranks below them
+            Integer[] order = new Integer[suggestions.size()];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -scores.get(i))
+                                         .thenComparingInt(i -> suggestions.get(i).getText().length())
+                                         .thenComparing(i -> suggestions.get(i).getText()));
+
+            Suggestion[] ranked = new Suggestion[order.length];
+            Node root = new Node('\0');
+            for (int rank = 0; rank < order.length; rank++)
+            {
+                ranked[rank] = suggestions.get(order[rank]);
+                insert(root, rank, normalize(ranked[rank].getText()));
+            }
+
+            return freeze(root, ranked);
+        }
+
+        private void insert(Node root, int rank, String text)
+        {
+            for (int start = 0; start < text.length(); start++)
+            {
+                // only from the start of a word
+                if (start > 0 && text.charAt(start - 1) != ' ')
+                    continue;
+
+                Node node = root;
+                int end = Math.min(text.length(), start + maxDepth);
+                for (int i = start; i < end; i++)
+                {
+                    node = node.children.computeIfAbsent(text.charAt(i), Node::new);
+                    node.offer(rank, topK);
+                }
+            }
+        }
+
+        private SuggestionTrie freeze(Node root, Suggestion[] ranked)
+        {
+            List<Node> nodes = new ArrayList<>();
+            nodes.add(root);
+            // breadth first: a node's children get consecutive numbers
+            for (int i = 0; i < nodes.size(); i++)
+                nodes.addAll(nodes.get(i).children.values());
+
+            int count = nodes.size();
+            char[] label = new char[count];
+            int[] firstChild = new int[count];
+            int[] childCount = new int[count];
+            int[][] top = new int[count][];
+
+            int next = 1;
+            for (int i = 0; i < count; i++)
+            {
+                Node node = nodes.get(i);
+                label[i] = node.label;
+                firstChild[i] = next;
+                childCount[i] = node.children.size();
+                top[i] = Arrays.copyOf(node.top, node.topSize);
+                next += node.children.size();
+            }
+
+            return new SuggestionTrie(ranked, maxDepth, label, firstChild, childCount, top);
+        }
+    }
+
+    // build-time only
+    private static final class Node
+    {
+        private final char label;
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private int[] top = new int[0];
+        private int topSize;
+
+        private Node(char label)
+        {
+            this.label = label;
+        }
+
+        private void offer(int rank, int topK)
+        {
+            // ranks arrive in increasing order, so a repeat can only be the last one added
+            if (topSize == topK || (topSize > 0 && top[topSize - 1] == rank))
+                return;
+
+            if (topSize == top.length)
+                top = Arrays.copyOf(top, Math.min(topK, Math.max(2, top.length * 2)));
+            top[topSize++] = rank;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.yearup.configurations;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the same payloads, picked by the Accept / Content-Type
+ * header like JSON is:
+ *
+ *   application/x-jackson-smile   Jackson Smile
+ *   application/cbor              CBOR (RFC 8949)
+ *
+ * Both mappers come from Boot's Jackson2ObjectMapperBuilder, so modules and
+ * spring.jackson.* settings are the same as for JSON. JSON stays first in
+ * line, so browsers and wildcard Accept headers keep getting JSON.
+ */
+@Configuration
+public class BinaryFormatsConfig
+{
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder)
+    {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
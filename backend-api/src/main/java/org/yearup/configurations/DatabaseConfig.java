@@ -23,7 +23,9 @@ public class DatabaseConfig
     @Autowired
     public DatabaseConfig(@Value("${datasource.url}") String url,
                           @Value("${datasource.username}") String username,
-                          @Value("${datasource.password}") String password)
+                          @Value("${datasource.password}") String password,
+                          @Value("${datasource.max-total:8}") int maxTotal,
+                          @Value("${datasource.max-wait-ms:-1}") long maxWaitMillis)
     {
         this.url = url;
         this.username = username;
@@ -32,6 +34,12 @@ public class DatabaseConfig
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+
+        // Callers beyond maxTotal queue inside the pool and give up after
+        // maxWaitMillis instead of piling up behind a slow database.
+        basicDataSource.setMaxTotal(maxTotal);
+        basicDataSource.setMaxIdle(maxTotal);
+        basicDataSource.setMaxWaitMillis(maxWaitMillis);
     }
 
 }
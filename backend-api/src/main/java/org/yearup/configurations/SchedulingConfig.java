@@ -0,0 +1,13 @@
+package org.yearup.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled so the background jobs in org.yearup.jobs run.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig
+{
+}
@@ -2,6 +2,7 @@ package org.yearup.controllers;
 
 import javax.validation.Valid;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,7 +16,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import org.yearup.models.Profile;
-import org.yearup.data.ProfileDao;
 import org.yearup.data.UserDao;
 import org.yearup.models.authentication.LoginDto;
 import org.yearup.models.authentication.LoginResponseDto;
@@ -37,23 +37,18 @@ public class AuthenticationController
     // Spring Security object that verifies username + password
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
 
-    // Used to read/write users from database
+    // Used to read/write users (and their blank profile) from database
     private final UserDao userDao;
 
-    // Used to create a blank profile when a user registers
-    private final ProfileDao profileDao;
-
     // Constructor injection
     public AuthenticationController(
             TokenProvider tokenProvider,
             AuthenticationManagerBuilder authenticationManagerBuilder,
-            UserDao userDao,
-            ProfileDao profileDao)
+            UserDao userDao)
     {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
         this.userDao = userDao;
-        this.profileDao = profileDao;
     }
 
     // ===========================
@@ -141,35 +136,30 @@ public class AuthenticationController
     {
         try
         {
-            // Check if username already exists
-            boolean exists = userDao.exists(newUser.getUsername());
-            if (exists)
-            {
-                throw new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST,
-                        "User Already Exists."
-                );
-            }
-
-            // Create new user in users table
-            User user = userDao.create(
+            // Create the user AND a blank profile row in one transaction
+            // The blank profile avoids 404 when /profile is requested
+            // The unique index on username rejects duplicates (no separate exists() check)
+            User user = userDao.createWithProfile(
                     new User(
                             0,
                             newUser.getUsername(),
                             newUser.getPassword(),
                             newUser.getRole()
-                    )
+                    ),
+                    new Profile()
             );
 
-            // Create a blank profile row
-            // This avoids 404 when /profile is requested
-            Profile profile = new Profile();
-            profile.setUserId(user.getId());
-            profileDao.create(profile);
-
             // Return created user
             return new ResponseEntity<>(user, HttpStatus.CREATED);
         }
+        catch (DuplicateKeyException ex)
+        {
+            // Username already taken
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "User Already Exists."
+            );
+        }
         catch (ResponseStatusException ex)
         {
             throw ex;
@@ -0,0 +1,78 @@
+package org.yearup.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.bootstrap.BootstrapLoader;
+import org.yearup.data.UserDao;
+import org.yearup.models.Bootstrap;
+import org.yearup.models.User;
+
+import java.math.BigDecimal;
+import java.security.Principal;
+
+/**
+ * GET /bootstrap: the storefront's first page load in ONE request.
+ * Categories, products (same filters as GET /products) and, when logged in,
+ * the cart and profile. Parts that are slow come back null and are listed
+ * in "incomplete" instead of holding up the rest.
+ */
+@RestController
+@RequestMapping("/bootstrap")
+@CrossOrigin
+public class BootstrapController
+{
+    // Runs the DAO calls side by side
+    private final BootstrapLoader bootstrapLoader;
+
+    // DAO for user lookups
+    private final UserDao userDao;
+
+    public BootstrapController(BootstrapLoader bootstrapLoader, UserDao userDao)
+    {
+        this.bootstrapLoader = bootstrapLoader;
+        this.userDao = userDao;
+    }
+
+    // GET /bootstrap?cat=&minPrice=&maxPrice=&subCategory=
+    // Open to everyone; the cart and profile are only added for a valid JWT
+    @GetMapping
+    @PreAuthorize("permitAll()")
+    public Bootstrap bootstrap(
+            @RequestParam(name = "cat", required = false) Integer categoryId,
+            @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(name = "subCategory", required = false) String subCategory,
+            Principal principal
+    )
+    {
+        try
+        {
+            // Principal is null for anonymous visitors
+            User user = null;
+            if (principal != null)
+            {
+                // The user is looked up once here, not once per part
+                user = userDao.getByUserName(principal.getName());
+
+                // If user doesn't exist, block access (same as GET /cart)
+                if (user == null)
+                    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+            }
+
+            return bootstrapLoader.load(user, categoryId, minPrice, maxPrice, subCategory);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+}
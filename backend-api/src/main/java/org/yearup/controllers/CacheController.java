@@ -0,0 +1,41 @@
+package org.yearup.controllers;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.models.CacheStats;
+import org.yearup.models.SingleFlightStats;
+
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/admin/caches")
+
+// Cache internals are for admins only
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class CacheController
+{
+    private final CacheRegistry cacheRegistry;
+
+    public CacheController(CacheRegistry cacheRegistry)
+    {
+        this.cacheRegistry = cacheRegistry;
+    }
+
+    // GET /admin/caches
+    // Hit / miss / eviction counters for every in-process cache
+    @GetMapping
+    public List<CacheStats> getStats()
+    {
+        return cacheRegistry.stats();
+    }
+
+    // GET /admin/caches/single-flight
+    // Executed vs coalesced counters for the DAO reads that share in-flight calls
+    @GetMapping("/single-flight")
+    public List<SingleFlightStats> getSingleFlightStats()
+    {
+        return cacheRegistry.singleFlightStats();
+    }
+}
@@ -0,0 +1,62 @@
+package org.yearup.controllers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.CatalogChangeDao;
+import org.yearup.models.CatalogChanges;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/catalog")
+public class CatalogController
+{
+    private final CatalogChangeDao catalogChangeDao;
+    private final int maxPageSize;
+    private final int settleSeconds;
+
+    public CatalogController(CatalogChangeDao catalogChangeDao,
+                             @Value("${catalog.changes.max-page-size:1000}") int maxPageSize,
+                             @Value("${catalog.changes.settle-seconds:2}") int settleSeconds)
+    {
+        this.catalogChangeDao = catalogChangeDao;
+        this.maxPageSize = maxPageSize;
+        this.settleSeconds = settleSeconds;
+    }
+
+    // GET /catalog/changes?since=1234&limit=500
+    // Products and categories added, updated or deleted after version "since",
+    // for clients that keep their own copy of the catalog. since=0 is a full sync;
+    // after that, pass back the version from the previous answer
+    @GetMapping("/changes")
+    @PreAuthorize("permitAll()")
+    public CatalogChanges getChanges(
+            @RequestParam(name = "since", defaultValue = "0") long since,
+            @RequestParam(name = "limit", required = false) Integer limit
+    )
+    {
+        try
+        {
+            if (since < 0)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "since must be 0 or a version from this feed");
+
+            if (limit != null && (limit < 1 || limit > maxPageSize))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxPageSize);
+
+            return catalogChangeDao.getChangesSince(since, limit == null ? maxPageSize : limit, settleSeconds);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+}
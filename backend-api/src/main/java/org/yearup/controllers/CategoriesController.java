@@ -6,12 +6,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.yearup.catalog.CatalogResponseCache;
 import org.yearup.data.CategoryDao;
 import org.yearup.data.ProductDao;
 import org.yearup.models.Category;
-import org.yearup.models.Product;
 
-import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 
 // add the annotations to make this a REST controller
 // add the annotation to make this controller the endpoint for the following url
@@ -24,22 +26,25 @@ public class CategoriesController
 {
     private CategoryDao categoryDao;
     private ProductDao productDao;
+    private CatalogResponseCache catalogResponses;
 
     // create an Autowired controller to inject the categoryDao and ProductDaowi
+    // (and the cache of already-serialized catalog responses)
     @Autowired
-    public CategoriesController(CategoryDao categoryDao, ProductDao productDao)
+    public CategoriesController(CategoryDao categoryDao, ProductDao productDao, CatalogResponseCache catalogResponses)
     {
         this.categoryDao = categoryDao;
         this.productDao = productDao;
+        this.catalogResponses = catalogResponses;
     }
 
     // add the appropriate annotation for a get action
     @GetMapping
     @PreAuthorize("permitAll()")
-    public List<Category> getAll()
+    public void getAll(HttpServletRequest request, HttpServletResponse response) throws IOException
     {
-        // find and return all categories
-        return categoryDao.getAllCategories();
+        // find and return all categories (serialized once per catalog version)
+        catalogResponses.write("categories", categoryDao::getAllCategories, request, response);
     }
 
     // add the appropriate annotation for a get action
@@ -60,10 +65,13 @@ public class CategoriesController
     // https://localhost:8080/categories/1/products
     @GetMapping("/{categoryId}/products")
     @PreAuthorize("permitAll()")
-    public List<Product> getProductsById(@PathVariable int categoryId)
+    public void getProductsById(@PathVariable int categoryId,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException
     {
-        // get a list of product by categoryId
-        return productDao.listByCategoryId(categoryId);
+        // get a list of product by categoryId (serialized once per catalog version)
+        String key = CatalogResponseCache.key("categories/products", categoryId, null, null, null);
+        catalogResponses.write(key, () -> productDao.listByCategoryId(categoryId), request, response);
     }
 
     // add annotation to call this method for a POST action
@@ -85,9 +93,8 @@ public class CategoriesController
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void updateCategory(@PathVariable int id, @RequestBody Category category)
     {
-        // update the category by id
-        Category existing = categoryDao.getById(id);
-        if (existing == null)
+        // update the category by id (existence is answered from the category cache)
+        if (!categoryDao.exists(id))
         {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
@@ -103,9 +110,8 @@ public class CategoriesController
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteCategory(@PathVariable int id)
     {
-        // delete the category by id
-        Category existing = categoryDao.getById(id);
-        if (existing == null)
+        // delete the category by id (existence is answered from the category cache)
+        if (!categoryDao.exists(id))
         {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
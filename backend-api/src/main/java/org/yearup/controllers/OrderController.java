@@ -1,15 +1,21 @@
 package org.yearup.controllers;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.OrderDao;
+import org.yearup.data.OrderSummaryDao;
 import org.yearup.data.UserDao;
 import org.yearup.models.Order;
+import org.yearup.models.OrderPage;
+import org.yearup.models.OrderSummary;
 import org.yearup.models.User;
 
 import java.security.Principal;
+import java.time.LocalDate;
+import java.util.List;
 
 @CrossOrigin
 @RestController
@@ -20,16 +26,23 @@ import java.security.Principal;
 @PreAuthorize("isAuthenticated()")
 public class OrderController
 {
-    // DAO used to create orders in the database
+    // Largest page of order history a client can ask for
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // DAO used to create and read orders in the database
     private final OrderDao orderDao;
 
+    // DAO used to read precomputed order totals
+    private final OrderSummaryDao orderSummaryDao;
+
     // DAO used to look up the logged-in user
     private final UserDao userDao;
 
     // Constructor injection (Spring injects these automatically)
-    public OrderController(OrderDao orderDao, UserDao userDao)
+    public OrderController(OrderDao orderDao, OrderSummaryDao orderSummaryDao, UserDao userDao)
     {
         this.orderDao = orderDao;
+        this.orderSummaryDao = orderSummaryDao;
         this.userDao = userDao;
     }
 
@@ -76,4 +89,145 @@ public class OrderController
             );
         }
     }
+
+    // GET /orders?limit=20&beforeDate=2024-01-31&beforeId=42
+    // Order history for the logged-in user, newest first.
+    // Pass nextBeforeDate / nextBeforeId from the previous page to get the next one.
+    @GetMapping
+    public OrderPage getOrders(
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "beforeDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate beforeDate,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            Principal principal)
+    {
+        try
+        {
+            User user = userDao.getByUserName(principal.getName());
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            // Keep page sizes sane
+            if (limit < 1 || limit > MAX_PAGE_SIZE)
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "limit must be between 1 and " + MAX_PAGE_SIZE
+                );
+
+            // Both halves of the cursor must be passed together
+            if ((beforeDate == null) != (beforeId == null))
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "beforeDate and beforeId must be used together"
+                );
+
+            return orderDao.getOrdersByUserId(user.getId(), beforeDate, beforeId, limit);
+        }
+        catch (ResponseStatusException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /orders/{id}
+    // A single order for the logged-in user (404 if it is not theirs)
+    @GetMapping("/{id}")
+    public Order getOrder(@PathVariable int id, Principal principal)
+    {
+        try
+        {
+            User user = userDao.getByUserName(principal.getName());
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            Order order = orderDao.getById(user.getId(), id);
+            if (order == null)
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+
+            return order;
+        }
+        catch (ResponseStatusException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /orders/summaries?limit=20&beforeId=42
+    // Totals for the logged-in user's orders, newest first (read from order_summaries)
+    @GetMapping("/summaries")
+    public List<OrderSummary> getOrderSummaries(
+            @RequestParam(name = "limit", defaultValue = "20") int limit,
+            @RequestParam(name = "beforeId", required = false) Integer beforeId,
+            Principal principal)
+    {
+        try
+        {
+            User user = userDao.getByUserName(principal.getName());
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            if (limit < 1 || limit > MAX_PAGE_SIZE)
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "limit must be between 1 and " + MAX_PAGE_SIZE
+                );
+
+            return orderSummaryDao.getByUserId(user.getId(), beforeId, limit);
+        }
+        catch (ResponseStatusException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /orders/{id}/summary
+    // Precomputed totals for one of the logged-in user's orders
+    @GetMapping("/{id}/summary")
+    public OrderSummary getOrderSummary(@PathVariable int id, Principal principal)
+    {
+        try
+        {
+            User user = userDao.getByUserName(principal.getName());
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            OrderSummary summary = orderSummaryDao.getByOrderId(user.getId(), id);
+            if (summary == null)
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+
+            return summary;
+        }
+        catch (ResponseStatusException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
 }
@@ -8,9 +8,17 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.yearup.catalog.CatalogResponseCache;
+import org.yearup.catalog.ProductIndex;
+import org.yearup.catalog.ProductSuggestions;
+import org.yearup.catalog.RelatedProducts;
 import org.yearup.data.ProductDao;
 import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+import org.yearup.models.Suggestion;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -20,20 +28,64 @@ import java.util.List;
 public class ProductsController
 {
     private final ProductDao productDao;
+    private final ProductIndex productIndex;
+    private final ProductSuggestions productSuggestions;
+    private final RelatedProducts relatedProducts;
+    private final CatalogResponseCache catalogResponses;
 
-    // Inject ProductDao
+    // Inject ProductDao, the in-memory index used for filter counts, autocomplete and recommendations,
+    // and the cache of already-serialized search results
     @Autowired
-    public ProductsController(ProductDao productDao)
+    public ProductsController(ProductDao productDao,
+                              ProductIndex productIndex,
+                              ProductSuggestions productSuggestions,
+                              RelatedProducts relatedProducts,
+                              CatalogResponseCache catalogResponses)
     {
         this.productDao = productDao;
+        this.productIndex = productIndex;
+        this.productSuggestions = productSuggestions;
+        this.relatedProducts = relatedProducts;
+        this.catalogResponses = catalogResponses;
     }
 
     // GET /products
     // Search products by optional filters:
     // cat, minPrice, maxPrice, subCategory
+    // The JSON (and its gzipped copy) is built once per filter combination
+    // and catalog version, then written out as-is (see CatalogResponseCache)
     @GetMapping
     @PreAuthorize("permitAll()")
-    public List<Product> search(
+    public void search(
+            @RequestParam(name = "cat", required = false) Integer categoryId,
+            @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(name = "subCategory", required = false) String subCategory,
+            HttpServletRequest request,
+            HttpServletResponse response
+    )
+    {
+        try
+        {
+            String key = CatalogResponseCache.key("products", categoryId, minPrice, maxPrice, subCategory);
+            catalogResponses.write(key, () -> productDao.search(categoryId, minPrice, maxPrice, subCategory),
+                                   request, response);
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /products/facets
+    // Same filters as search, but returns counts per category, subcategory
+    // and price bucket instead of the products themselves
+    @GetMapping("/facets")
+    @PreAuthorize("permitAll()")
+    public ProductFacets facets(
             @RequestParam(name = "cat", required = false) Integer categoryId,
             @RequestParam(name = "minPrice", required = false) BigDecimal minPrice,
             @RequestParam(name = "maxPrice", required = false) BigDecimal maxPrice,
@@ -42,7 +94,43 @@ public class ProductsController
     {
         try
         {
-            return productDao.search(categoryId, minPrice, maxPrice, subCategory);
+            return productIndex.facets(categoryId, minPrice, maxPrice, subCategory);
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /products/suggest?q=sma
+    // Autocomplete: product names and subcategories starting with q
+    // (at the start of any word), most popular first
+    @GetMapping("/suggest")
+    @PreAuthorize("permitAll()")
+    public List<Suggestion> suggest(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(name = "limit", required = false) Integer limit
+    )
+    {
+        try
+        {
+            int max = productSuggestions.getMaxResults();
+
+            if (limit != null && (limit < 1 || limit > max))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + max);
+
+            // Nothing typed yet = nothing to suggest
+            if (query == null || query.isBlank())
+                return List.of();
+
+            return productSuggestions.suggest(query, limit == null ? max : limit);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
         }
         catch (Exception ex)
         {
@@ -82,6 +170,40 @@ public class ProductsController
         }
     }
 
+    // GET /products/{id}/related
+    // "Frequently bought together": products that were most often
+    // in the same order as this one
+    @GetMapping("/{id}/related")
+    @PreAuthorize("permitAll()")
+    public List<Product> related(@PathVariable int id,
+                                 @RequestParam(name = "limit", required = false) Integer limit)
+    {
+        try
+        {
+            int max = relatedProducts.getMaxResults();
+
+            if (limit != null && (limit < 1 || limit > max))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + max);
+
+            // If product does not exist, return 404
+            if (productIndex.getById(id) == null)
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+
+            return relatedProducts.related(id, limit == null ? max : limit);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
     // POST /products
     // Admin only: add a new product
     @PostMapping
@@ -0,0 +1,157 @@
+package org.yearup.controllers;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.SalesRollupDao;
+import org.yearup.models.SalesTotals;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping("/admin/analytics")
+
+// Sales numbers are for admins only
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class SalesAnalyticsController
+{
+    // Hourly rows for more than this many days is more than a chart can show
+    private static final int MAX_HOURLY_DAYS = 31;
+    private static final int MAX_PRODUCTS = 100;
+
+    private final SalesRollupDao salesRollupDao;
+
+    public SalesAnalyticsController(SalesRollupDao salesRollupDao)
+    {
+        this.salesRollupDao = salesRollupDao;
+    }
+
+    // GET /admin/analytics/sales?grain=day&from=2026-10-01&to=2026-10-31
+    // Revenue per day (or per hour with grain=hour); from/to default to the last 30 days
+    @GetMapping("/sales")
+    public List<SalesTotals> getSales(
+            @RequestParam(name = "grain", defaultValue = "day") String grain,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+    {
+        try
+        {
+            LocalDate end = to == null ? LocalDate.now() : to;
+            LocalDate start = from == null ? end.minusDays(29) : from;
+            checkRange(start, end);
+
+            if (grain.equals("day"))
+                return salesRollupDao.getSalesByDay(start, end);
+
+            if (grain.equals("hour"))
+            {
+                if (ChronoUnit.DAYS.between(start, end) >= MAX_HOURLY_DAYS)
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Hourly sales cover at most " + MAX_HOURLY_DAYS + " days.");
+                return salesRollupDao.getSalesByHour(start, end);
+            }
+
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "grain must be day or hour");
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /admin/analytics/categories?from=...&to=...
+    // Revenue per category, best first
+    @GetMapping("/categories")
+    public List<SalesTotals> getSalesByCategory(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+    {
+        try
+        {
+            LocalDate end = to == null ? LocalDate.now() : to;
+            LocalDate start = from == null ? end.minusDays(29) : from;
+            checkRange(start, end);
+
+            return salesRollupDao.getSalesByCategory(start, end);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /admin/analytics/products?from=...&to=...&limit=20
+    // Best selling products by revenue
+    @GetMapping("/products")
+    public List<SalesTotals> getTopProducts(
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "limit", defaultValue = "20") int limit)
+    {
+        try
+        {
+            LocalDate end = to == null ? LocalDate.now() : to;
+            LocalDate start = from == null ? end.minusDays(29) : from;
+            checkRange(start, end);
+
+            if (limit < 1 || limit > MAX_PRODUCTS)
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PRODUCTS);
+
+            return salesRollupDao.getTopProducts(start, end, limit);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    // GET /admin/analytics/watermark
+    // Last order_id included in the numbers above
+    @GetMapping("/watermark")
+    public int getHighWaterMark()
+    {
+        try
+        {
+            return salesRollupDao.getHighWaterMark();
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to)
+    {
+        if (from.isAfter(to))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+    }
+}
@@ -1,33 +1,47 @@
 package org.yearup.controllers;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.yearup.data.ProductDao;
 import org.yearup.data.ShoppingCartDao;
 import org.yearup.data.UserDao;
+import org.yearup.models.CartItemDelta;
+import org.yearup.models.CartQuantityUpdate;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
 import org.yearup.models.User;
+import org.yearup.streaming.CartStreamBroadcaster;
 
 import java.security.Principal;
+import java.util.List;
 
 /**
  * This controller handles ALL shopping cart operations:
  * - Viewing the cart
  * - Adding products to the cart
- * - Updating quantities
+ * - Updating quantities (one at a time or in a batch)
  * - Clearing the cart
+ * - Streaming cart and stock changes (Server-Sent Events)
  *
  * All endpoints require the user to be logged in.
  */
 @RestController
 @RequestMapping("/cart")        // Base URL: /cart
-@CrossOrigin                   // Allows frontend (browser) to call this API
+@CrossOrigin(exposedHeaders = "Preference-Applied")   // Allows frontend (browser) to call this API, and read that header
 @PreAuthorize("isAuthenticated()") // Every endpoint requires a valid JWT token
 public class ShoppingCartController
 {
+    // RFC 7240 preference that asks for the small response
+    private static final String RETURN_MINIMAL = "return=minimal";
+
+    // Most lines a single PATCH /cart may change
+    private static final int MAX_BATCH_SIZE = 100;
+
     // DAO for cart database operations
     private final ShoppingCartDao shoppingCartDao;
 
@@ -37,15 +51,20 @@ public class ShoppingCartController
     // DAO for product validation
     private final ProductDao productDao;
 
+    // Open GET /cart/stream connections
+    private final CartStreamBroadcaster cartStreamBroadcaster;
+
     // Constructor injection (Spring provides these automatically)
     public ShoppingCartController(
             ShoppingCartDao shoppingCartDao,
             UserDao userDao,
-            ProductDao productDao)
+            ProductDao productDao,
+            CartStreamBroadcaster cartStreamBroadcaster)
     {
         this.shoppingCartDao = shoppingCartDao;
         this.userDao = userDao;
         this.productDao = productDao;
+        this.cartStreamBroadcaster = cartStreamBroadcaster;
     }
 
     /**
@@ -86,16 +105,59 @@ public class ShoppingCartController
         }
     }
 
+    /**
+     * GET /cart/stream
+     * Server-Sent Events for the logged-in user: "cart" with the whole cart,
+     * right away and after every change (from any tab or device), and "stock"
+     * when a product in the cart changes stock. Replaces polling GET /cart.
+     *
+     * The request thread is released as soon as the stream is open.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCart(Principal principal)
+    {
+        try
+        {
+            // Look up the user behind the JWT token
+            User user = userDao.getByUserName(principal.getName());
+
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            SseEmitter stream = cartStreamBroadcaster.subscribe(user.getId());
+
+            // Every stream slot is taken: the client should retry later
+            if (stream == null)
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open cart streams");
+
+            return stream;
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
     /**
      * POST /cart/products/{productId}
      * Adds ONE unit of a product to the cart.
      * If the product already exists in the cart,
      * the DAO will INCREMENT the quantity.
+     *
+     * Send "Prefer: return=minimal" to get only the changed line back
+     * ({ productId, quantity }) instead of the whole cart.
      */
     @PostMapping("/products/{productId}")
-    @ResponseStatus(HttpStatus.CREATED)
-    public ShoppingCart addProductToCart(
+    public ResponseEntity<Object> addProductToCart(
             @PathVariable int productId,
+            @RequestHeader(name = "Prefer", required = false) String prefer,
             Principal principal)
     {
         try
@@ -112,11 +174,20 @@ public class ShoppingCartController
             if (productDao.getById(productId) == null)
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND);
 
-            // Add product to cart (or increase quantity)
-            shoppingCartDao.addProductToCart(user.getId(), productId);
+            // Add product to cart (or increase quantity); the DAO hands back the new quantity
+            int quantity = shoppingCartDao.addProductToCart(user.getId(), productId);
+
+            // Minimal response: no cart reload at all
+            if (prefersMinimal(prefer))
+            {
+                return ResponseEntity.status(HttpStatus.CREATED)
+                                     .header("Preference-Applied", RETURN_MINIMAL)
+                                     .body(new CartItemDelta(productId, quantity));
+            }
 
             // Return updated cart so UI/tests can see changes immediately
-            return shoppingCartDao.getByUserId(user.getId());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                                 .body(shoppingCartDao.getByUserId(user.getId()));
         }
         catch (ResponseStatusException ex)
         {
@@ -180,6 +251,58 @@ public class ShoppingCartController
         }
     }
 
+    /**
+     * PATCH /cart
+     * Changes several quantities at once, e.g.
+     * [ { "productId": 1, "quantity": 3 }, { "productId": 7, "quantity": 0 } ]
+     * quantity = 0 → item is removed from cart
+     * All changes are applied in one transaction and the updated cart is returned.
+     */
+    @PatchMapping
+    public ShoppingCart updateCartItems(
+            @RequestBody List<CartQuantityUpdate> updates,
+            Principal principal)
+    {
+        try
+        {
+            // Get logged-in user
+            String userName = principal.getName();
+            User user = userDao.getByUserName(userName);
+
+            if (user == null)
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+
+            // Validate the batch before touching the database
+            if (updates == null || updates.isEmpty() || updates.size() > MAX_BATCH_SIZE)
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST,
+                        "Send between 1 and " + MAX_BATCH_SIZE + " updates"
+                );
+
+            for (CartQuantityUpdate update : updates)
+            {
+                if (update.getQuantity() < 0)
+                    throw new ResponseStatusException(
+                            HttpStatus.BAD_REQUEST,
+                            "Quantity must be >= 0"
+                    );
+            }
+
+            return shoppingCartDao.updateProductQuantities(user.getId(), updates);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+
     /**
      * DELETE /cart
      * Removes ALL items from the user's cart.
@@ -201,7 +324,8 @@ public class ShoppingCartController
             shoppingCartDao.clearCart(user.getId());
 
             // Return empty cart (important for tests/UI)
-            return shoppingCartDao.getByUserId(user.getId());
+            // Nothing to read back: a cleared cart is always empty
+            return new ShoppingCart();
         }
         catch (ResponseStatusException ex)
         {
@@ -215,4 +339,23 @@ public class ShoppingCartController
             );
         }
     }
+
+    /**
+     * True if the Prefer header holds return=minimal among its preferences.
+     * RFC 7240: preferences are comma-separated, each may carry ";" parameters,
+     * and the value may be quoted, e.g. "return=minimal; foo, respond-async".
+     */
+    private static boolean prefersMinimal(String prefer)
+    {
+        if (prefer == null)
+            return false;
+
+        for (String preference : prefer.split(","))
+        {
+            String token = preference.split(";", 2)[0].replaceAll("\\s", "").replace("\"", "");
+            if (RETURN_MINIMAL.equalsIgnoreCase(token))
+                return true;
+        }
+        return false;
+    }
 }
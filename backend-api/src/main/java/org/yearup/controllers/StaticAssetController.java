@@ -0,0 +1,62 @@
+package org.yearup.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UrlPathHelper;
+import org.yearup.assets.StaticAssets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The storefront itself (frontend-ui), served from the API's port so the
+ * pages, their images and the API share one origin. See StaticAssets.
+ */
+@Controller
+public class StaticAssetController
+{
+    // Finds, caches and sends the files
+    private final StaticAssets staticAssets;
+
+    // Gives the path URL-decoded ("/images/products/coffee%20maker.jpg" -> "coffee maker.jpg")
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public StaticAssetController(StaticAssets staticAssets)
+    {
+        this.staticAssets = staticAssets;
+    }
+
+    // GET / and the frontend-ui folders (HEAD is answered by the same method)
+    // Open to everyone; ?v=<content hash> makes the response cacheable forever
+    @GetMapping({ "/", "/index.html", "/css/**", "/js/**", "/images/**", "/templates/**" })
+    @PreAuthorize("permitAll()")
+    public void getAsset(HttpServletRequest request, HttpServletResponse response)
+    {
+        try
+        {
+            String path = urlPathHelper.getPathWithinApplication(request);
+
+            // The site's root is its index page
+            if (path.equals("/"))
+                path = "/index.html";
+
+            // No such file (or a path outside frontend-ui) -> 404
+            if (!staticAssets.serve(path, request, response))
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+}
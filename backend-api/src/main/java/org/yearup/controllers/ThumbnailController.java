@@ -0,0 +1,71 @@
+package org.yearup.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.assets.Thumbnails;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Product images resized for the grid and the cart, e.g.
+ * /images/products/camera.jpg?w=160 (Product.thumbnailUrl, see Thumbnails.gridUrl).
+ * Without ?w= the same URL is the original (StaticAssetController).
+ */
+@Controller
+public class ThumbnailController
+{
+    // Makes, stores and sends the resized copies
+    private final Thumbnails thumbnails;
+
+    public ThumbnailController(Thumbnails thumbnails)
+    {
+        this.thumbnails = thumbnails;
+    }
+
+    // GET /images/products/{name}?w=160&q=75
+    // Open to everyone; q is optional, ?v=<source hash> makes it cacheable forever
+    @GetMapping(value = "/images/products/{name}", params = "w")
+    @PreAuthorize("permitAll()")
+    public void getThumbnail(
+            @PathVariable String name,
+            @RequestParam(name = "w") int width,
+            @RequestParam(name = "q", required = false) Integer quality,
+            HttpServletRequest request,
+            HttpServletResponse response
+    )
+    {
+        try
+        {
+            // Only the configured sizes are made, anything else -> 400
+            if (!thumbnails.isAllowed(width, quality))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported thumbnail size or quality.");
+
+            // No such image (or not an image) -> 404
+            if (!thumbnails.serve("/images/products/" + name, width, quality, request, response))
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        catch (ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // Every resize worker is busy and the queue is full
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many thumbnails in the works, try again.");
+        }
+        catch (Exception ex)
+        {
+            throw new ResponseStatusException(
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Oops... our bad."
+            );
+        }
+    }
+}
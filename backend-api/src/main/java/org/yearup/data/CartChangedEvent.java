@@ -0,0 +1,20 @@
+package org.yearup.data;
+
+/**
+ * Published after a user's cart is written (add, quantity change, clear),
+ * so open cart streams can push the new cart.
+ */
+public class CartChangedEvent
+{
+    private final int userId;
+
+    public CartChangedEvent(int userId)
+    {
+        this.userId = userId;
+    }
+
+    public int getUserId()
+    {
+        return userId;
+    }
+}
@@ -0,0 +1,17 @@
+package org.yearup.data;
+
+import org.yearup.models.CatalogChanges;
+
+public interface CatalogChangeDao
+{
+    // Products and categories changed after version since (and at least settleSeconds ago),
+    // oldest first, at most limit change rows; upserts come with the current row
+    CatalogChanges getChangesSince(long since, int limit, int settleSeconds);
+
+    // The newest version at least settleSeconds old, i.e. one every lower change is committed behind
+    long getLatestVersion(int settleSeconds);
+
+    // Deletes change rows that a newer row for the same product/category supersedes.
+    // Returns how many rows it deleted.
+    int compact();
+}
@@ -8,6 +8,7 @@ public interface CategoryDao
 {
     List<Category> getAllCategories();
     Category getById(int categoryId);
+    boolean exists(int categoryId);
     Category create(Category category);
     void update(int categoryId, Category category);
     void delete(int categoryId);
@@ -1,9 +1,32 @@
 package org.yearup.data;
 
 import org.yearup.models.Order;
+import org.yearup.models.OrderPage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public interface OrderDao
 {
     // Creates an order for this user based on their current cart + profile
     Order createOrder(int userId);
+
+    // One page of the user's orders (newest first) with their line items.
+    // beforeDate / beforeId is the keyset cursor from the previous page (both null = first page)
+    OrderPage getOrdersByUserId(int userId, LocalDate beforeDate, Integer beforeId, int limit);
+
+    // A single order with its line items, only if it belongs to this user
+    Order getById(int userId, int orderId);
+
+    // Total units ever ordered, per product_id (products never ordered are absent)
+    Map<Integer, Integer> getUnitsSoldByProduct();
+
+    // Up to limit orders (with line items) after afterOrderId, in order_id order,
+    // skipping orders placed less than settleSeconds ago
+    List<Order> getOrdersAfter(int afterOrderId, int limit, int settleSeconds);
+
+    // Streams every order as (orderId, product ids of its line items), oldest first
+    void forEachOrderProducts(BiConsumer<Integer, int[]> consumer);
 }
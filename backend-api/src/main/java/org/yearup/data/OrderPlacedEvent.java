@@ -0,0 +1,21 @@
+package org.yearup.data;
+
+import org.yearup.models.Order;
+
+/**
+ * Published after a checkout has committed (order, line items and summary).
+ */
+public class OrderPlacedEvent
+{
+    private final Order order;
+
+    public OrderPlacedEvent(Order order)
+    {
+        this.order = order;
+    }
+
+    public Order getOrder()
+    {
+        return order;
+    }
+}
@@ -0,0 +1,22 @@
+package org.yearup.data;
+
+import org.yearup.models.OrderSummary;
+
+import java.util.List;
+
+public interface OrderSummaryDao
+{
+    // Precomputed totals for one order, only if it belongs to this user
+    OrderSummary getByOrderId(int userId, int orderId);
+
+    // Newest-first summaries for a user (keyset on order_id, beforeId null = first page)
+    List<OrderSummary> getByUserId(int userId, Integer beforeId, int limit);
+
+    // Writes summaries for up to batchSize orders after afterOrderId that don't have one yet.
+    // Returns the highest order_id examined, or -1 when there is nothing left to do.
+    int backfill(int afterOrderId, int batchSize);
+
+    // Re-derives a random sample of summaries from order_line_items and returns
+    // the freshly derived value for every stored summary that does not match
+    List<OrderSummary> verifySample(int sampleSize);
+}
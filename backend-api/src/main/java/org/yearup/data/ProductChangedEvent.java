@@ -0,0 +1,35 @@
+package org.yearup.data;
+
+import org.yearup.models.Product;
+
+/**
+ * Published after a product row is written, so in-memory views of the
+ * catalog can follow along without re-reading the whole table.
+ */
+public class ProductChangedEvent
+{
+    private final int productId;
+    // the row as it is now in MySQL; null when it was deleted
+    private final Product product;
+
+    public ProductChangedEvent(int productId, Product product)
+    {
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public Product getProduct()
+    {
+        return product;
+    }
+
+    public boolean isDeleted()
+    {
+        return product == null;
+    }
+}
@@ -0,0 +1,26 @@
+package org.yearup.data;
+
+import org.yearup.models.SalesTotals;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupDao
+{
+    // Adds up to batchSize orders past the high-water mark (and at least settleSeconds old)
+    // to the hourly and daily rollups. Returns how many orders it added (0 = caught up).
+    int rollUpNextBatch(int batchSize, int settleSeconds);
+
+    // Last order_id included in the rollups
+    int getHighWaterMark();
+
+    // Sales per hour / per day for the days from..to (inclusive), oldest first
+    List<SalesTotals> getSalesByHour(LocalDate from, LocalDate to);
+    List<SalesTotals> getSalesByDay(LocalDate from, LocalDate to);
+
+    // Sales per category, best selling first
+    List<SalesTotals> getSalesByCategory(LocalDate from, LocalDate to);
+
+    // The limit best selling products, by net sales
+    List<SalesTotals> getTopProducts(LocalDate from, LocalDate to, int limit);
+}
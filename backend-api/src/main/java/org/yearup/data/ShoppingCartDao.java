@@ -1,20 +1,33 @@
 
 package org.yearup.data;
 
+import org.yearup.models.CartQuantityUpdate;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
 
+import java.util.List;
+
 public interface ShoppingCartDao
 {
     ShoppingCart getByUserId(int userId);
 
     ShoppingCartItem getItemByUserAndProduct(int userId, int productId);
 
-    void addProductToCart(int userId, int productId);
+    // Adds one unit and returns the new quantity of that line
+    int addProductToCart(int userId, int productId);
 
     void updateProductQuantity(int userId, int productId, int quantity);
 
+    // Applies several quantity changes in one transaction and returns the resulting cart
+    ShoppingCart updateProductQuantities(int userId, List<CartQuantityUpdate> updates);
+
     void clearCart(int userId);
+
+    // Makes sure every change to this cart is in the database (checkout calls this first).
+    // Only stores that buffer writes need to do anything here.
+    default void flush(int userId)
+    {
+    }
 }
 
 
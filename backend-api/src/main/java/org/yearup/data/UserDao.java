@@ -1,5 +1,6 @@
 package org.yearup.data;
 
+import org.yearup.models.Profile;
 import org.yearup.models.User;
 
 import java.util.List;
@@ -16,5 +17,8 @@ public interface UserDao {
 
     User create(User user);
 
+    // Inserts the user and their profile together; DuplicateKeyException if the username is taken
+    User createWithProfile(User user, Profile profile);
+
     boolean exists(String username);
 }
@@ -0,0 +1,51 @@
+package org.yearup.data.cache;
+
+import org.springframework.stereotype.Component;
+import org.yearup.models.CacheStats;
+import org.yearup.models.SingleFlightStats;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Every NearCache registers here so its stats show up in GET /admin/caches,
+ * and every SingleFlight for GET /admin/caches/single-flight. Caches that
+ * aren't NearCaches (HotFileCache) add their stats with registerStats().
+ */
+@Component
+public class CacheRegistry
+{
+    private final List<NearCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    private final List<SingleFlight<?, ?>> flights = new CopyOnWriteArrayList<>();
+    private final List<Supplier<CacheStats>> otherCaches = new CopyOnWriteArrayList<>();
+
+    public <K, V> NearCache<K, V> register(NearCache<K, V> cache)
+    {
+        caches.add(cache);
+        return cache;
+    }
+
+    public <K, V> SingleFlight<K, V> register(SingleFlight<K, V> flight)
+    {
+        flights.add(flight);
+        return flight;
+    }
+
+    public void registerStats(Supplier<CacheStats> stats)
+    {
+        otherCaches.add(stats);
+    }
+
+    public List<CacheStats> stats()
+    {
+        return Stream.concat(caches.stream().map(NearCache::stats),
+                             otherCaches.stream().map(Supplier::get)).toList();
+    }
+
+    public List<SingleFlightStats> singleFlightStats()
+    {
+        return flights.stream().map(SingleFlight::stats).toList();
+    }
+}
@@ -0,0 +1,196 @@
+package org.yearup.data.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.models.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Serves every CategoryDao read from an in-memory snapshot of the whole
+ * categories table (a handful of rows that change about once a month).
+ *
+ * The snapshot is immutable and version-stamped. create/update/delete write
+ * to MySQL, then reload the table and swap in a new snapshot (with the next
+ * version if anything changed) in one volatile write, so readers see either the old or the new
+ * catalog of categories, never a mix. Snapshots older than refresh-seconds
+ * are reloaded on read, which picks up changes made by other instances.
+ */
+@Component
+@Primary
+public class CachingCategoryDao implements CategoryDao
+{
+    private final MySqlCategoryDao categoryDao;
+    private final long refreshNanos;
+
+    private volatile Snapshot snapshot;
+
+    public CachingCategoryDao(MySqlCategoryDao categoryDao,
+                              @Value("${cache.categories.refresh-seconds:300}") long refreshSeconds)
+    {
+        this.categoryDao = categoryDao;
+        this.refreshNanos = refreshSeconds * 1_000_000_000L;
+    }
+
+    @Override
+    public List<Category> getAllCategories()
+    {
+        List<Category> categories = new ArrayList<>();
+        for (Category category : current().byId.values())
+            categories.add(copy(category));
+        return categories;
+    }
+
+    @Override
+    public Category getById(int categoryId)
+    {
+        return copy(current().byId.get(categoryId));
+    }
+
+    @Override
+    public boolean exists(int categoryId)
+    {
+        return current().byId.containsKey(categoryId);
+    }
+
+    @Override
+    public Category create(Category category)
+    {
+        try
+        {
+            return categoryDao.create(category);
+        }
+        finally
+        {
+            refresh();
+        }
+    }
+
+    @Override
+    public void update(int categoryId, Category category)
+    {
+        try
+        {
+            categoryDao.update(categoryId, category);
+        }
+        finally
+        {
+            refresh();
+        }
+    }
+
+    @Override
+    public void delete(int categoryId)
+    {
+        try
+        {
+            categoryDao.delete(categoryId);
+        }
+        finally
+        {
+            refresh();
+        }
+    }
+
+    // Changes every time the categories change; usable as a cache key by callers
+    public long getVersion()
+    {
+        return current().version;
+    }
+
+    // True if the next read is answered from memory (no reload from MySQL needed)
+    public boolean isFresh()
+    {
+        Snapshot current = snapshot;
+        return current != null && !isStale(current);
+    }
+
+    private Snapshot current()
+    {
+        Snapshot current = snapshot;
+        if (current == null || isStale(current))
+            return reloadIfStale();
+        return current;
+    }
+
+    // Only the first reader to notice a stale snapshot reloads it
+    private synchronized Snapshot reloadIfStale()
+    {
+        Snapshot current = snapshot;
+        if (current == null || isStale(current))
+            return refresh();
+        return current;
+    }
+
+    private boolean isStale(Snapshot current)
+    {
+        return System.nanoTime() - current.loadedAt > refreshNanos;
+    }
+
+    /**
+     * Reloads the table and publishes it as the next version.
+     * Synchronized so two writers can't publish out of order.
+     */
+    private synchronized Snapshot refresh()
+    {
+        Map<Integer, Category> byId = new LinkedHashMap<>();
+        for (Category category : categoryDao.getAllCategories())
+            byId.put(category.getCategoryId(), category);
+
+        // the version only moves when the rows actually changed
+        Snapshot previous = snapshot;
+        long version = previous == null ? 1
+                : sameRows(previous.byId, byId) ? previous.version
+                : previous.version + 1;
+
+        Snapshot next = new Snapshot(version, Collections.unmodifiableMap(byId));
+        snapshot = next;
+        return next;
+    }
+
+    private static boolean sameRows(Map<Integer, Category> a, Map<Integer, Category> b)
+    {
+        if (a.size() != b.size())
+            return false;
+
+        for (Category left : a.values())
+        {
+            Category right = b.get(left.getCategoryId());
+            if (right == null
+                    || !Objects.equals(left.getName(), right.getName())
+                    || !Objects.equals(left.getDescription(), right.getDescription()))
+                return false;
+        }
+        return true;
+    }
+
+    private static Category copy(Category category)
+    {
+        if (category == null)
+            return null;
+
+        return new Category(category.getCategoryId(), category.getName(), category.getDescription());
+    }
+
+    private static final class Snapshot
+    {
+        private final long version;
+        private final long loadedAt = System.nanoTime();
+        // in category_id order, like the SQL it replaces
+        private final Map<Integer, Category> byId;
+
+        private Snapshot(long version, Map<Integer, Category> byId)
+        {
+            this.version = version;
+            this.byId = byId;
+        }
+    }
+}
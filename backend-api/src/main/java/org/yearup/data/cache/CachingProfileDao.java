@@ -0,0 +1,76 @@
+package org.yearup.data.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProfileDao;
+import org.yearup.data.mysql.MySqlProfileDao;
+import org.yearup.models.Profile;
+
+import java.time.Duration;
+
+/**
+ * Near-cache in front of MySqlProfileDao.getByUserId.
+ * create() and update() invalidate the user's entry after the write.
+ * Callers get a copy, never the cached instance.
+ */
+@Component
+@Primary
+public class CachingProfileDao implements ProfileDao
+{
+    private final MySqlProfileDao profileDao;
+    private final NearCache<Integer, Profile> byUserId;
+
+    public CachingProfileDao(MySqlProfileDao profileDao,
+                             CacheRegistry cacheRegistry,
+                             @Value("${cache.profiles.max-entries:10000}") int maxEntries,
+                             @Value("${cache.profiles.ttl-seconds:60}") long ttlSeconds)
+    {
+        this.profileDao = profileDao;
+        // a missing profile is only briefly remembered: registration creates it right away
+        this.byUserId = cacheRegistry.register(new NearCache<>("profiles.byUserId", maxEntries,
+                Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(1)));
+    }
+
+    @Override
+    public Profile getByUserId(int userId)
+    {
+        return copy(byUserId.get(userId, profileDao::getByUserId));
+    }
+
+    @Override
+    public Profile create(Profile profile)
+    {
+        try
+        {
+            return profileDao.create(profile);
+        }
+        finally
+        {
+            byUserId.invalidate(profile.getUserId());
+        }
+    }
+
+    @Override
+    public void update(Profile profile)
+    {
+        try
+        {
+            profileDao.update(profile);
+        }
+        finally
+        {
+            byUserId.invalidate(profile.getUserId());
+        }
+    }
+
+    private static Profile copy(Profile profile)
+    {
+        if (profile == null)
+            return null;
+
+        return new Profile(profile.getUserId(), profile.getFirstName(), profile.getLastName(),
+                           profile.getPhone(), profile.getEmail(), profile.getAddress(),
+                           profile.getCity(), profile.getState(), profile.getZip());
+    }
+}
@@ -0,0 +1,120 @@
+package org.yearup.data.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.yearup.data.UserDao;
+import org.yearup.data.mysql.MySqlUserDao;
+import org.yearup.models.Profile;
+import org.yearup.models.User;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Near-cache in front of MySqlUserDao.getByUserName.
+ * Login, cart, orders and profile all resolve the caller by username on every request.
+ *
+ * Unknown usernames are cached as "missing" for a shorter TTL, so credential
+ * stuffing with made-up names doesn't turn into one users query per attempt.
+ * create() invalidates the name (clearing any "missing" entry).
+ * Callers get a copy, never the cached instance.
+ */
+@Component
+@Primary
+public class CachingUserDao implements UserDao
+{
+    private final MySqlUserDao userDao;
+    private final NearCache<String, User> byUsername;
+
+    public CachingUserDao(MySqlUserDao userDao,
+                          CacheRegistry cacheRegistry,
+                          @Value("${cache.users.max-entries:10000}") int maxEntries,
+                          @Value("${cache.users.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${cache.users.negative-ttl-seconds:10}") long negativeTtlSeconds)
+    {
+        this.userDao = userDao;
+        this.byUsername = cacheRegistry.register(new NearCache<>("users.byUsername", maxEntries,
+                Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(negativeTtlSeconds)));
+    }
+
+    @Override
+    public User getByUserName(String username)
+    {
+        if (username == null)
+            return null;
+
+        // usernames compare case-insensitively in MySQL, so one entry per lowercase name
+        return copy(byUsername.get(key(username), k -> userDao.getByUserName(username)));
+    }
+
+    @Override
+    public int getIdByUsername(String username)
+    {
+        User user = getByUserName(username);
+        return user == null ? -1 : user.getId();
+    }
+
+    @Override
+    public boolean exists(String username)
+    {
+        return getByUserName(username) != null;
+    }
+
+    @Override
+    public User create(User user)
+    {
+        try
+        {
+            return userDao.create(user);
+        }
+        finally
+        {
+            byUsername.invalidate(key(user.getUsername()));
+        }
+    }
+
+    @Override
+    public User createWithProfile(User user, Profile profile)
+    {
+        try
+        {
+            return userDao.createWithProfile(user, profile);
+        }
+        finally
+        {
+            byUsername.invalidate(key(user.getUsername()));
+        }
+    }
+
+    // Rare admin-style reads go straight to MySQL
+    @Override
+    public List<User> getAll()
+    {
+        return userDao.getAll();
+    }
+
+    @Override
+    public User getUserById(int userId)
+    {
+        return userDao.getUserById(userId);
+    }
+
+    private static String key(String username)
+    {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static User copy(User user)
+    {
+        if (user == null)
+            return null;
+
+        User copy = new User(user.getId(), user.getUsername(), user.getPassword(), null);
+        copy.setAuthorities(new HashSet<>(user.getAuthorities()));
+        copy.setActivated(user.isActivated());
+        return copy;
+    }
+}
@@ -0,0 +1,149 @@
+package org.yearup.data.cache;
+
+import org.yearup.models.CacheStats;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Small bounded, TTL-based in-process cache for DAO reads.
+ *
+ * - null results are cached too (for negativeTtl) so repeated lookups of
+ *   things that don't exist never reach MySQL
+ * - when full, expired entries go first, then arbitrary ones (hash order);
+ *   good enough for a near-cache whose real bound is the TTL
+ * - a fill that raced with an invalidate() is dropped, so a write can't be
+ *   hidden by a read that started before it
+ */
+public class NearCache<K, V>
+{
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    // bumped on every invalidation; fills only land if it didn't move
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public NearCache(String name, int maxEntries, Duration ttl, Duration negativeTtl)
+    {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    /**
+     * Returns the cached value for key, or loads it (loader may return null).
+     */
+    public V get(K key, Function<K, V> loader)
+    {
+        long now = System.nanoTime();
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null)
+        {
+            if (now - entry.expiresAt < 0)
+            {
+                hits.incrementAndGet();
+                if (entry.value == null)
+                    negativeHits.incrementAndGet();
+                return entry.value;
+            }
+
+            if (entries.remove(key, entry))
+                expirations.incrementAndGet();
+        }
+
+        misses.incrementAndGet();
+        long version = invalidations.get();
+
+        V value = loader.apply(key);
+
+        long ttl = value == null ? negativeTtlNanos : ttlNanos;
+        if (ttl > 0 && invalidations.get() == version)
+        {
+            makeRoom();
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttl));
+        }
+
+        return value;
+    }
+
+    public void invalidate(K key)
+    {
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll()
+    {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public CacheStats stats()
+    {
+        return new CacheStats(name, entries.size(), hits.get(), negativeHits.get(),
+                              misses.get(), evictions.get(), expirations.get());
+    }
+
+    private void makeRoom()
+    {
+        if (entries.size() < maxEntries)
+            return;
+
+        long now = System.nanoTime();
+
+        // expired entries first
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); )
+        {
+            if (now - it.next().getValue().expiresAt >= 0)
+            {
+                it.remove();
+                expirations.incrementAndGet();
+            }
+        }
+
+        if (entries.size() < maxEntries)
+            return;
+
+        // still full: drop ~10% in iteration order
+        int toEvict = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        for (Iterator<K> it = entries.keySet().iterator(); it.hasNext() && toEvict > 0; toEvict--)
+        {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry<V>
+    {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.yearup.data.cache;
+
+import org.yearup.models.SingleFlightStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Request coalescing for DAO reads: while a load for a key is in flight,
+ * callers asking for the same key wait for it instead of starting their own.
+ * Nothing is kept once the load returns (that is NearCache's job), so this
+ * also protects cold starts and anything that isn't cached.
+ *
+ * - the caller that started the load gets its result; everyone who joined
+ *   gets share(result), so nobody can mutate somebody else's object
+ * - a failed load fails every caller that joined it
+ * - forget() is for writes: callers that arrive after it start a fresh load
+ *   instead of joining one that may have read the old row
+ */
+public class SingleFlight<K, V>
+{
+    private final String name;
+    private final UnaryOperator<V> share;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public SingleFlight(String name, UnaryOperator<V> share)
+    {
+        this.name = name;
+        this.share = share;
+    }
+
+    /**
+     * Returns loader(key), sharing the call with any identical one in flight.
+     */
+    public V run(K key, Function<K, V> loader)
+    {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null)
+        {
+            coalesced.incrementAndGet();
+            V value = join(running);
+            return value == null ? null : share.apply(value);
+        }
+
+        executed.incrementAndGet();
+        try
+        {
+            V value = loader.apply(key);
+            mine.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error e)
+        {
+            failed.incrementAndGet();
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void forget(K key)
+    {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll()
+    {
+        inFlight.clear();
+    }
+
+    public SingleFlightStats stats()
+    {
+        return new SingleFlightStats(name, inFlight.size(), executed.get(), coalesced.get(), failed.get());
+    }
+
+    private static <V> V join(CompletableFuture<V> running)
+    {
+        try
+        {
+            return running.join();
+        }
+        catch (CompletionException e)
+        {
+            // rethrow what the loader threw, like the caller that ran it sees
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
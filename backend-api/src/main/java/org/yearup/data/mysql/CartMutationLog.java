@@ -0,0 +1,217 @@
+package org.yearup.data.mysql;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Local append-only log for the write-behind cart store.
+ *
+ * Every cart mutation is appended (as the ABSOLUTE new quantity, so replay is idempotent)
+ * before the request returns. The log is split into numbered segments:
+ * the flusher rotates to a new segment, writes everything dirty to MySQL,
+ * and only then deletes the segments that were closed before that flush.
+ * After a crash, whatever segments are left are replayed in order.
+ *
+ * Record format (one per line):
+ *   S,userId,productId,quantity   set quantity (0 = remove)
+ *   C,userId                      clear the whole cart
+ */
+class CartMutationLog
+{
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private long currentSequence;
+    private FileChannel current;
+
+    // Segments that were rotated out but whose changes are not yet known to be in MySQL
+    private final List<Path> closedSegments = new ArrayList<>();
+
+    CartMutationLog(Path directory)
+    {
+        this.directory = directory;
+        try
+        {
+            Files.createDirectories(directory);
+            currentSequence = existingSegments().stream()
+                                                .mapToLong(CartMutationLog::sequenceOf)
+                                                .max()
+                                                .orElse(0);
+            closedSegments.addAll(existingSegments());
+            openNextSegment();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not open cart log in " + directory, e);
+        }
+    }
+
+    synchronized void appendSet(int userId, int productId, int quantity)
+    {
+        write("S," + userId + "," + productId + "," + quantity + "\n");
+    }
+
+    synchronized void appendClear(int userId)
+    {
+        write("C," + userId + "\n");
+    }
+
+    /**
+     * Closes the current segment (forcing it to disk) and starts a new one.
+     * Returns the number of segments that a successful flush may now delete.
+     */
+    synchronized int rotate()
+    {
+        try
+        {
+            current.force(false);
+            current.close();
+            closedSegments.add(segmentPath(currentSequence));
+            openNextSegment();
+            return closedSegments.size();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not rotate cart log.", e);
+        }
+    }
+
+    /**
+     * Deletes the oldest {@code count} closed segments: their changes are in MySQL now.
+     */
+    synchronized void checkpoint(int count)
+    {
+        for (int i = 0; i < count && !closedSegments.isEmpty(); i++)
+        {
+            try
+            {
+                Files.deleteIfExists(closedSegments.remove(0));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Could not delete cart log segment.", e);
+            }
+        }
+    }
+
+    /**
+     * Folds every segment left over from a previous run into the final state per user.
+     * Map value: productId -> quantity; a user whose entry is in {@code cleared}
+     * had their whole cart cleared before those quantities were set.
+     */
+    synchronized Map<Integer, Map<Integer, Integer>> replay(Set<Integer> cleared)
+    {
+        Map<Integer, Map<Integer, Integer>> state = new LinkedHashMap<>();
+
+        for (Path segment : closedSegments)
+        {
+            List<String> lines;
+            try
+            {
+                lines = Files.readAllLines(segment, StandardCharsets.UTF_8);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException("Could not read cart log segment " + segment, e);
+            }
+
+            for (String line : lines)
+            {
+                String[] parts = line.split(",");
+                try
+                {
+                    if (parts[0].equals("C") && parts.length == 2)
+                    {
+                        int userId = Integer.parseInt(parts[1]);
+                        state.put(userId, new LinkedHashMap<>());
+                        cleared.add(userId);
+                    }
+                    else if (parts[0].equals("S") && parts.length == 4)
+                    {
+                        state.computeIfAbsent(Integer.parseInt(parts[1]), k -> new LinkedHashMap<>())
+                             .put(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                    }
+                }
+                catch (NumberFormatException ignored)
+                {
+                    // torn last line from a crash mid-write
+                }
+            }
+        }
+
+        return state;
+    }
+
+    synchronized int pendingSegments()
+    {
+        return closedSegments.size();
+    }
+
+    synchronized void close()
+    {
+        try
+        {
+            current.force(false);
+            current.close();
+            // An empty current segment carries nothing worth replaying
+            Path path = segmentPath(currentSequence);
+            if (Files.size(path) == 0)
+                Files.delete(path);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not close cart log.", e);
+        }
+    }
+
+    private void write(String record)
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.US_ASCII));
+        try
+        {
+            while (buffer.hasRemaining())
+                current.write(buffer);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not append to cart log.", e);
+        }
+    }
+
+    private void openNextSegment() throws IOException
+    {
+        currentSequence++;
+        current = FileChannel.open(segmentPath(currentSequence),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long sequence)
+    {
+        // zero padded so a plain name sort is also the replay order
+        return directory.resolve(String.format("%s%019d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    private List<Path> existingSegments() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                                     && p.getFileName().toString().endsWith(SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment)
+    {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,239 @@
+package org.yearup.data.mysql;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.CatalogChangeDao;
+import org.yearup.models.CatalogChanges;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * The catalog change log (catalog_changes) behind GET /catalog/changes.
+ *
+ * MySqlProductDao and MySqlCategoryDao add a row (see record()) in the same
+ * transaction as every create/update/delete, so the log never disagrees
+ * with the tables. change_id is the version clients sync from.
+ *
+ * Like the sales rollups, only rows older than settle-seconds are read: ids
+ * are handed out at INSERT but become visible at COMMIT, so a lower id could
+ * still be in flight behind a higher, visible one.
+ */
+@Component
+public class MySqlCatalogChangeDao extends MySqlDaoBase implements CatalogChangeDao
+{
+    static final String PRODUCT = "product";
+    static final String CATEGORY = "category";
+
+    public MySqlCatalogChangeDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    /**
+     * Adds one change row on the caller's connection (and transaction).
+     */
+    static void record(Connection connection, String entity, int entityId, boolean deleted) throws SQLException
+    {
+        String sql = "INSERT INTO catalog_changes (entity, entity_id, deleted) VALUES (?, ?, ?);";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setString(1, entity);
+            statement.setInt(2, entityId);
+            statement.setBoolean(3, deleted);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public CatalogChanges getChangesSince(long since, int limit, int settleSeconds)
+    {
+        String sql = """
+                SELECT change_id, entity, entity_id, deleted
+                FROM catalog_changes
+                WHERE change_id > ?
+                  AND changed_at < NOW() - INTERVAL ? SECOND
+                ORDER BY change_id
+                LIMIT ?;
+                """;
+
+        CatalogChanges changes = new CatalogChanges();
+        changes.setVersion(since);
+
+        // latest change per product / category in this page (true = deleted)
+        Map<Integer, Boolean> products = new LinkedHashMap<>();
+        Map<Integer, Boolean> categories = new LinkedHashMap<>();
+
+        try (Connection connection = getConnection())
+        {
+            int rows = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                statement.setLong(1, since);
+                statement.setInt(2, settleSeconds);
+                statement.setInt(3, limit);
+
+                try (ResultSet row = statement.executeQuery())
+                {
+                    while (row.next())
+                    {
+                        rows++;
+                        changes.setVersion(row.getLong("change_id"));
+
+                        Map<Integer, Boolean> latest = PRODUCT.equals(row.getString("entity")) ? products : categories;
+                        int entityId = row.getInt("entity_id");
+                        latest.remove(entityId);
+                        latest.put(entityId, row.getBoolean("deleted"));
+                    }
+                }
+            }
+            changes.setHasMore(rows == limit);
+
+            // current rows for the upserts; one that is gone by now counts as deleted
+            Map<Integer, Product> currentProducts = loadProducts(connection, upserted(products));
+            for (Map.Entry<Integer, Boolean> change : products.entrySet())
+            {
+                Product product = change.getValue() ? null : currentProducts.get(change.getKey());
+                if (product == null)
+                    changes.getDeletedProductIds().add(change.getKey());
+                else
+                    changes.getProducts().add(product);
+            }
+
+            Map<Integer, Category> currentCategories = loadCategories(connection, upserted(categories));
+            for (Map.Entry<Integer, Boolean> change : categories.entrySet())
+            {
+                Category category = change.getValue() ? null : currentCategories.get(change.getKey());
+                if (category == null)
+                    changes.getDeletedCategoryIds().add(change.getKey());
+                else
+                    changes.getCategories().add(category);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading catalog changes since version " + since, e);
+        }
+
+        return changes;
+    }
+
+    @Override
+    public long getLatestVersion(int settleSeconds)
+    {
+        String sql = """
+                SELECT COALESCE(MAX(change_id), 0) AS version
+                FROM catalog_changes
+                WHERE changed_at < NOW() - INTERVAL ? SECOND;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setInt(1, settleSeconds);
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                row.next();
+                return row.getLong("version");
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading the latest catalog version.", e);
+        }
+    }
+
+    /**
+     * Keeps only the newest row per product / category. A client syncing from
+     * any version still gets every entity that changed after it (the newest
+     * row is always past its version), just once. Deletes stay as tombstones.
+     */
+    @Override
+    public int compact()
+    {
+        String sql = """
+                DELETE older
+                FROM catalog_changes older
+                JOIN catalog_changes newer
+                  ON newer.entity = older.entity
+                 AND newer.entity_id = older.entity_id
+                 AND newer.change_id > older.change_id;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            return statement.executeUpdate();
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error compacting catalog changes.", e);
+        }
+    }
+
+    private Map<Integer, Product> loadProducts(Connection connection, List<Integer> ids) throws SQLException
+    {
+        Map<Integer, Product> products = new HashMap<>();
+        if (ids.isEmpty())
+            return products;
+
+        String sql = "SELECT * FROM products WHERE product_id IN ("
+                + String.join(",", Collections.nCopies(ids.size(), "?")) + ");";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < ids.size(); i++)
+                statement.setInt(i + 1, ids.get(i));
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    Product product = MySqlProductDao.mapRow(row);
+                    products.put(product.getProductId(), product);
+                }
+            }
+        }
+        return products;
+    }
+
+    private Map<Integer, Category> loadCategories(Connection connection, List<Integer> ids) throws SQLException
+    {
+        Map<Integer, Category> categories = new HashMap<>();
+        if (ids.isEmpty())
+            return categories;
+
+        String sql = "SELECT category_id, name, description FROM categories WHERE category_id IN ("
+                + String.join(",", Collections.nCopies(ids.size(), "?")) + ");";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < ids.size(); i++)
+                statement.setInt(i + 1, ids.get(i));
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    Category category = new Category(row.getInt("category_id"),
+                                                     row.getString("name"),
+                                                     row.getString("description"));
+                    categories.put(category.getCategoryId(), category);
+                }
+            }
+        }
+        return categories;
+    }
+
+    private static List<Integer> upserted(Map<Integer, Boolean> latest)
+    {
+        return latest.entrySet().stream()
+                     .filter(change -> !change.getValue())
+                     .map(Map.Entry::getKey)
+                     .toList();
+    }
+}
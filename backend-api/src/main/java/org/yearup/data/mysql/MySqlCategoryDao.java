@@ -2,6 +2,8 @@ package org.yearup.data.mysql;
 
 import org.springframework.stereotype.Component;
 import org.yearup.data.CategoryDao;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.SingleFlight;
 import org.yearup.models.Category;
 
 import javax.sql.DataSource;
@@ -17,14 +19,19 @@ import java.util.List;
 @Component // Marks this class as a Spring Bean so it can be injected
 public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
 {
+    // Concurrent lookups of the same category share one query (see SingleFlight)
+    private final SingleFlight<Integer, Category> byId;
+
     /**
      * Constructor
      * The DataSource is injected by Spring and passed to MySqlDaoBase.
      * MySqlDaoBase provides the getConnection() helper method.
      */
-    public MySqlCategoryDao(DataSource dataSource)
+    public MySqlCategoryDao(DataSource dataSource, CacheRegistry cacheRegistry)
     {
         super(dataSource);
+        this.byId = cacheRegistry.register(new SingleFlight<>("categories.byId",
+                c -> new Category(c.getCategoryId(), c.getName(), c.getDescription())));
     }
 
     /**
@@ -70,6 +77,11 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
      */
     @Override
     public Category getById(int categoryId)
+    {
+        return byId.run(categoryId, this::queryById);
+    }
+
+    private Category queryById(int categoryId)
     {
         String sql = """
                 SELECT category_id, name, description
@@ -104,6 +116,34 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
         return null;
     }
 
+    /**
+     * Returns true if a category with this ID exists.
+     * Used by update/delete to answer 404 without loading the row.
+     */
+    @Override
+    public boolean exists(int categoryId)
+    {
+        String sql = "SELECT 1 FROM categories WHERE category_id = ?;";
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setInt(1, categoryId);
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                return row.next();
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(
+                    "Error checking category id=" + categoryId,
+                    e
+            );
+        }
+    }
+
     /**
      * Creates a new category.
      * Admin-only operation.
@@ -116,24 +156,37 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
                 VALUES (?, ?);
                 """;
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement =
-                     connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        try (Connection connection = getConnection())
         {
-            // Bind values from Category object
-            statement.setString(1, category.getName());
-            statement.setString(2, category.getDescription());
+            // The category and its change log row (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement =
+                         connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+            {
+                // Bind values from Category object
+                statement.setString(1, category.getName());
+                statement.setString(2, category.getDescription());
 
-            // Execute INSERT
-            statement.executeUpdate();
+                // Execute INSERT
+                statement.executeUpdate();
 
-            // Retrieve generated category_id
-            try (ResultSet keys = statement.getGeneratedKeys())
-            {
-                if (keys.next())
+                // Retrieve generated category_id
+                try (ResultSet keys = statement.getGeneratedKeys())
                 {
-                    category.setCategoryId(keys.getInt(1));
+                    if (keys.next())
+                    {
+                        category.setCategoryId(keys.getInt(1));
+                        MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.CATEGORY,
+                                                     category.getCategoryId(), false);
+                    }
                 }
+
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
             }
 
             // Return newly created category with ID populated
@@ -159,16 +212,30 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
                  WHERE category_id = ?;
                 """;
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql))
+        try (Connection connection = getConnection())
         {
-            // Bind updated values
-            statement.setString(1, category.getName());
-            statement.setString(2, category.getDescription());
-            statement.setInt(3, categoryId);
+            // The row and its change log row (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                // Bind updated values
+                statement.setString(1, category.getName());
+                statement.setString(2, category.getDescription());
+                statement.setInt(3, categoryId);
+
+                // Execute UPDATE
+                if (statement.executeUpdate() > 0)
+                    MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.CATEGORY, categoryId, false);
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
 
-            // Execute UPDATE
-            statement.executeUpdate();
+            // Lookups that started before the update must not be joined after it
+            byId.forget(categoryId);
         }
         catch (SQLException e)
         {
@@ -188,11 +255,25 @@ public class MySqlCategoryDao extends MySqlDaoBase implements CategoryDao
     {
         String sql = "DELETE FROM categories WHERE category_id = ?;";
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql))
+        try (Connection connection = getConnection())
         {
-            statement.setInt(1, categoryId);
-            statement.executeUpdate();
+            // The delete and its tombstone (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                statement.setInt(1, categoryId);
+
+                if (statement.executeUpdate() > 0)
+                    MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.CATEGORY, categoryId, true);
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+
+            byId.forget(categoryId);
         }
         catch (SQLException e)
         {
@@ -1,11 +1,17 @@
 package org.yearup.data.mysql;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.yearup.data.OrderDao;
+import org.yearup.data.OrderPlacedEvent;
 import org.yearup.data.ProfileDao;
 import org.yearup.data.ShoppingCartDao;
 import org.yearup.models.Order;
 import org.yearup.models.OrderLineItem;
+import org.yearup.models.OrderPage;
+import org.yearup.models.OrderSummary;
 import org.yearup.models.Profile;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
@@ -15,7 +21,11 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * MySqlOrderDao handles CHECKOUT.
@@ -23,17 +33,23 @@ import java.util.List;
  * 1) Read items from the shopping cart
  * 2) Create an order
  * 3) Create order line items (with quantity)
- * 4) Clear the cart
+ * 4) Write the order_summaries row (precomputed totals)
+ * 5) Clear the cart
  */
 @Component
 public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
 {
+    private final Logger log = LoggerFactory.getLogger(MySqlOrderDao.class);
+
     // Needed to read cart items during checkout
     private final ShoppingCartDao shoppingCartDao;
 
     // Needed to get shipping address for the order
     private final ProfileDao profileDao;
 
+    // Tells listeners (e.g. RelatedProducts) about each committed order
+    private final ApplicationEventPublisher events;
+
     /**
      * Constructor
      * DataSource is for DB access
@@ -42,11 +58,13 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
      */
     public MySqlOrderDao(DataSource dataSource,
                          ShoppingCartDao shoppingCartDao,
-                         ProfileDao profileDao)
+                         ProfileDao profileDao,
+                         ApplicationEventPublisher events)
     {
         super(dataSource);
         this.shoppingCartDao = shoppingCartDao;
         this.profileDao = profileDao;
+        this.events = events;
     }
 
     /**
@@ -56,11 +74,14 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
     @Override
     public Order createOrder(int userId)
     {
+        // Write-behind cart stores must push pending changes before we read the cart
+        shoppingCartDao.flush(userId);
+
         // Get the user's shopping cart
         ShoppingCart cart = shoppingCartDao.getByUserId(userId);
 
         // Cart must exist and contain items
-        if (cart == null || cart.getItems() == null || cart.getItems().isEmpty())
+        if (cart == null || cart.getItems().isEmpty())
         {
             throw new RuntimeException("Cart is empty.");
         }
@@ -87,6 +108,8 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
                 VALUES (?, ?, ?, ?, ?);
                 """;
 
+        Order order;
+
         try (Connection connection = getConnection())
         {
             // Turn OFF auto-commit so everything succeeds or fails together
@@ -131,7 +154,7 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
                          connection.prepareStatement(insertLineSql, Statement.RETURN_GENERATED_KEYS))
             {
                 // Loop through CART ITEMS
-                for (ShoppingCartItem cartItem : cart.getItems().values())
+                for (ShoppingCartItem cartItem : cart.getItems())
                 {
                     int productId = cartItem.getProduct().getProductId();
                     BigDecimal price = cartItem.getProduct().getPrice();
@@ -167,18 +190,10 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
             }
 
 
-            // CLEAR CART
-            // VERY IMPORTANT:
-            // After checkout, cart must be empty
-            shoppingCartDao.clearCart(userId);
-
-            // Commit transaction (order + items + cart clear)
-            connection.commit();
-
             // =========================
             // BUILD RETURN OBJECT
             // =========================
-            Order order = new Order();
+            order = new Order();
             order.setOrderId(orderId);
             order.setUserId(userId);
             order.setDate(today);
@@ -189,11 +204,309 @@ public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
             order.setShippingAmount(shipping);
             order.setItems(lineItems);
 
-            return order;
+
+            // ORDER SUMMARY (read model)
+            // Same connection, same transaction: the summary row
+            // exists if and only if the order does
+            MySqlOrderSummaryDao.insertSummary(connection, OrderSummary.fromOrder(order));
+
+
+            // CLEAR CART
+            // VERY IMPORTANT:
+            // After checkout, cart must be empty
+            shoppingCartDao.clearCart(userId);
+
+            // Commit transaction (order + items + summary + cart clear)
+            connection.commit();
         }
         catch (Exception e)
         {
             throw new RuntimeException("Error creating order.", e);
         }
+
+        // Only after the commit, and outside the try: a failing listener
+        // must not turn a placed order into a checkout error
+        try
+        {
+            events.publishEvent(new OrderPlacedEvent(order));
+        }
+        catch (RuntimeException e)
+        {
+            log.error("OrderPlacedEvent listener failed for order {}.", order.getOrderId(), e);
+        }
+
+        return order;
+    }
+
+    /**
+     * Returns one page of the user's order history, newest first.
+     * Uses keyset pagination on (date, order_id) so deep pages cost the same
+     * as the first one, and pulls headers + line items in ONE statement:
+     * the derived table picks the page of orders, then we join their items.
+     */
+    @Override
+    public OrderPage getOrdersByUserId(int userId, LocalDate beforeDate, Integer beforeId, int limit)
+    {
+        boolean hasCursor = beforeDate != null && beforeId != null;
+
+        // Ask for one extra header so we know if there is a next page
+        String sql = """
+                SELECT o.order_id, o.user_id, o.date, o.address, o.city, o.state, o.zip, o.shipping_amount,
+                       oli.order_line_item_id, oli.product_id, oli.sales_price, oli.quantity, oli.discount
+                FROM (
+                    SELECT order_id, user_id, date, address, city, state, zip, shipping_amount
+                    FROM orders
+                    WHERE user_id = ?
+                """ +
+                (hasCursor ? "      AND (date < ? OR (date = ? AND order_id < ?))\n" : "") +
+                """
+                    ORDER BY date DESC, order_id DESC
+                    LIMIT ?
+                ) o
+                LEFT JOIN order_line_items oli ON oli.order_id = o.order_id
+                ORDER BY o.date DESC, o.order_id DESC, oli.order_line_item_id;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            ps.setInt(index++, userId);
+            if (hasCursor)
+            {
+                ps.setDate(index++, Date.valueOf(beforeDate));
+                ps.setDate(index++, Date.valueOf(beforeDate));
+                ps.setInt(index++, beforeId);
+            }
+            ps.setInt(index, limit + 1);
+
+            List<Order> orders;
+            try (ResultSet row = ps.executeQuery())
+            {
+                orders = mapOrders(row);
+            }
+
+            OrderPage page = new OrderPage();
+            if (orders.size() > limit)
+            {
+                // Drop the look-ahead order; the last one we keep is the cursor
+                orders = new ArrayList<>(orders.subList(0, limit));
+                Order last = orders.get(orders.size() - 1);
+                page.setNextBeforeDate(last.getDate());
+                page.setNextBeforeId(last.getOrderId());
+            }
+            page.setOrders(orders);
+            return page;
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving orders for userId=" + userId, e);
+        }
+    }
+
+    /**
+     * Returns one order (header + line items) in a single statement.
+     * Returns null if it does not exist OR belongs to another user.
+     */
+    @Override
+    public Order getById(int userId, int orderId)
+    {
+        String sql = """
+                SELECT o.order_id, o.user_id, o.date, o.address, o.city, o.state, o.zip, o.shipping_amount,
+                       oli.order_line_item_id, oli.product_id, oli.sales_price, oli.quantity, oli.discount
+                FROM orders o
+                LEFT JOIN order_line_items oli ON oli.order_id = o.order_id
+                WHERE o.order_id = ?
+                  AND o.user_id = ?
+                ORDER BY oli.order_line_item_id;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, orderId);
+            ps.setInt(2, userId);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                List<Order> orders = mapOrders(row);
+                return orders.isEmpty() ? null : orders.get(0);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving order id=" + orderId, e);
+        }
+    }
+
+    /**
+     * Orders after a given id for incremental exports, oldest first, with
+     * their line items, in one statement (same shape as getOrdersByUserId).
+     * Recent orders wait settleSeconds: ids are handed out at INSERT but only
+     * become visible at COMMIT, so a lower id may still be in flight.
+     */
+    @Override
+    public List<Order> getOrdersAfter(int afterOrderId, int limit, int settleSeconds)
+    {
+        String sql = """
+                SELECT o.order_id, o.user_id, o.date, o.address, o.city, o.state, o.zip, o.shipping_amount,
+                       oli.order_line_item_id, oli.product_id, oli.sales_price, oli.quantity, oli.discount
+                FROM (
+                    SELECT order_id, user_id, date, address, city, state, zip, shipping_amount
+                    FROM orders
+                    WHERE order_id > ?
+                      AND placed_at < NOW() - INTERVAL ? SECOND
+                    ORDER BY order_id
+                    LIMIT ?
+                ) o
+                LEFT JOIN order_line_items oli ON oli.order_id = o.order_id
+                ORDER BY o.order_id, oli.order_line_item_id;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, afterOrderId);
+            ps.setInt(2, settleSeconds);
+            ps.setInt(3, limit);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                return mapOrders(row);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving orders after id=" + afterOrderId, e);
+        }
+    }
+
+    /**
+     * Units sold per product, used as the popularity signal for suggestions.
+     * One GROUP BY over order_line_items; callers run it in the background.
+     */
+    @Override
+    public Map<Integer, Integer> getUnitsSoldByProduct()
+    {
+        String sql = """
+                SELECT product_id, SUM(quantity) AS units
+                FROM order_line_items
+                GROUP BY product_id;
+                """;
+
+        Map<Integer, Integer> units = new HashMap<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet row = ps.executeQuery())
+        {
+            while (row.next())
+            {
+                units.put(row.getInt("product_id"), row.getInt("units"));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error totaling units sold per product.", e);
+        }
+
+        return units;
+    }
+
+    /**
+     * Streams (orderId, productIds) for every order, in order_id order.
+     * The result set is streamed row by row (fetch size MIN_VALUE), so the
+     * whole table is never held in memory; meant for offline rebuilds.
+     */
+    @Override
+    public void forEachOrderProducts(BiConsumer<Integer, int[]> consumer)
+    {
+        String sql = """
+                SELECT order_id, product_id
+                FROM order_line_items
+                ORDER BY order_id;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            ps.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                int currentOrderId = 0;
+                int[] productIds = new int[16];
+                int count = 0;
+
+                while (row.next())
+                {
+                    int orderId = row.getInt("order_id");
+
+                    // a new order starts: hand over the previous one
+                    if (orderId != currentOrderId && count > 0)
+                    {
+                        consumer.accept(currentOrderId, Arrays.copyOf(productIds, count));
+                        count = 0;
+                    }
+                    currentOrderId = orderId;
+
+                    if (count == productIds.length)
+                        productIds = Arrays.copyOf(productIds, count * 2);
+                    productIds[count++] = row.getInt("product_id");
+                }
+
+                if (count > 0)
+                    consumer.accept(currentOrderId, Arrays.copyOf(productIds, count));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading order line items.", e);
+        }
+    }
+
+    /**
+     * Folds joined order/line-item rows back into Order objects.
+     * Rows must be grouped by order (the queries above ORDER BY order first).
+     * An order with no items comes back as one row with NULL item columns.
+     */
+    private List<Order> mapOrders(ResultSet row) throws SQLException
+    {
+        List<Order> orders = new ArrayList<>();
+        Order current = null;
+
+        while (row.next())
+        {
+            int orderId = row.getInt("order_id");
+
+            if (current == null || current.getOrderId() != orderId)
+            {
+                current = new Order();
+                current.setOrderId(orderId);
+                current.setUserId(row.getInt("user_id"));
+                current.setDate(row.getDate("date").toLocalDate());
+                current.setAddress(row.getString("address"));
+                current.setCity(row.getString("city"));
+                current.setState(row.getString("state"));
+                current.setZip(row.getString("zip"));
+                current.setShippingAmount(row.getBigDecimal("shipping_amount"));
+                orders.add(current);
+            }
+
+            int lineItemId = row.getInt("order_line_item_id");
+            if (row.wasNull())
+                continue; // order without line items
+
+            OrderLineItem oli = new OrderLineItem();
+            oli.setOrderLineItemId(lineItemId);
+            oli.setOrderId(orderId);
+            oli.setProductId(row.getInt("product_id"));
+            oli.setSalesPrice(row.getBigDecimal("sales_price"));
+            oli.setQuantity(row.getInt("quantity"));
+            oli.setDiscount(row.getBigDecimal("discount"));
+            current.getItems().add(oli);
+        }
+
+        return orders;
     }
 }
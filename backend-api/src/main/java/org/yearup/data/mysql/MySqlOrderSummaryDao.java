@@ -0,0 +1,291 @@
+package org.yearup.data.mysql;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.OrderSummaryDao;
+import org.yearup.models.OrderSummary;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * MySqlOrderSummaryDao reads and maintains the order_summaries read model.
+ * The row for a new order is written by MySqlOrderDao.createOrder (same transaction),
+ * this class covers reads, the backfill for older orders and the verification check.
+ */
+@Component
+public class MySqlOrderSummaryDao extends MySqlDaoBase implements OrderSummaryDao
+{
+    // Re-derives summaries straight from order_line_items.
+    // Callers append their own WHERE clause before the GROUP BY.
+    private static final String DERIVE_SELECT = """
+            SELECT o.order_id,
+                   o.user_id,
+                   COALESCE(SUM(oli.quantity), 0) AS item_count,
+                   COALESCE(SUM(oli.sales_price * oli.quantity), 0) AS subtotal,
+                   COALESCE(SUM(ROUND(oli.sales_price * oli.quantity * oli.discount, 2)), 0) AS discount,
+                   o.shipping_amount,
+                   COALESCE(SUM(oli.sales_price * oli.quantity), 0)
+                     - COALESCE(SUM(ROUND(oli.sales_price * oli.quantity * oli.discount, 2)), 0)
+                     + o.shipping_amount AS grand_total
+            FROM orders o
+            LEFT JOIN order_line_items oli ON oli.order_id = o.order_id
+            """;
+
+    private static final String DERIVE_GROUP_BY = " GROUP BY o.order_id, o.user_id, o.shipping_amount ";
+
+    public MySqlOrderSummaryDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    /**
+     * Writes the summary row on the caller's connection.
+     * Used by checkout so the summary commits (or rolls back) with the order.
+     */
+    static void insertSummary(Connection connection, OrderSummary summary) throws SQLException
+    {
+        String sql = """
+                INSERT INTO order_summaries
+                (order_id, user_id, item_count, subtotal, discount, shipping_amount, grand_total)
+                VALUES (?, ?, ?, ?, ?, ?, ?);
+                """;
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, summary.getOrderId());
+            ps.setInt(2, summary.getUserId());
+            ps.setInt(3, summary.getItemCount());
+            ps.setBigDecimal(4, summary.getSubtotal());
+            ps.setBigDecimal(5, summary.getDiscount());
+            ps.setBigDecimal(6, summary.getShippingAmount());
+            ps.setBigDecimal(7, summary.getGrandTotal());
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public OrderSummary getByOrderId(int userId, int orderId)
+    {
+        String sql = """
+                SELECT order_id, user_id, item_count, subtotal, discount, shipping_amount, grand_total
+                FROM order_summaries
+                WHERE order_id = ?
+                  AND user_id = ?;
+                """;
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, orderId);
+            ps.setInt(2, userId);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                if (row.next())
+                    return mapRow(row);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving order summary id=" + orderId, e);
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<OrderSummary> getByUserId(int userId, Integer beforeId, int limit)
+    {
+        StringBuilder sql = new StringBuilder("""
+                SELECT order_id, user_id, item_count, subtotal, discount, shipping_amount, grand_total
+                FROM order_summaries
+                WHERE user_id = ?
+                """);
+
+        if (beforeId != null)
+            sql.append(" AND order_id < ? ");
+
+        sql.append(" ORDER BY order_id DESC LIMIT ?;");
+
+        List<OrderSummary> summaries = new ArrayList<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql.toString()))
+        {
+            int index = 1;
+            ps.setInt(index++, userId);
+            if (beforeId != null)
+                ps.setInt(index++, beforeId);
+            ps.setInt(index, limit);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                    summaries.add(mapRow(row));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving order summaries for userId=" + userId, e);
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Backfills one batch of orders (by order_id range).
+     * Orders that already have a summary (e.g. written by checkout) are skipped,
+     * so the job can be re-run or overlap with live traffic safely.
+     */
+    @Override
+    public int backfill(int afterOrderId, int batchSize)
+    {
+        // Upper bound of this batch: the batchSize-th order after the cursor
+        String boundSql = """
+                SELECT MAX(order_id) AS last_id
+                FROM (
+                    SELECT order_id
+                    FROM orders
+                    WHERE order_id > ?
+                    ORDER BY order_id
+                    LIMIT ?
+                ) batch;
+                """;
+
+        String insertSql = "INSERT INTO order_summaries " +
+                "(order_id, user_id, item_count, subtotal, discount, shipping_amount, grand_total) " +
+                DERIVE_SELECT +
+                " WHERE o.order_id > ? AND o.order_id <= ? " +
+                "   AND NOT EXISTS (SELECT 1 FROM order_summaries s WHERE s.order_id = o.order_id) " +
+                DERIVE_GROUP_BY + ";";
+
+        try (Connection connection = getConnection())
+        {
+            int lastId;
+            try (PreparedStatement ps = connection.prepareStatement(boundSql))
+            {
+                ps.setInt(1, afterOrderId);
+                ps.setInt(2, batchSize);
+
+                try (ResultSet row = ps.executeQuery())
+                {
+                    row.next();
+                    lastId = row.getInt("last_id");
+                    if (row.wasNull())
+                        return -1; // no more orders
+                }
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(insertSql))
+            {
+                ps.setInt(1, afterOrderId);
+                ps.setInt(2, lastId);
+                ps.executeUpdate();
+            }
+
+            return lastId;
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error backfilling order summaries after id=" + afterOrderId, e);
+        }
+    }
+
+    /**
+     * Picks random order ids between the first and last summary,
+     * re-derives them from the line items in one GROUP BY and compares.
+     * Ids that fall in a gap are simply not sampled.
+     */
+    @Override
+    public List<OrderSummary> verifySample(int sampleSize)
+    {
+        String rangeSql = "SELECT MIN(order_id) AS min_id, MAX(order_id) AS max_id FROM order_summaries;";
+
+        try (Connection connection = getConnection())
+        {
+            int minId;
+            int maxId;
+            try (PreparedStatement ps = connection.prepareStatement(rangeSql);
+                 ResultSet row = ps.executeQuery())
+            {
+                row.next();
+                minId = row.getInt("min_id");
+                if (row.wasNull())
+                    return new ArrayList<>(); // nothing to verify yet
+                maxId = row.getInt("max_id");
+            }
+
+            // Distinct random ids in [minId, maxId]
+            Set<Integer> sample = new TreeSet<>();
+            int range = maxId - minId + 1;
+            int wanted = Math.min(sampleSize, range);
+            while (sample.size() < wanted)
+            {
+                sample.add(minId + ThreadLocalRandom.current().nextInt(range));
+            }
+
+            String placeholders = String.join(",", Collections.nCopies(sample.size(), "?"));
+
+            String storedSql = "SELECT order_id, user_id, item_count, subtotal, discount, shipping_amount, grand_total " +
+                    "FROM order_summaries WHERE order_id IN (" + placeholders + ");";
+
+            String derivedSql = DERIVE_SELECT +
+                    " WHERE o.order_id IN (" + placeholders + ") " +
+                    DERIVE_GROUP_BY + ";";
+
+            Map<Integer, OrderSummary> stored = loadByIds(connection, storedSql, sample);
+            Map<Integer, OrderSummary> derived = loadByIds(connection, derivedSql, sample);
+
+            // Anything stored that doesn't match, or any sampled order missing its summary
+            List<OrderSummary> mismatches = new ArrayList<>();
+            for (OrderSummary expected : derived.values())
+            {
+                if (!expected.sameTotals(stored.get(expected.getOrderId())))
+                    mismatches.add(expected);
+            }
+            return mismatches;
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error verifying order summaries.", e);
+        }
+    }
+
+    private Map<Integer, OrderSummary> loadByIds(Connection connection, String sql, Collection<Integer> ids) throws SQLException
+    {
+        Map<Integer, OrderSummary> summaries = new HashMap<>();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            for (int id : ids)
+                ps.setInt(index++, id);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    OrderSummary summary = mapRow(row);
+                    summaries.put(summary.getOrderId(), summary);
+                }
+            }
+        }
+
+        return summaries;
+    }
+
+    private OrderSummary mapRow(ResultSet row) throws SQLException
+    {
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(row.getInt("order_id"));
+        summary.setUserId(row.getInt("user_id"));
+        summary.setItemCount(row.getInt("item_count"));
+        summary.setSubtotal(row.getBigDecimal("subtotal"));
+        summary.setDiscount(row.getBigDecimal("discount"));
+        summary.setShippingAmount(row.getBigDecimal("shipping_amount"));
+        summary.setGrandTotal(row.getBigDecimal("grand_total"));
+        return summary;
+    }
+}
@@ -1,8 +1,12 @@
 
 package org.yearup.data.mysql;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.yearup.data.ProductChangedEvent;
 import org.yearup.data.ProductDao;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.SingleFlight;
 import org.yearup.models.Product;
 
 import javax.sql.DataSource;
@@ -14,9 +18,20 @@ import java.util.List;
 @Component
 public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 {
-    public MySqlProductDao(DataSource dataSource)
+    private final ApplicationEventPublisher events;
+
+    // Concurrent identical reads share one query (see SingleFlight)
+    private final SingleFlight<Integer, Product> byId;
+    private final SingleFlight<Integer, List<Product>> byCategory;
+
+    // Every write publishes a ProductChangedEvent (see ProductIndex)
+    public MySqlProductDao(DataSource dataSource, ApplicationEventPublisher events, CacheRegistry cacheRegistry)
     {
         super(dataSource);
+        this.events = events;
+        this.byId = cacheRegistry.register(new SingleFlight<>("products.byId", MySqlProductDao::copy));
+        this.byCategory = cacheRegistry.register(new SingleFlight<>("products.byCategory",
+                products -> products.stream().map(MySqlProductDao::copy).toList()));
     }
 
     @Override
@@ -88,6 +103,11 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
     @Override
     public List<Product> listByCategoryId(int categoryId)
+    {
+        return byCategory.run(categoryId, this::queryByCategoryId);
+    }
+
+    private List<Product> queryByCategoryId(int categoryId)
     {
         // Return all products that match ONE category id
         List<Product> products = new ArrayList<>();
@@ -117,6 +137,11 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 
     @Override
     public Product getById(int productId)
+    {
+        return byId.run(productId, this::queryById);
+    }
+
+    private Product queryById(int productId)
     {
         String sql = "SELECT * FROM products WHERE product_id = ?;";
 
@@ -150,28 +175,43 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
                 VALUES (?, ?, ?, ?, ?, ?, ?, ?);
                 """;
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        int newId;
+
+        try (Connection connection = getConnection())
         {
-            statement.setString(1, product.getName());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getCategoryId());
-            statement.setString(4, product.getDescription());
-            statement.setString(5, product.getSubCategory());
-            statement.setString(6, product.getImageUrl());
-            statement.setInt(7, product.getStock());
-            statement.setBoolean(8, product.isFeatured());
-
-            statement.executeUpdate();
-
-            // Get the newly created product_id
-            try (ResultSet keys = statement.getGeneratedKeys())
+            // The product and its change log row (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
             {
-                if (keys.next())
+                statement.setString(1, product.getName());
+                statement.setBigDecimal(2, product.getPrice());
+                statement.setInt(3, product.getCategoryId());
+                statement.setString(4, product.getDescription());
+                statement.setString(5, product.getSubCategory());
+                statement.setString(6, product.getImageUrl());
+                statement.setInt(7, product.getStock());
+                statement.setBoolean(8, product.isFeatured());
+
+                statement.executeUpdate();
+
+                // Get the newly created product_id
+                try (ResultSet keys = statement.getGeneratedKeys())
                 {
-                    int newId = keys.getInt(1);
-                    return getById(newId);
+                    if (!keys.next())
+                    {
+                        connection.rollback();
+                        return null;
+                    }
+                    newId = keys.getInt(1);
                 }
+
+                MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, newId, false);
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
             }
         }
         catch (SQLException e)
@@ -179,7 +219,10 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
             throw new RuntimeException("Error creating product.", e);
         }
 
-        return null;
+        byCategory.forgetAll();
+        Product created = getById(newId);
+        events.publishEvent(new ProductChangedEvent(newId, created));
+        return created;
     }
 
     @Override
@@ -200,25 +243,43 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
                  WHERE product_id = ?;
                 """;
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql))
+        try (Connection connection = getConnection())
         {
-            statement.setString(1, product.getName());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getCategoryId());
-            statement.setString(4, product.getDescription());
-            statement.setString(5, product.getSubCategory());
-            statement.setString(6, product.getImageUrl());
-            statement.setInt(7, product.getStock());
-            statement.setBoolean(8, product.isFeatured());
-            statement.setInt(9, productId);
-
-            statement.executeUpdate();
+            // The row and its change log row (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                statement.setString(1, product.getName());
+                statement.setBigDecimal(2, product.getPrice());
+                statement.setInt(3, product.getCategoryId());
+                statement.setString(4, product.getDescription());
+                statement.setString(5, product.getSubCategory());
+                statement.setString(6, product.getImageUrl());
+                statement.setInt(7, product.getStock());
+                statement.setBoolean(8, product.isFeatured());
+                statement.setInt(9, productId);
+
+                if (statement.executeUpdate() > 0)
+                    MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, productId, false);
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
         }
         catch (SQLException e)
         {
             throw new RuntimeException("Error updating product id=" + productId, e);
         }
+
+        forget(productId);
+
+        // publish the row as stored, not the request body
+        Product updated = getById(productId);
+        if (updated != null)
+            events.publishEvent(new ProductChangedEvent(productId, updated));
     }
 
     @Override
@@ -226,16 +287,45 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
     {
         String sql = "DELETE FROM products WHERE product_id = ?;";
 
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql))
+        try (Connection connection = getConnection())
         {
-            statement.setInt(1, productId);
-            statement.executeUpdate();
+            // The delete and its tombstone (GET /catalog/changes) commit together
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                statement.setInt(1, productId);
+
+                if (statement.executeUpdate() > 0)
+                    MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, productId, true);
+                connection.commit();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
         }
         catch (SQLException e)
         {
             throw new RuntimeException("Error deleting product id=" + productId, e);
         }
+
+        forget(productId);
+        events.publishEvent(new ProductChangedEvent(productId, null));
+    }
+
+    // Reads that started before a write must not be joined after it
+    private void forget(int productId)
+    {
+        byId.forget(productId);
+        byCategory.forgetAll();
+    }
+
+    // Callers that joined an in-flight read get their own copy
+    private static Product copy(Product p)
+    {
+        return new Product(p.getProductId(), p.getName(), p.getPrice(), p.getCategoryId(), p.getDescription(),
+                           p.getSubCategory(), p.getStock(), p.isFeatured(), p.getImageUrl());
     }
 
     // Convert a SQL row into a Product object
@@ -65,13 +65,29 @@ public class MySqlProfileDao extends MySqlDaoBase implements ProfileDao
     */
     @Override
     public Profile create(Profile profile)
+    {
+        try (Connection connection = getConnection())
+        {
+            insertProfile(connection, profile);
+            return profile;
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error creating profile.", e);
+        }
+    }
+
+    /*
+     Insert the profile row on the caller's connection.
+     Registration uses this so the user and profile rows share one transaction.
+    */
+    static void insertProfile(Connection connection, Profile profile) throws SQLException
     {
         String sql =
                 "INSERT INTO profiles (user_id, first_name, last_name, phone, email, address, city, state, zip) " +
                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);";
 
-        try (Connection connection = getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql))
+        try (PreparedStatement ps = connection.prepareStatement(sql))
         {
             // Insert profile values into the database
             ps.setInt(1, profile.getUserId());
@@ -85,11 +101,6 @@ public class MySqlProfileDao extends MySqlDaoBase implements ProfileDao
             ps.setString(9, profile.getZip());
 
             ps.executeUpdate();
-            return profile;
-        }
-        catch (SQLException e)
-        {
-            throw new RuntimeException("Error creating profile.", e);
         }
     }
 
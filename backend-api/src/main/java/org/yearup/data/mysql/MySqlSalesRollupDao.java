@@ -0,0 +1,354 @@
+package org.yearup.data.mysql;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.SalesRollupDao;
+import org.yearup.models.SalesTotals;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains and reads the sales rollups (sales_hourly, sales_daily).
+ *
+ * Orders are added in order_id batches past a high-water mark kept in
+ * rollup_watermarks. Each batch (both rollups + the new mark) is one
+ * transaction, so every order is counted exactly once even if the job
+ * dies halfway. Reads only touch the rollup tables.
+ */
+@Component
+public class MySqlSalesRollupDao extends MySqlDaoBase implements SalesRollupDao
+{
+    private static final String WATERMARK = "sales";
+
+    // %1$s = table, %2$s = bucket column, %3$s = bucket expression over o.placed_at
+    private static final String ROLLUP_SQL = """
+            INSERT INTO %1$s (%2$s, product_id, category_id, order_count, units, gross_sales, discount, net_sales)
+            SELECT %3$s AS bucket,
+                   oli.product_id,
+                   p.category_id,
+                   COUNT(DISTINCT oli.order_id),
+                   SUM(oli.quantity),
+                   SUM(oli.sales_price * oli.quantity),
+                   SUM(ROUND(oli.sales_price * oli.quantity * oli.discount, 2)),
+                   SUM(oli.sales_price * oli.quantity) - SUM(ROUND(oli.sales_price * oli.quantity * oli.discount, 2))
+            FROM orders o
+            JOIN order_line_items oli ON oli.order_id = o.order_id
+            JOIN products p ON p.product_id = oli.product_id
+            WHERE o.order_id > ? AND o.order_id <= ?
+            GROUP BY bucket, oli.product_id, p.category_id
+            ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count),
+                                    units = units + VALUES(units),
+                                    gross_sales = gross_sales + VALUES(gross_sales),
+                                    discount = discount + VALUES(discount),
+                                    net_sales = net_sales + VALUES(net_sales),
+                                    category_id = VALUES(category_id);
+            """;
+
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    public MySqlSalesRollupDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    /**
+     * Only orders older than settleSeconds are taken: order ids are handed
+     * out at INSERT but become visible at COMMIT, so a just-placed order
+     * with a lower id could still be in flight behind a higher, visible one.
+     */
+    @Override
+    public int rollUpNextBatch(int batchSize, int settleSeconds)
+    {
+        String boundSql = """
+                SELECT MAX(order_id) AS last_id, COUNT(*) AS orders
+                FROM (
+                    SELECT order_id
+                    FROM orders
+                    WHERE order_id > ?
+                      AND placed_at < NOW() - INTERVAL ? SECOND
+                    ORDER BY order_id
+                    LIMIT ?
+                ) batch;
+                """;
+
+        try (Connection connection = getConnection())
+        {
+            connection.setAutoCommit(false);
+            try
+            {
+                // row lock on the mark: two instances can't add the same batch
+                int after = lockWatermark(connection);
+
+                int lastId;
+                int orders;
+                try (PreparedStatement ps = connection.prepareStatement(boundSql))
+                {
+                    ps.setInt(1, after);
+                    ps.setInt(2, settleSeconds);
+                    ps.setInt(3, batchSize);
+
+                    try (ResultSet row = ps.executeQuery())
+                    {
+                        row.next();
+                        lastId = row.getInt("last_id");
+                        orders = row.getInt("orders");
+                    }
+                }
+
+                if (orders == 0)
+                {
+                    connection.commit();
+                    return 0;
+                }
+
+                rollUp(connection, ROLLUP_SQL.formatted("sales_hourly", "bucket_start",
+                        "DATE_FORMAT(o.placed_at, '%Y-%m-%d %H:00:00')"), after, lastId);
+                rollUp(connection, ROLLUP_SQL.formatted("sales_daily", "bucket_date",
+                        "DATE(o.placed_at)"), after, lastId);
+
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE rollup_watermarks SET last_order_id = ? WHERE name = ?;"))
+                {
+                    ps.setInt(1, lastId);
+                    ps.setString(2, WATERMARK);
+                    ps.executeUpdate();
+                }
+
+                connection.commit();
+                return orders;
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error rolling up sales.", e);
+        }
+    }
+
+    @Override
+    public int getHighWaterMark()
+    {
+        String sql = "SELECT last_order_id FROM rollup_watermarks WHERE name = ?;";
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setString(1, WATERMARK);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                return row.next() ? row.getInt("last_order_id") : 0;
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading the sales rollup high-water mark.", e);
+        }
+    }
+
+    @Override
+    public List<SalesTotals> getSalesByHour(LocalDate from, LocalDate to)
+    {
+        String sql = """
+                SELECT bucket_start, SUM(units) AS units, SUM(gross_sales) AS gross_sales,
+                       SUM(discount) AS discount, SUM(net_sales) AS net_sales
+                FROM sales_hourly
+                WHERE bucket_start >= ? AND bucket_start < ?
+                GROUP BY bucket_start
+                ORDER BY bucket_start;
+                """;
+
+        List<SalesTotals> totals = new ArrayList<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+            ps.setTimestamp(2, Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    SalesTotals hour = mapTotals(row);
+                    hour.setPeriod(row.getTimestamp("bucket_start").toLocalDateTime().format(HOUR));
+                    totals.add(hour);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading hourly sales.", e);
+        }
+
+        return totals;
+    }
+
+    @Override
+    public List<SalesTotals> getSalesByDay(LocalDate from, LocalDate to)
+    {
+        String sql = """
+                SELECT bucket_date, SUM(units) AS units, SUM(gross_sales) AS gross_sales,
+                       SUM(discount) AS discount, SUM(net_sales) AS net_sales
+                FROM sales_daily
+                WHERE bucket_date BETWEEN ? AND ?
+                GROUP BY bucket_date
+                ORDER BY bucket_date;
+                """;
+
+        List<SalesTotals> totals = new ArrayList<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    SalesTotals day = mapTotals(row);
+                    day.setPeriod(row.getDate("bucket_date").toLocalDate().toString());
+                    totals.add(day);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading daily sales.", e);
+        }
+
+        return totals;
+    }
+
+    @Override
+    public List<SalesTotals> getSalesByCategory(LocalDate from, LocalDate to)
+    {
+        String sql = """
+                SELECT category_id, SUM(units) AS units, SUM(gross_sales) AS gross_sales,
+                       SUM(discount) AS discount, SUM(net_sales) AS net_sales
+                FROM sales_daily
+                WHERE bucket_date BETWEEN ? AND ?
+                GROUP BY category_id
+                ORDER BY net_sales DESC, category_id;
+                """;
+
+        List<SalesTotals> totals = new ArrayList<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    SalesTotals category = mapTotals(row);
+                    category.setCategoryId(row.getInt("category_id"));
+                    totals.add(category);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading sales by category.", e);
+        }
+
+        return totals;
+    }
+
+    @Override
+    public List<SalesTotals> getTopProducts(LocalDate from, LocalDate to, int limit)
+    {
+        String sql = """
+                SELECT product_id, SUM(order_count) AS order_count, SUM(units) AS units,
+                       SUM(gross_sales) AS gross_sales, SUM(discount) AS discount, SUM(net_sales) AS net_sales
+                FROM sales_daily
+                WHERE bucket_date BETWEEN ? AND ?
+                GROUP BY product_id
+                ORDER BY net_sales DESC, product_id
+                LIMIT ?;
+                """;
+
+        List<SalesTotals> totals = new ArrayList<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setDate(1, Date.valueOf(from));
+            ps.setDate(2, Date.valueOf(to));
+            ps.setInt(3, limit);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    SalesTotals product = mapTotals(row);
+                    product.setProductId(row.getInt("product_id"));
+                    product.setOrderCount(row.getInt("order_count"));
+                    totals.add(product);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error reading top products.", e);
+        }
+
+        return totals;
+    }
+
+    // Returns the mark, creating it (at 0) the first time
+    private static int lockWatermark(Connection connection) throws SQLException
+    {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT IGNORE INTO rollup_watermarks (name, last_order_id) VALUES (?, 0);"))
+        {
+            ps.setString(1, WATERMARK);
+            ps.executeUpdate();
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT last_order_id FROM rollup_watermarks WHERE name = ? FOR UPDATE;"))
+        {
+            ps.setString(1, WATERMARK);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                row.next();
+                return row.getInt("last_order_id");
+            }
+        }
+    }
+
+    private static void rollUp(Connection connection, String sql, int afterOrderId, int lastOrderId) throws SQLException
+    {
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, afterOrderId);
+            ps.setInt(2, lastOrderId);
+            ps.executeUpdate();
+        }
+    }
+
+    private static SalesTotals mapTotals(ResultSet row) throws SQLException
+    {
+        SalesTotals totals = new SalesTotals();
+        totals.setUnits(row.getInt("units"));
+        totals.setGrossSales(row.getBigDecimal("gross_sales"));
+        totals.setDiscount(row.getBigDecimal("discount"));
+        totals.setNetSales(row.getBigDecimal("net_sales"));
+        return totals;
+    }
+}
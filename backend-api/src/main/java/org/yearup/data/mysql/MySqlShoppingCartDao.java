@@ -2,10 +2,11 @@
 package org.yearup.data.mysql;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
-import org.yearup.data.ProductDao;
+import org.yearup.data.CartChangedEvent;
 import org.yearup.data.ShoppingCartDao;
-import org.yearup.models.Product;
+import org.yearup.models.CartQuantityUpdate;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
 
@@ -14,59 +15,33 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 @Component
 public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDao
 {
-    private final ProductDao productDao;
+    private final ApplicationEventPublisher events;
 
+    public MySqlShoppingCartDao(DataSource dataSource)
+    {
+        this(dataSource, event -> { });
+    }
+
+    // Every cart write publishes a CartChangedEvent (see CartStreamBroadcaster)
     @Autowired
-    public MySqlShoppingCartDao(DataSource dataSource, ProductDao productDao)
+    public MySqlShoppingCartDao(DataSource dataSource, ApplicationEventPublisher events)
     {
         super(dataSource);
-        this.productDao = productDao;
+        this.events = events;
     }
 
     @Override
     public ShoppingCart getByUserId(int userId)
     {
-        ShoppingCart cart = new ShoppingCart();
-        Map<Integer, ShoppingCartItem> items = new HashMap<>();
-
-        String sql = """
-                SELECT sc.product_id, sc.quantity
-                FROM shopping_cart sc
-                WHERE sc.user_id = ?
-                ORDER BY sc.product_id
-                """;
-
-        try (Connection connection = getConnection();
-             PreparedStatement ps = connection.prepareStatement(sql))
+        // One JOIN instead of a product lookup per cart line
+        try (Connection connection = getConnection())
         {
-            ps.setInt(1, userId);
-
-            try (ResultSet rs = ps.executeQuery())
-            {
-                while (rs.next())
-                {
-                    int productId = rs.getInt("product_id");
-                    int qty = rs.getInt("quantity");
-
-                    Product product = productDao.getById(productId);
-                    if (product == null) continue; // skip bad rows if any
-
-                    ShoppingCartItem item = new ShoppingCartItem();
-                    item.setProduct(product);
-                    item.setQuantity(qty);
-
-                    items.put(productId, item);
-                }
-            }
-
-            cart.setItems(items);
-            return cart;
+            return loadCart(connection, userId);
         }
         catch (SQLException e)
         {
@@ -74,14 +49,19 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         }
     }
 
+    /**
+     * Adds one unit and returns the new quantity without reading the cart back.
+     * LAST_INSERT_ID(expr) hands the updated quantity back on the same connection;
+     * an affected-row count of 1 means the row was just inserted with quantity 1.
+     */
     @Override
-    public void addProductToCart(int userId, int productId)
+    public int addProductToCart(int userId, int productId)
     {
         // if row exists -> quantity + 1, else insert with 1
         String sql = """
                 INSERT INTO shopping_cart (user_id, product_id, quantity)
                 VALUES (?, ?, 1)
-                ON DUPLICATE KEY UPDATE quantity = quantity + 1
+                ON DUPLICATE KEY UPDATE quantity = LAST_INSERT_ID(quantity + 1)
                 """;
 
         try (Connection connection = getConnection();
@@ -89,7 +69,24 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         {
             ps.setInt(1, userId);
             ps.setInt(2, productId);
-            ps.executeUpdate();
+
+            int quantity;
+            if (ps.executeUpdate() == 1)
+            {
+                quantity = 1; // new row
+            }
+            else
+            {
+                try (PreparedStatement last = connection.prepareStatement("SELECT LAST_INSERT_ID();");
+                     ResultSet rs = last.executeQuery())
+                {
+                    rs.next();
+                    quantity = rs.getInt(1);
+                }
+            }
+
+            events.publishEvent(new CartChangedEvent(userId));
+            return quantity;
         }
         catch (SQLException e)
         {
@@ -132,6 +129,8 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
                     ps.executeUpdate();
                 }
             }
+
+            events.publishEvent(new CartChangedEvent(userId));
         }
         catch (SQLException e)
         {
@@ -139,6 +138,104 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         }
     }
 
+    /**
+     * Batch version of updateProductQuantity (PATCH /cart).
+     * One connection, one transaction: all UPDATEs and DELETEs go out as two
+     * batches, then the resulting cart is read back on the same connection
+     * with a single JOIN, so the caller sees exactly what was committed.
+     */
+    @Override
+    public ShoppingCart updateProductQuantities(int userId, List<CartQuantityUpdate> updates)
+    {
+        String updateSql = """
+                UPDATE shopping_cart
+                SET quantity = ?
+                WHERE user_id = ?
+                AND product_id = ?""";
+
+        String deleteSql = """
+                DELETE FROM shopping_cart
+                WHERE user_id = ?
+                AND product_id = ?""";
+
+        try (Connection connection = getConnection())
+        {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement update = connection.prepareStatement(updateSql);
+                 PreparedStatement delete = connection.prepareStatement(deleteSql))
+            {
+                // quantity 0 (or less) removes the line, same as the single PUT
+                for (CartQuantityUpdate change : updates)
+                {
+                    if (change.getQuantity() <= 0)
+                    {
+                        delete.setInt(1, userId);
+                        delete.setInt(2, change.getProductId());
+                        delete.addBatch();
+                    }
+                    else
+                    {
+                        update.setInt(1, change.getQuantity());
+                        update.setInt(2, userId);
+                        update.setInt(3, change.getProductId());
+                        update.addBatch();
+                    }
+                }
+
+                update.executeBatch();
+                delete.executeBatch();
+
+                ShoppingCart cart = loadCart(connection, userId);
+                connection.commit();
+                events.publishEvent(new CartChangedEvent(userId));
+                return cart;
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error updating cart quantities for userId=" + userId, e);
+        }
+    }
+
+    // Reads the whole cart with its products in ONE query on the given connection
+    private ShoppingCart loadCart(Connection connection, int userId) throws SQLException
+    {
+        String sql = """
+                SELECT p.*, sc.quantity
+                FROM shopping_cart sc
+                JOIN products p ON p.product_id = sc.product_id
+                WHERE sc.user_id = ?
+                ORDER BY sc.product_id
+                """;
+
+        ShoppingCart cart = new ShoppingCart();
+
+        try (PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            ps.setInt(1, userId);
+
+            try (ResultSet rs = ps.executeQuery())
+            {
+                while (rs.next())
+                {
+                    ShoppingCartItem item = new ShoppingCartItem();
+                    item.setProduct(MySqlProductDao.mapRow(rs));
+                    item.setQuantity(rs.getInt("quantity"));
+
+                    cart.add(item);
+                }
+            }
+        }
+
+        return cart;
+    }
+
     @Override
     public ShoppingCartItem getItemByUserAndProduct(int userId, int productId)
     {
@@ -181,6 +278,7 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         {
             ps.setInt(1, userId);
             ps.executeUpdate();
+            events.publishEvent(new CartChangedEvent(userId));
         }
         catch (SQLException e)
         {
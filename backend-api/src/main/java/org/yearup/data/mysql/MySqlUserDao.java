@@ -1,8 +1,10 @@
 package org.yearup.data.mysql;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 import org.yearup.data.UserDao;
+import org.yearup.models.Profile;
 import org.yearup.models.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
@@ -24,30 +26,88 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
     @Override
     public User create(User newUser)
     {
-        String sql = "INSERT INTO users (username, hashed_password, role) VALUES (?, ?, ?)";
         String hashedPassword = new BCryptPasswordEncoder().encode(newUser.getPassword());
 
         try (Connection connection = getConnection())
         {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, newUser.getUsername());
-            ps.setString(2, hashedPassword);
-            ps.setString(3, newUser.getRole());
+            return insertUser(connection, newUser, hashedPassword);
+        }
+        catch (SQLException e)
+        {
+            throw translate(e, newUser.getUsername());
+        }
+    }
 
-            ps.executeUpdate();
+    /**
+     * Registration in ONE transaction on ONE connection:
+     * insert the user, then the profile using the generated user_id.
+     * The unique index on users.username decides duplicates (no exists() pre-check,
+     * so two concurrent sign-ups for the same name can't both get through).
+     * Throws DuplicateKeyException when the username is taken.
+     */
+    @Override
+    public User createWithProfile(User newUser, Profile profile)
+    {
+        // BCrypt is slow on purpose: hash before taking a connection from the pool
+        String hashedPassword = new BCryptPasswordEncoder().encode(newUser.getPassword());
 
-            User user = getByUserName(newUser.getUsername());
-            user.setPassword("");
+        try (Connection connection = getConnection())
+        {
+            connection.setAutoCommit(false);
+            try
+            {
+                User user = insertUser(connection, newUser, hashedPassword);
 
-            return user;
+                profile.setUserId(user.getId());
+                MySqlProfileDao.insertProfile(connection, profile);
 
+                connection.commit();
+                return user;
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
         }
         catch (SQLException e)
         {
-            throw new RuntimeException(e);
+            throw translate(e, newUser.getUsername());
         }
     }
 
+    // Inserts the users row and builds the result from the generated key (no read-back)
+    private User insertUser(Connection connection, User newUser, String hashedPassword) throws SQLException
+    {
+        String sql = "INSERT INTO users (username, hashed_password, role) VALUES (?, ?, ?)";
+
+        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        {
+            ps.setString(1, newUser.getUsername());
+            ps.setString(2, hashedPassword);
+            ps.setString(3, newUser.getRole());
+
+            ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys())
+            {
+                if (!keys.next())
+                    throw new SQLException("Failed to create user (no ID returned).");
+
+                return new User(keys.getInt(1), newUser.getUsername(), "", newUser.getRole());
+            }
+        }
+    }
+
+    // MySQL error 1062 = duplicate entry for a unique key (here: uq_users_username)
+    private RuntimeException translate(SQLException e, String username)
+    {
+        if (e instanceof SQLIntegrityConstraintViolationException && e.getErrorCode() == 1062)
+            return new DuplicateKeyException("User already exists: " + username, e);
+
+        return new RuntimeException(e);
+    }
+
     @Override
     public List<User> getAll()
     {
@@ -120,7 +180,8 @@ public class MySqlUserDao extends MySqlDaoBase implements UserDao
         }
         catch (SQLException e)
         {
-            System.out.println(e);
+            // Don't turn a database error into "no such user": that would be cached as a miss
+            throw new RuntimeException(e);
         }
 
         return null;
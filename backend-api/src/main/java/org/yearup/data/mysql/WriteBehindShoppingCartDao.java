@@ -0,0 +1,637 @@
+package org.yearup.data.mysql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CartChangedEvent;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.CartQuantityUpdate;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind cart store (cart.write-behind.enabled=true).
+ *
+ * Active carts live in a bounded in-memory map. Each mutation updates the
+ * cart under its own lock (so one user's clicks stay in order), is appended
+ * to the local CartMutationLog, and marks the cart dirty. A background flusher
+ * runs every few milliseconds and writes ONLY the final quantity of every
+ * changed line, for every dirty cart, in one transaction with batched statements.
+ * Ten clicks on "+" between flushes become one row write.
+ *
+ * Checkout calls flush(userId) first so the order is built from what is in MySQL.
+ * This store assumes a single API instance owns the carts.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindShoppingCartDao extends MySqlDaoBase implements ShoppingCartDao
+{
+    private final Logger log = LoggerFactory.getLogger(WriteBehindShoppingCartDao.class);
+
+    private static final String LOAD_SQL = "SELECT product_id, quantity FROM shopping_cart WHERE user_id = ?;";
+    private static final String CLEAR_SQL = "DELETE FROM shopping_cart WHERE user_id = ?;";
+    private static final String DELETE_SQL = "DELETE FROM shopping_cart WHERE user_id = ? AND product_id = ?;";
+    private static final String UPSERT_SQL = """
+            INSERT INTO shopping_cart (user_id, product_id, quantity)
+            VALUES (?, ?, ?)
+            ON DUPLICATE KEY UPDATE quantity = VALUES(quantity);
+            """;
+
+    private final ApplicationEventPublisher events;
+    private final CartMutationLog mutationLog;
+    private final long flushIntervalMs;
+    private final int maxCarts;
+
+    private final Map<Integer, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    // Flushes (scheduled or forced by checkout) and evictions never overlap
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private ScheduledExecutorService flusher;
+
+    // Write amplification stats: mutations accepted vs. rows / transactions sent to MySQL
+    private final AtomicLong mutations = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+
+    public WriteBehindShoppingCartDao(DataSource dataSource,
+                                      ApplicationEventPublisher events,
+                                      @Value("${cart.write-behind.log-dir:cart-log}") String logDir,
+                                      @Value("${cart.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+                                      @Value("${cart.write-behind.max-carts:10000}") int maxCarts)
+    {
+        super(dataSource);
+        this.events = events;
+        this.mutationLog = new CartMutationLog(Paths.get(logDir));
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxCarts = maxCarts;
+    }
+
+    /**
+     * Replays whatever the log still holds from the last run, then starts the flusher.
+     * If the replay can't be written we fail startup rather than lose cart changes.
+     */
+    @PostConstruct
+    public void start()
+    {
+        int segments = mutationLog.pendingSegments();
+        if (segments > 0)
+        {
+            Set<Integer> cleared = new HashSet<>();
+            Map<Integer, Map<Integer, Integer>> state = mutationLog.replay(cleared);
+
+            Map<PendingWrite, CartState> writes = new LinkedHashMap<>();
+            state.forEach((userId, lines) ->
+                    writes.put(new PendingWrite(userId, cleared.contains(userId), lines), new CartState()));
+
+            if (!writeBatch(writes))
+                throw new IllegalStateException("Could not replay the cart log, is the database up?");
+
+            mutationLog.checkpoint(segments);
+            log.info("Recovered {} cart(s) from {} cart log segment(s).", writes.size(), segments);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread thread = new Thread(r, "cart-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException
+    {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flushAll();
+        mutationLog.close();
+    }
+
+    @Override
+    public ShoppingCart getByUserId(int userId)
+    {
+        Map<Integer, Integer> quantities = read(userId, cart -> new TreeMap<>(cart.quantities));
+        // One query for every line's product, not one lookup per line
+        Map<Integer, Product> products = loadProducts(quantities.keySet());
+
+        ShoppingCart cart = new ShoppingCart();
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet())
+        {
+            Product product = products.get(line.getKey());
+            if (product == null) continue; // skip bad rows if any
+
+            ShoppingCartItem item = new ShoppingCartItem();
+            item.setProduct(product);
+            item.setQuantity(line.getValue());
+            cart.add(item);
+        }
+
+        return cart;
+    }
+
+    @Override
+    public ShoppingCartItem getItemByUserAndProduct(int userId, int productId)
+    {
+        Integer quantity = read(userId, cart -> cart.quantities.get(productId));
+        if (quantity == null)
+            return null;
+
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Override
+    public int addProductToCart(int userId, int productId)
+    {
+        return mutate(userId, cart ->
+        {
+            int quantity = cart.quantities.getOrDefault(productId, 0) + 1;
+            set(userId, cart, productId, quantity);
+            return quantity;
+        });
+    }
+
+    @Override
+    public void updateProductQuantity(int userId, int productId, int quantity)
+    {
+        mutate(userId, cart ->
+        {
+            // Like the UPDATE it replaces: only changes lines already in the cart
+            if (cart.quantities.containsKey(productId))
+                set(userId, cart, productId, quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public ShoppingCart updateProductQuantities(int userId, List<CartQuantityUpdate> updates)
+    {
+        // All changes land under one cart lock, so the next flush sees them together
+        mutate(userId, cart ->
+        {
+            for (CartQuantityUpdate change : updates)
+            {
+                if (cart.quantities.containsKey(change.getProductId()))
+                    set(userId, cart, change.getProductId(), change.getQuantity());
+            }
+            return null;
+        });
+
+        return getByUserId(userId);
+    }
+
+    @Override
+    public void clearCart(int userId)
+    {
+        mutate(userId, cart ->
+        {
+            cart.quantities.clear();
+            cart.dirty.clear();
+            cart.cleared = true;
+            mutationLog.appendClear(userId);
+            return null;
+        });
+    }
+
+    /**
+     * Forced flush of one user's pending changes (checkout calls this first).
+     */
+    @Override
+    public void flush(int userId)
+    {
+        flushLock.lock();
+        try
+        {
+            CartState cart = carts.get(userId);
+            if (cart == null)
+                return;
+
+            PendingWrite pending = snapshot(userId, cart);
+            if (pending == null)
+                return;
+
+            try
+            {
+                write(List.of(pending));
+            }
+            catch (SQLException e)
+            {
+                restore(pending, cart);
+                throw new RuntimeException("Error flushing cart for userId=" + userId, e);
+            }
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * One flush cycle: rotate the log, collect every dirty cart, write them
+     * all in one transaction, then drop the log segments that are now in MySQL.
+     */
+    void flushAll()
+    {
+        flushLock.lock();
+        try
+        {
+            if (!dirtyUsers.isEmpty())
+            {
+                int segments = mutationLog.rotate();
+
+                Map<PendingWrite, CartState> batch = new LinkedHashMap<>();
+                for (Iterator<Integer> it = dirtyUsers.iterator(); it.hasNext(); )
+                {
+                    int userId = it.next();
+                    it.remove();
+
+                    CartState cart = carts.get(userId);
+                    PendingWrite pending = cart == null ? null : snapshot(userId, cart);
+                    if (pending != null)
+                        batch.put(pending, cart);
+                }
+
+                if (writeBatch(batch))
+                    mutationLog.checkpoint(segments);
+            }
+
+            evictIdleCarts();
+        }
+        catch (Exception e)
+        {
+            log.error("Cart flush failed.", e);
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    public long getMutationCount() { return mutations.get(); }
+    public long getRowsWritten() { return rowsWritten.get(); }
+    public long getTransactionCount() { return transactions.get(); }
+    public int getActiveCartCount() { return carts.size(); }
+
+    /**
+     * Writes the batch as one transaction. If that fails, each cart is retried
+     * on its own so one bad row (e.g. a product deleted since it was added) can't
+     * hold everyone back. Constraint violations won't fix themselves, so those
+     * changes are dropped; anything else (database down, timeout) is put back.
+     * Returns true when nothing is left pending, i.e. the log may be checkpointed.
+     */
+    private boolean writeBatch(Map<PendingWrite, CartState> batch)
+    {
+        if (batch.isEmpty())
+            return true;
+
+        try
+        {
+            write(new ArrayList<>(batch.keySet()));
+            return true;
+        }
+        catch (SQLException e)
+        {
+            log.warn("Batched cart flush of {} cart(s) failed, retrying one by one.", batch.size(), e);
+        }
+
+        boolean allWritten = true;
+        for (Map.Entry<PendingWrite, CartState> entry : batch.entrySet())
+        {
+            PendingWrite pending = entry.getKey();
+            try
+            {
+                write(List.of(pending));
+            }
+            catch (SQLException e)
+            {
+                if (isConstraintViolation(e))
+                {
+                    log.error("Dropping cart changes MySQL rejects for userId={}.", pending.userId, e);
+                    discard(pending.userId, entry.getValue());
+                }
+                else
+                {
+                    restore(pending, entry.getValue());
+                    allWritten = false;
+                }
+            }
+        }
+        return allWritten;
+    }
+
+    private static boolean isConstraintViolation(SQLException e)
+    {
+        // SQLState class 23 = integrity constraint violation (FK, NOT NULL, ...)
+        return e instanceof SQLIntegrityConstraintViolationException
+                || e.getCause() instanceof SQLIntegrityConstraintViolationException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+
+    void write(List<PendingWrite> writes) throws SQLException
+    {
+        try (Connection connection = getConnection())
+        {
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement clear = connection.prepareStatement(CLEAR_SQL);
+                 PreparedStatement delete = connection.prepareStatement(DELETE_SQL);
+                 PreparedStatement upsert = connection.prepareStatement(UPSERT_SQL))
+            {
+                int rows = 0;
+                for (PendingWrite pending : writes)
+                {
+                    if (pending.cleared)
+                    {
+                        clear.setInt(1, pending.userId);
+                        clear.addBatch();
+                    }
+
+                    for (Map.Entry<Integer, Integer> line : pending.lines.entrySet())
+                    {
+                        if (line.getValue() > 0)
+                        {
+                            upsert.setInt(1, pending.userId);
+                            upsert.setInt(2, line.getKey());
+                            upsert.setInt(3, line.getValue());
+                            upsert.addBatch();
+                        }
+                        else
+                        {
+                            delete.setInt(1, pending.userId);
+                            delete.setInt(2, line.getKey());
+                            delete.addBatch();
+                        }
+                        rows++;
+                    }
+                }
+
+                // Clears first: lines changed after a clear must survive it
+                clear.executeBatch();
+                delete.executeBatch();
+                upsert.executeBatch();
+                connection.commit();
+
+                rowsWritten.addAndGet(rows);
+                transactions.incrementAndGet();
+            }
+            catch (SQLException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void set(int userId, CartState cart, int productId, int quantity)
+    {
+        int newQuantity = Math.max(quantity, 0);
+
+        if (newQuantity == 0)
+            cart.quantities.remove(productId);
+        else
+            cart.quantities.put(productId, newQuantity);
+
+        cart.dirty.put(productId, newQuantity);
+        mutationLog.appendSet(userId, productId, newQuantity);
+    }
+
+    private <T> T read(int userId, Function<CartState, T> reader)
+    {
+        while (true)
+        {
+            CartState cart = carts.computeIfAbsent(userId, this::load);
+            synchronized (cart)
+            {
+                if (cart.evicted) continue;
+                cart.lastAccess = System.nanoTime();
+                return reader.apply(cart);
+            }
+        }
+    }
+
+    private <T> T mutate(int userId, Function<CartState, T> mutation)
+    {
+        T result = mutateLocked(userId, mutation);
+
+        // outside the cart lock: listeners read the cart back
+        events.publishEvent(new CartChangedEvent(userId));
+        return result;
+    }
+
+    private <T> T mutateLocked(int userId, Function<CartState, T> mutation)
+    {
+        while (true)
+        {
+            CartState cart = carts.computeIfAbsent(userId, this::load);
+            synchronized (cart)
+            {
+                if (cart.evicted) continue; // lost a race with eviction, load again
+                cart.lastAccess = System.nanoTime();
+
+                // Dirty BEFORE the mutation appends to the log: a flush that rotates and
+                // checkpoints the segment holding this record must also take this cart.
+                // If it picks the user up early, its snapshot waits for this lock.
+                dirtyUsers.add(userId);
+                T result = mutation.apply(cart);
+                mutations.incrementAndGet();
+                return result;
+            }
+        }
+    }
+
+    // Takes the cart's pending changes and resets them (null if there is nothing to write)
+    private PendingWrite snapshot(int userId, CartState cart)
+    {
+        synchronized (cart)
+        {
+            if (cart.dirty.isEmpty() && !cart.cleared)
+                return null;
+
+            PendingWrite pending = new PendingWrite(userId, cart.cleared, new HashMap<>(cart.dirty));
+            cart.dirty.clear();
+            cart.cleared = false;
+            return pending;
+        }
+    }
+
+    // Puts a failed write back, without overwriting anything the user changed since
+    private void restore(PendingWrite pending, CartState cart)
+    {
+        synchronized (cart)
+        {
+            // a newer clear already supersedes everything in the failed write
+            if (!cart.cleared)
+            {
+                pending.lines.forEach(cart.dirty::putIfAbsent);
+                cart.cleared = pending.cleared;
+            }
+        }
+        dirtyUsers.add(pending.userId);
+    }
+
+    // Forgets the in-memory cart so the next access reloads what MySQL really has
+    private void discard(int userId, CartState cart)
+    {
+        synchronized (cart)
+        {
+            cart.evicted = true;
+            carts.remove(userId, cart);
+        }
+    }
+
+    /**
+     * Keeps the map bounded: when over maxCarts, evicts the least recently
+     * used CLEAN carts (dirty ones wait for their flush) down to 90% of the limit.
+     */
+    private void evictIdleCarts()
+    {
+        if (carts.size() <= maxCarts)
+            return;
+
+        List<Map.Entry<Integer, CartState>> candidates = new ArrayList<>(carts.entrySet());
+        candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+
+        int target = maxCarts - maxCarts / 10;
+        for (Map.Entry<Integer, CartState> entry : candidates)
+        {
+            if (carts.size() <= target)
+                break;
+
+            CartState cart = entry.getValue();
+            synchronized (cart)
+            {
+                if (!cart.dirty.isEmpty() || cart.cleared || dirtyUsers.contains(entry.getKey()))
+                    continue;
+
+                cart.evicted = true;
+                carts.remove(entry.getKey(), cart);
+            }
+        }
+    }
+
+    private CartState load(int userId)
+    {
+        CartState cart = new CartState();
+        cart.quantities.putAll(loadQuantities(userId));
+        return cart;
+    }
+
+    // What MySQL has for one cart: productId -> quantity
+    Map<Integer, Integer> loadQuantities(int userId)
+    {
+        Map<Integer, Integer> quantities = new HashMap<>();
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(LOAD_SQL))
+        {
+            ps.setInt(1, userId);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    quantities.put(row.getInt("product_id"), row.getInt("quantity"));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving cart for userId=" + userId, e);
+        }
+
+        return quantities;
+    }
+
+    /**
+     * The products behind a cart's lines in one query. Not a JOIN against
+     * shopping_cart like MySqlShoppingCartDao: the quantities here are newer
+     * than what MySQL has until the next flush.
+     */
+    Map<Integer, Product> loadProducts(Collection<Integer> productIds)
+    {
+        Map<Integer, Product> products = new HashMap<>();
+        if (productIds.isEmpty())
+            return products;
+
+        String sql = "SELECT * FROM products WHERE product_id IN ("
+                + String.join(",", Collections.nCopies(productIds.size(), "?")) + ");";
+
+        try (Connection connection = getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql))
+        {
+            int index = 1;
+            for (int productId : productIds)
+                ps.setInt(index++, productId);
+
+            try (ResultSet row = ps.executeQuery())
+            {
+                while (row.next())
+                {
+                    Product product = MySqlProductDao.mapRow(row);
+                    products.put(product.getProductId(), product);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error retrieving cart products.", e);
+        }
+
+        return products;
+    }
+
+    // In-memory state for one user's cart; guarded by synchronized (cart)
+    private static class CartState
+    {
+        // what the user sees: productId -> quantity
+        private final Map<Integer, Integer> quantities = new TreeMap<>();
+        // not yet in MySQL: productId -> final quantity (0 = delete)
+        private final Map<Integer, Integer> dirty = new HashMap<>();
+        // a clear is pending (applied before the dirty lines)
+        private boolean cleared;
+        private boolean evicted;
+        private volatile long lastAccess = System.nanoTime();
+    }
+
+    // One cart's changes taken out for a flush
+    static class PendingWrite
+    {
+        final int userId;
+        final boolean cleared;
+        final Map<Integer, Integer> lines;
+
+        PendingWrite(int userId, boolean cleared, Map<Integer, Integer> lines)
+        {
+            this.userId = userId;
+            this.cleared = cleared;
+            this.lines = lines;
+        }
+    }
+}
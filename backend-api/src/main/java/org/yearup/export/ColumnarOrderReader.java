@@ -0,0 +1,210 @@
+package org.yearup.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.yearup.export.ColumnarOrderWriter.*;
+
+/**
+ * Reads the segments ColumnarOrderWriter produced, without a database.
+ *
+ * Each segment is memory-mapped and its columns are decoded side by side,
+ * row by row, straight into a LineItemVisitor. For example, net sales:
+ *
+ *   long[] net = new long[1];
+ *   new ColumnarOrderReader(dir).scan((order, user, day, product, qty, price, discount) ->
+ *           net[0] += price * qty - discount);
+ */
+public class ColumnarOrderReader
+{
+    private final Path directory;
+
+    public ColumnarOrderReader(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Segment files in order_id order.
+     */
+    public List<Path> segments()
+    {
+        if (!Files.isDirectory(directory))
+            return List.of();
+
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(p -> p.getFileName().toString().startsWith(PREFIX)
+                                     && p.getFileName().toString().endsWith(SUFFIX))
+                        .sorted()
+                        .toList();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not list order segments in " + directory, e);
+        }
+    }
+
+    /**
+     * The highest order_id exported so far (0 if nothing is), from the segment names.
+     */
+    public int getLastOrderId()
+    {
+        List<Path> segments = segments();
+        if (segments.isEmpty())
+            return 0;
+
+        String name = segments.get(segments.size() - 1).getFileName().toString();
+        return Integer.parseInt(name.substring(name.lastIndexOf('-') + 1, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Visits every exported line item, oldest order first. Returns the number of rows.
+     */
+    public long scan(LineItemVisitor visitor)
+    {
+        long rows = 0;
+        for (Path segment : segments())
+            rows += scan(segment, visitor);
+        return rows;
+    }
+
+    // ---- a few ready-made aggregates ----
+
+    public long totalNetCents()
+    {
+        long[] net = new long[1];
+        scan((orderId, userId, epochDay, productId, quantity, priceCents, discountCents) ->
+                net[0] += priceCents * quantity - discountCents);
+        return net[0];
+    }
+
+    public Map<LocalDate, Long> netCentsByDay()
+    {
+        // keyed by epoch day while scanning; one LocalDate per day at the end
+        Map<Long, Long> byDay = new TreeMap<>();
+        scan((orderId, userId, epochDay, productId, quantity, priceCents, discountCents) ->
+                byDay.merge(epochDay, priceCents * quantity - discountCents, Long::sum));
+
+        Map<LocalDate, Long> result = new TreeMap<>();
+        byDay.forEach((day, cents) -> result.put(LocalDate.ofEpochDay(day), cents));
+        return result;
+    }
+
+    public Map<Integer, Long> unitsByProduct()
+    {
+        Map<Integer, Long> units = new HashMap<>();
+        scan((orderId, userId, epochDay, productId, quantity, priceCents, discountCents) ->
+                units.merge(productId, (long) quantity, Long::sum));
+        return units;
+    }
+
+    private static long scan(Path segment, LineItemVisitor visitor)
+    {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ))
+        {
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not map order segment " + segment, e);
+        }
+
+        if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION)
+            throw new IllegalStateException("Not a version " + VERSION + " order segment: " + segment);
+
+        int rowCount = file.getInt(12);
+        int firstOrderId = file.getInt(16);
+        long baseEpochDay = file.getLong(24);
+        int userWidth = file.get(40);
+        int productWidth = file.get(41);
+
+        int[] userDict = readInts(section(file, USER_DICT));
+        int[] productDict = readInts(section(file, PRODUCT_DICT));
+        ByteBuffer orderIds = section(file, ORDER_ID);
+        ByteBuffer days = section(file, DAY);
+        ByteBuffer userCodes = section(file, USER_CODE);
+        ByteBuffer productCodes = section(file, PRODUCT_CODE);
+        ByteBuffer quantities = section(file, QUANTITY);
+        ByteBuffer prices = section(file, PRICE_CENTS);
+        ByteBuffer discounts = section(file, DISCOUNT_CENTS);
+
+        int orderId = firstOrderId;
+        long day = baseEpochDay;
+
+        for (int row = 0; row < rowCount; row++)
+        {
+            orderId += (int) readVarint(orderIds);
+            day += unzigzag(readVarint(days));
+
+            visitor.visit(orderId,
+                          userDict[readCode(userCodes, userWidth)],
+                          day,
+                          productDict[readCode(productCodes, productWidth)],
+                          (int) readVarint(quantities),
+                          prices.getLong(),
+                          discounts.getLong());
+        }
+
+        return rowCount;
+    }
+
+    private static ByteBuffer section(ByteBuffer file, int section)
+    {
+        int entry = HEADER_SIZE + section * 8;
+        int offset = file.getInt(entry);
+        int length = file.getInt(entry + 4);
+        return file.duplicate().position(offset).limit(offset + length).slice();
+    }
+
+    private static int[] readInts(ByteBuffer buffer)
+    {
+        int[] values = new int[buffer.remaining() / 4];
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+
+    private static long readVarint(ByteBuffer buffer)
+    {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do
+        {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unzigzag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readCode(ByteBuffer buffer, int width)
+    {
+        return switch (width)
+        {
+            case 1 -> buffer.get() & 0xFF;
+            case 2 -> buffer.getShort() & 0xFFFF;
+            default -> buffer.getInt();
+        };
+    }
+}
@@ -0,0 +1,223 @@
+package org.yearup.export;
+
+import org.yearup.models.Cents;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes a batch of orders as one columnar segment file.
+ *
+ * One row per line item; every column is stored on its own, so a reader
+ * that only needs prices and quantities never touches the rest. Layout
+ * (big-endian):
+ *
+ *   header (64 bytes)   magic, version, orderCount, rowCount, firstOrderId,
+ *                       lastOrderId, baseEpochDay, dictionary sizes, code widths
+ *   section table       9 x (int offset, int length)
+ *   USER_DICT           sorted distinct user ids (int)
+ *   PRODUCT_DICT        sorted distinct product ids (int)
+ *   ORDER_ID            delta from the previous row (varint; 0 = same order)
+ *   DAY                 epoch day, delta from the previous row (zigzag varint)
+ *   USER_CODE           index into USER_DICT (1, 2 or 4 bytes, whatever fits)
+ *   PRODUCT_CODE        index into PRODUCT_DICT (1, 2 or 4 bytes)
+ *   QUANTITY            varint
+ *   PRICE_CENTS         unit price in cents (long)
+ *   DISCOUNT_CENTS      line discount amount in cents (long)
+ *
+ * Segments are named orders-{firstOrderId}-{lastOrderId}.col and appear
+ * atomically (written to a temp file, then renamed).
+ */
+public final class ColumnarOrderWriter
+{
+    static final int MAGIC = 0x4F524443; // "ORDC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int SECTIONS = 9;
+
+    static final int USER_DICT = 0;
+    static final int PRODUCT_DICT = 1;
+    static final int ORDER_ID = 2;
+    static final int DAY = 3;
+    static final int USER_CODE = 4;
+    static final int PRODUCT_CODE = 5;
+    static final int QUANTITY = 6;
+    static final int PRICE_CENTS = 7;
+    static final int DISCOUNT_CENTS = 8;
+
+    static final String PREFIX = "orders-";
+    static final String SUFFIX = ".col";
+
+    private ColumnarOrderWriter()
+    {
+    }
+
+    /**
+     * Writes the orders (in order_id order) as a new segment and returns its path.
+     */
+    public static Path write(Path directory, List<Order> orders)
+    {
+        if (orders.isEmpty())
+            throw new IllegalArgumentException("Nothing to export.");
+
+        int firstOrderId = orders.get(0).getOrderId();
+        int lastOrderId = orders.get(orders.size() - 1).getOrderId();
+
+        int rowCount = 0;
+        for (Order order : orders)
+            rowCount += order.getItems().size();
+
+        int[] userDict = orders.stream().mapToInt(Order::getUserId).distinct().sorted().toArray();
+        int[] productDict = orders.stream()
+                                  .flatMap(o -> o.getItems().stream())
+                                  .mapToInt(OrderLineItem::getProductId)
+                                  .distinct().sorted().toArray();
+        int userWidth = widthFor(userDict.length);
+        int productWidth = widthFor(productDict.length);
+
+        long baseEpochDay = orders.get(0).getDate().toEpochDay();
+
+        ByteArrayOutputStream[] sections = new ByteArrayOutputStream[SECTIONS];
+        for (int i = 0; i < SECTIONS; i++)
+            sections[i] = new ByteArrayOutputStream();
+
+        for (int userId : userDict)
+            writeInt(sections[USER_DICT], userId);
+        for (int productId : productDict)
+            writeInt(sections[PRODUCT_DICT], productId);
+
+        int previousOrderId = firstOrderId;
+        long previousDay = baseEpochDay;
+
+        for (Order order : orders)
+        {
+            long day = order.getDate().toEpochDay();
+            int userCode = Arrays.binarySearch(userDict, order.getUserId());
+
+            for (OrderLineItem item : order.getItems())
+            {
+                writeVarint(sections[ORDER_ID], order.getOrderId() - previousOrderId);
+                writeVarint(sections[DAY], zigzag(day - previousDay));
+                writeCode(sections[USER_CODE], userCode, userWidth);
+                writeCode(sections[PRODUCT_CODE], Arrays.binarySearch(productDict, item.getProductId()), productWidth);
+                writeVarint(sections[QUANTITY], item.getQuantity());
+
+                long priceCents = Cents.of(item.getSalesPrice());
+                writeLong(sections[PRICE_CENTS], priceCents);
+                writeLong(sections[DISCOUNT_CENTS], discountCents(item, priceCents));
+
+                previousOrderId = order.getOrderId();
+                previousDay = day;
+            }
+        }
+
+        // header + section table, then the sections back to back
+        int tableSize = SECTIONS * 8;
+        int offset = HEADER_SIZE + tableSize;
+        ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE + tableSize);
+        head.putInt(MAGIC)
+            .putInt(VERSION)
+            .putInt(orders.size())
+            .putInt(rowCount)
+            .putInt(firstOrderId)
+            .putInt(lastOrderId)
+            .putLong(baseEpochDay)
+            .putInt(userDict.length)
+            .putInt(productDict.length)
+            .put((byte) userWidth)
+            .put((byte) productWidth);
+        head.position(HEADER_SIZE);
+        for (ByteArrayOutputStream section : sections)
+        {
+            head.putInt(offset).putInt(section.size());
+            offset += section.size();
+        }
+        head.flip();
+
+        Path target = directory.resolve(segmentName(firstOrderId, lastOrderId));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try
+        {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+            {
+                while (head.hasRemaining())
+                    channel.write(head);
+                for (ByteArrayOutputStream section : sections)
+                {
+                    ByteBuffer bytes = ByteBuffer.wrap(section.toByteArray());
+                    while (bytes.hasRemaining())
+                        channel.write(bytes);
+                }
+                channel.force(true);
+            }
+            return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Could not write order segment " + target, e);
+        }
+    }
+
+    static String segmentName(int firstOrderId, int lastOrderId)
+    {
+        // zero padded so a plain name sort is also order_id order
+        return String.format("%s%010d-%010d%s", PREFIX, firstOrderId, lastOrderId, SUFFIX);
+    }
+
+    // same rounding as order_summaries: price * quantity * rate, to the cent
+    private static long discountCents(OrderLineItem item, long priceCents)
+    {
+        return Cents.applyRate(priceCents * item.getQuantity(), Cents.rateOf(item.getDiscount()));
+    }
+
+    private static int widthFor(int dictionarySize)
+    {
+        if (dictionarySize <= 0xFF)
+            return 1;
+        if (dictionarySize <= 0xFFFF)
+            return 2;
+        return 4;
+    }
+
+    private static long zigzag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeCode(ByteArrayOutputStream out, int code, int width)
+    {
+        for (int shift = (width - 1) * 8; shift >= 0; shift -= 8)
+            out.write((code >>> shift) & 0xFF);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value)
+    {
+        writeCode(out, value, 4);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value)
+    {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+}
@@ -0,0 +1,13 @@
+package org.yearup.export;
+
+/**
+ * Called once per exported line item by ColumnarOrderReader.scan.
+ * Everything is a primitive so a scan allocates nothing per row.
+ * Money is in cents; discountCents is the line's discount amount.
+ */
+@FunctionalInterface
+public interface LineItemVisitor
+{
+    void visit(int orderId, int userId, long epochDay, int productId,
+               int quantity, long unitPriceCents, long discountCents);
+}
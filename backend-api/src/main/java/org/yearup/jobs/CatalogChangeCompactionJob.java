@@ -0,0 +1,42 @@
+package org.yearup.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CatalogChangeDao;
+
+/**
+ * Keeps catalog_changes at about one row per product / category by
+ * dropping rows that a newer change to the same thing supersedes.
+ */
+@Component
+public class CatalogChangeCompactionJob
+{
+    private final Logger log = LoggerFactory.getLogger(CatalogChangeCompactionJob.class);
+
+    private final CatalogChangeDao catalogChangeDao;
+
+    public CatalogChangeCompactionJob(CatalogChangeDao catalogChangeDao)
+    {
+        this.catalogChangeDao = catalogChangeDao;
+    }
+
+    @Scheduled(initialDelayString = "${catalog.changes.compact-interval-ms:3600000}",
+               fixedDelayString = "${catalog.changes.compact-interval-ms:3600000}")
+    public int compact()
+    {
+        try
+        {
+            int removed = catalogChangeDao.compact();
+            if (removed > 0)
+                log.info("Catalog change log compacted: {} superseded row(s) removed.", removed);
+            return removed;
+        }
+        catch (Exception e)
+        {
+            log.error("Catalog change log compaction failed; it runs again next interval.", e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.yearup.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.OrderDao;
+import org.yearup.export.ColumnarOrderReader;
+import org.yearup.export.ColumnarOrderWriter;
+import org.yearup.models.Order;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Exports new orders to columnar segment files for offline analytics
+ * (read them with ColumnarOrderReader, no database needed).
+ *
+ * The high-water mark is the last order_id in the newest segment's name;
+ * a segment only appears once it is completely written, so a crash
+ * mid-export just redoes that batch.
+ */
+@Component
+@ConditionalOnProperty(name = "export.orders.enabled", havingValue = "true")
+public class OrderExportJob
+{
+    private final Logger log = LoggerFactory.getLogger(OrderExportJob.class);
+
+    private final OrderDao orderDao;
+    private final Path directory;
+    private final int ordersPerSegment;
+    private final int settleSeconds;
+
+    public OrderExportJob(OrderDao orderDao,
+                          @Value("${export.orders.dir:order-export}") String directory,
+                          @Value("${export.orders.orders-per-segment:10000}") int ordersPerSegment,
+                          @Value("${export.orders.settle-seconds:60}") int settleSeconds)
+    {
+        this.orderDao = orderDao;
+        this.directory = Path.of(directory);
+        this.ordersPerSegment = ordersPerSegment;
+        this.settleSeconds = settleSeconds;
+    }
+
+    @Scheduled(initialDelayString = "${export.orders.interval-ms:300000}",
+               fixedDelayString = "${export.orders.interval-ms:300000}")
+    public int export()
+    {
+        int segments = 0;
+
+        try
+        {
+            int after = new ColumnarOrderReader(directory).getLastOrderId();
+
+            List<Order> orders;
+            while (!(orders = orderDao.getOrdersAfter(after, ordersPerSegment, settleSeconds)).isEmpty())
+            {
+                Path segment = ColumnarOrderWriter.write(directory, orders);
+                after = orders.get(orders.size() - 1).getOrderId();
+                segments++;
+                log.debug("Exported {} order(s) to {}.", orders.size(), segment);
+            }
+
+            if (segments > 0)
+                log.info("Order export wrote {} segment(s), up to order {}.", segments, after);
+        }
+        catch (Exception e)
+        {
+            log.error("Order export stopped after {} segment(s); it resumes from the last complete one.", segments, e);
+        }
+
+        return segments;
+    }
+}
@@ -0,0 +1,98 @@
+package org.yearup.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.OrderSummaryDao;
+import org.yearup.models.OrderSummary;
+
+import java.util.List;
+
+/**
+ * Background jobs for the order_summaries read model:
+ * - backfill: once at startup, writes summaries for orders placed before the table existed
+ * - verify: periodically re-derives a random sample and logs any drift
+ */
+@Component
+public class OrderSummaryJobs
+{
+    private final Logger log = LoggerFactory.getLogger(OrderSummaryJobs.class);
+
+    private final OrderSummaryDao orderSummaryDao;
+    private final boolean backfillOnStartup;
+    private final int batchSize;
+    private final int sampleSize;
+
+    public OrderSummaryJobs(OrderSummaryDao orderSummaryDao,
+                            @Value("${order-summaries.backfill-on-startup:true}") boolean backfillOnStartup,
+                            @Value("${order-summaries.backfill-batch-size:500}") int batchSize,
+                            @Value("${order-summaries.verify-sample-size:50}") int sampleSize)
+    {
+        this.orderSummaryDao = orderSummaryDao;
+        this.backfillOnStartup = backfillOnStartup;
+        this.batchSize = batchSize;
+        this.sampleSize = sampleSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup()
+    {
+        if (backfillOnStartup)
+            backfill();
+    }
+
+    /**
+     * Walks orders in order_id batches until every order has a summary.
+     * Each batch is one INSERT ... SELECT, so a restart just starts over
+     * and skips whatever is already there.
+     */
+    public int backfill()
+    {
+        int cursor = 0;
+        int batches = 0;
+
+        try
+        {
+            while ((cursor = orderSummaryDao.backfill(cursor, batchSize)) != -1)
+            {
+                batches++;
+            }
+            log.info("Order summary backfill finished after {} batch(es).", batches);
+        }
+        catch (Exception e)
+        {
+            log.error("Order summary backfill stopped after {} batch(es).", batches, e);
+        }
+
+        return batches;
+    }
+
+    @Scheduled(initialDelayString = "${order-summaries.verify-interval-ms:3600000}",
+               fixedDelayString = "${order-summaries.verify-interval-ms:3600000}")
+    public void verify()
+    {
+        try
+        {
+            List<OrderSummary> mismatches = orderSummaryDao.verifySample(sampleSize);
+
+            if (mismatches.isEmpty())
+            {
+                log.debug("Order summary verification: sample of {} matched.", sampleSize);
+                return;
+            }
+
+            for (OrderSummary expected : mismatches)
+            {
+                log.warn("Order summary drift for order {}: expected {}", expected.getOrderId(), expected);
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Order summary verification failed.", e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.yearup.jobs;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.yearup.data.SalesRollupDao;
+
+/**
+ * Keeps sales_hourly / sales_daily current: every interval, adds the orders
+ * placed since the last run, batch by batch, until it has caught up
+ * (or hit max-batches-per-run, leaving the rest for the next run).
+ */
+@Component
+public class SalesRollupJob
+{
+    private final Logger log = LoggerFactory.getLogger(SalesRollupJob.class);
+
+    private final SalesRollupDao salesRollupDao;
+    private final int batchSize;
+    private final int settleSeconds;
+    private final int maxBatchesPerRun;
+
+    public SalesRollupJob(SalesRollupDao salesRollupDao,
+                          @Value("${analytics.rollup.batch-size:500}") int batchSize,
+                          @Value("${analytics.rollup.settle-seconds:60}") int settleSeconds,
+                          @Value("${analytics.rollup.max-batches-per-run:100}") int maxBatchesPerRun)
+    {
+        this.salesRollupDao = salesRollupDao;
+        this.batchSize = batchSize;
+        this.settleSeconds = settleSeconds;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${analytics.rollup.interval-ms:60000}",
+               fixedDelayString = "${analytics.rollup.interval-ms:60000}")
+    public int rollUp()
+    {
+        int orders = 0;
+        int batches = 0;
+
+        try
+        {
+            int added;
+            while (batches < maxBatchesPerRun && (added = salesRollupDao.rollUpNextBatch(batchSize, settleSeconds)) > 0)
+            {
+                orders += added;
+                batches++;
+            }
+
+            if (orders > 0)
+                log.info("Sales rollup added {} order(s) in {} batch(es).", orders, batches);
+        }
+        catch (Exception e)
+        {
+            log.error("Sales rollup stopped after {} batch(es); it resumes from the last committed batch.", batches, e);
+        }
+
+        return orders;
+    }
+}
@@ -0,0 +1,36 @@
+package org.yearup.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything the storefront needs for its first page (GET /bootstrap).
+ *
+ * cart and profile are only filled in for a logged-in user. Any part that
+ * could not be loaded in time is null and named in incomplete
+ * ("categories", "products", "cart", "profile"), so the page can fetch
+ * just that part on its own.
+ */
+public class Bootstrap
+{
+    private List<Category> categories;
+    private List<Product> products;
+    private ShoppingCart cart;
+    private Profile profile;
+    private List<String> incomplete = new ArrayList<>();
+
+    public List<Category> getCategories() { return categories; }
+    public void setCategories(List<Category> categories) { this.categories = categories; }
+
+    public List<Product> getProducts() { return products; }
+    public void setProducts(List<Product> products) { this.products = products; }
+
+    public ShoppingCart getCart() { return cart; }
+    public void setCart(ShoppingCart cart) { this.cart = cart; }
+
+    public Profile getProfile() { return profile; }
+    public void setProfile(Profile profile) { this.profile = profile; }
+
+    public List<String> getIncomplete() { return incomplete; }
+    public void setIncomplete(List<String> incomplete) { this.incomplete = incomplete; }
+}
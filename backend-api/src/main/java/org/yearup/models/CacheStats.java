@@ -0,0 +1,58 @@
+package org.yearup.models;
+
+/**
+ * Point-in-time counters for one in-process cache (GET /admin/caches).
+ */
+public class CacheStats
+{
+    private String name;
+    private int size;
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public CacheStats()
+    {
+    }
+
+    public CacheStats(String name, int size, long hits, long negativeHits, long misses, long evictions, long expirations)
+    {
+        this.name = name;
+        this.size = size;
+        this.hits = hits;
+        this.negativeHits = negativeHits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    // hits include negativeHits (lookups answered with "does not exist")
+    public long getHits() { return hits; }
+    public void setHits(long hits) { this.hits = hits; }
+
+    public long getNegativeHits() { return negativeHits; }
+    public void setNegativeHits(long negativeHits) { this.negativeHits = negativeHits; }
+
+    public long getMisses() { return misses; }
+    public void setMisses(long misses) { this.misses = misses; }
+
+    public long getEvictions() { return evictions; }
+    public void setEvictions(long evictions) { this.evictions = evictions; }
+
+    public long getExpirations() { return expirations; }
+    public void setExpirations(long expirations) { this.expirations = expirations; }
+
+    public double getHitRatio()
+    {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,41 @@
+package org.yearup.models;
+
+/**
+ * Minimal cart response ("Prefer: return=minimal"):
+ * just the line that changed and its new quantity.
+ */
+public class CartItemDelta
+{
+    private int productId;
+    private int quantity;
+
+    public CartItemDelta()
+    {
+    }
+
+    public CartItemDelta(int productId, int quantity)
+    {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public int getQuantity()
+    {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity)
+    {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,132 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The items of a cart, keyed by product id.
+ *
+ * Carts hold a handful of lines, so this is two parallel arrays kept sorted
+ * by product id (binary search on an int[]) instead of a HashMap with boxed
+ * keys and entry objects. Serializes like the map it replaces:
+ * {"12": {...item...}, "40": {...}}.
+ */
+@JsonSerialize(using = CartItemMap.Serializer.class)
+public class CartItemMap implements Iterable<ShoppingCartItem>
+{
+    private int[] productIds = new int[4];
+    private ShoppingCartItem[] items = new ShoppingCartItem[4];
+    private int size;
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean containsKey(int productId)
+    {
+        return indexOf(productId) >= 0;
+    }
+
+    public ShoppingCartItem get(int productId)
+    {
+        int index = indexOf(productId);
+        return index >= 0 ? items[index] : null;
+    }
+
+    /**
+     * Adds the item, or replaces the one already there for its product.
+     */
+    public void put(int productId, ShoppingCartItem item)
+    {
+        int index = indexOf(productId);
+        if (index >= 0)
+        {
+            items[index] = item;
+            return;
+        }
+
+        int insertAt = -(index + 1);
+        if (size == productIds.length)
+        {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+        }
+        System.arraycopy(productIds, insertAt, productIds, insertAt + 1, size - insertAt);
+        System.arraycopy(items, insertAt, items, insertAt + 1, size - insertAt);
+        productIds[insertAt] = productId;
+        items[insertAt] = item;
+        size++;
+    }
+
+    public int productIdAt(int index)
+    {
+        return productIds[index];
+    }
+
+    public ShoppingCartItem itemAt(int index)
+    {
+        return items[index];
+    }
+
+    @Override
+    public Iterator<ShoppingCartItem> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < size;
+            }
+
+            @Override
+            public ShoppingCartItem next()
+            {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                return items[next++];
+            }
+        };
+    }
+
+    private int indexOf(int productId)
+    {
+        return Arrays.binarySearch(productIds, 0, size, productId);
+    }
+
+    static class Serializer extends StdSerializer<CartItemMap>
+    {
+        Serializer()
+        {
+            super(CartItemMap.class);
+        }
+
+        @Override
+        public void serialize(CartItemMap map, JsonGenerator gen, SerializerProvider provider) throws IOException
+        {
+            gen.writeStartObject(map);
+            for (int i = 0; i < map.size; i++)
+            {
+                // a string key on every format; writeFieldId is an integer key in CBOR
+                gen.writeFieldName(String.valueOf(map.productIds[i]));
+                provider.defaultSerializeValue(map.items[i], gen);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
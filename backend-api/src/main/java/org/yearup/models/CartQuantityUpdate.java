@@ -0,0 +1,41 @@
+package org.yearup.models;
+
+/**
+ * One line of a batch cart change (PATCH /cart):
+ * set productId to quantity, 0 removes it from the cart.
+ */
+public class CartQuantityUpdate
+{
+    private int productId;
+    private int quantity;
+
+    public CartQuantityUpdate()
+    {
+    }
+
+    public CartQuantityUpdate(int productId, int quantity)
+    {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public int getQuantity()
+    {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity)
+    {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,42 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the catalog change feed (GET /catalog/changes).
+ * Pass version back as since for the next poll; while hasMore is true
+ * there are further changes waiting right away. Empty lists are left out,
+ * so "nothing changed" is just the version.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class CatalogChanges
+{
+    private long version;
+    private boolean hasMore;
+    private List<Product> products = new ArrayList<>();
+    private List<Integer> deletedProductIds = new ArrayList<>();
+    private List<Category> categories = new ArrayList<>();
+    private List<Integer> deletedCategoryIds = new ArrayList<>();
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+
+    // added or updated since the requested version, as they are now
+    public List<Product> getProducts() { return products; }
+    public void setProducts(List<Product> products) { this.products = products; }
+
+    public List<Integer> getDeletedProductIds() { return deletedProductIds; }
+    public void setDeletedProductIds(List<Integer> deletedProductIds) { this.deletedProductIds = deletedProductIds; }
+
+    public List<Category> getCategories() { return categories; }
+    public void setCategories(List<Category> categories) { this.categories = categories; }
+
+    public List<Integer> getDeletedCategoryIds() { return deletedCategoryIds; }
+    public void setDeletedCategoryIds(List<Integer> deletedCategoryIds) { this.deletedCategoryIds = deletedCategoryIds; }
+}
@@ -0,0 +1,61 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a long number of cents.
+ *
+ * Cart and order totals are added up in cents; BigDecimal is only used where
+ * money enters or leaves the app (JDBC, JSON). Discount rates (0.10 = 10%)
+ * are kept as millionths so applying one is plain long math too.
+ */
+public final class Cents
+{
+    public static final long RATE_SCALE = 1_000_000;
+
+    private Cents()
+    {
+    }
+
+    /**
+     * 19.99 -> 1999 (half-up past the cent; null is 0).
+     */
+    public static long of(BigDecimal amount)
+    {
+        if (amount == null)
+            return 0;
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 1999 -> 19.99
+     */
+    public static BigDecimal toDecimal(long cents)
+    {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 0.10 -> 100000 (millionths; null is 0).
+     */
+    public static long rateOf(BigDecimal rate)
+    {
+        if (rate == null)
+            return 0;
+        return rate.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * cents * rate, rounded half-up to the cent: the same as
+     * ROUND(amount * rate, 2) in SQL.
+     */
+    public static long applyRate(long cents, long rate)
+    {
+        long scaled = Math.multiplyExact(cents, rate);
+        long half = RATE_SCALE / 2;
+        return scaled >= 0
+                ? (scaled + half) / RATE_SCALE
+                : -((-scaled + half) / RATE_SCALE);
+    }
+}
@@ -0,0 +1,28 @@
+package org.yearup.models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of a user's order history.
+ * The "next" fields are the keyset cursor for the following page
+ * (pass them back as beforeDate / beforeId). They are null on the last page.
+ */
+public class OrderPage
+{
+    private List<Order> orders = new ArrayList<>();
+    private LocalDate nextBeforeDate;
+    private Integer nextBeforeId;
+
+    public List<Order> getOrders() { return orders; }
+    public void setOrders(List<Order> orders) { this.orders = orders; }
+
+    public LocalDate getNextBeforeDate() { return nextBeforeDate; }
+    public void setNextBeforeDate(LocalDate nextBeforeDate) { this.nextBeforeDate = nextBeforeDate; }
+
+    public Integer getNextBeforeId() { return nextBeforeId; }
+    public void setNextBeforeId(Integer nextBeforeId) { this.nextBeforeId = nextBeforeId; }
+
+    public boolean isHasMore() { return nextBeforeId != null; }
+}
@@ -0,0 +1,101 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Precomputed totals for one order (the order_summaries read model).
+ * Written at checkout so "my account" and dashboards never have to
+ * aggregate order_line_items on read.
+ */
+public class OrderSummary
+{
+    private int orderId;
+    private int userId;
+    private int itemCount;
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    private BigDecimal discount = BigDecimal.ZERO;
+    private BigDecimal shippingAmount = BigDecimal.ZERO;
+    private BigDecimal grandTotal = BigDecimal.ZERO;
+
+    /**
+     * Derives the summary from an order and its line items.
+     * The per-line discount is rounded to cents the same way the SQL
+     * backfill does (ROUND(price * qty * discount, 2)) so both paths agree.
+     */
+    public static OrderSummary fromOrder(Order order)
+    {
+        // added up in cents; BigDecimal only for the values we hand back
+        int itemCount = 0;
+        long subtotal = 0;
+        long discount = 0;
+
+        for (OrderLineItem item : order.getItems())
+        {
+            long lineTotal = Cents.of(item.getSalesPrice()) * item.getQuantity();
+
+            itemCount += item.getQuantity();
+            subtotal += lineTotal;
+            discount += Cents.applyRate(lineTotal, Cents.rateOf(item.getDiscount()));
+        }
+
+        long shipping = Cents.of(order.getShippingAmount());
+
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(order.getOrderId());
+        summary.setUserId(order.getUserId());
+        summary.setItemCount(itemCount);
+        summary.setSubtotal(Cents.toDecimal(subtotal));
+        summary.setDiscount(Cents.toDecimal(discount));
+        summary.setShippingAmount(Cents.toDecimal(shipping));
+        summary.setGrandTotal(Cents.toDecimal(subtotal - discount + shipping));
+        return summary;
+    }
+
+    public int getOrderId() { return orderId; }
+    public void setOrderId(int orderId) { this.orderId = orderId; }
+
+    public int getUserId() { return userId; }
+    public void setUserId(int userId) { this.userId = userId; }
+
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+
+    public BigDecimal getDiscount() { return discount; }
+    public void setDiscount(BigDecimal discount) { this.discount = discount; }
+
+    public BigDecimal getShippingAmount() { return shippingAmount; }
+    public void setShippingAmount(BigDecimal shippingAmount) { this.shippingAmount = shippingAmount; }
+
+    public BigDecimal getGrandTotal() { return grandTotal; }
+    public void setGrandTotal(BigDecimal grandTotal) { this.grandTotal = grandTotal; }
+
+    // Money is compared by value (10.0 == 10.00) so verification ignores scale
+    public boolean sameTotals(OrderSummary other)
+    {
+        return other != null
+                && orderId == other.orderId
+                && userId == other.userId
+                && itemCount == other.itemCount
+                && subtotal.compareTo(other.subtotal) == 0
+                && discount.compareTo(other.discount) == 0
+                && shippingAmount.compareTo(other.shippingAmount) == 0
+                && grandTotal.compareTo(other.grandTotal) == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OrderSummary{" +
+                "orderId=" + orderId +
+                ", userId=" + userId +
+                ", itemCount=" + itemCount +
+                ", subtotal=" + subtotal +
+                ", discount=" + discount +
+                ", shippingAmount=" + shippingAmount +
+                ", grandTotal=" + grandTotal +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of products priced in [min, max); max is null for the open top bucket.
+ */
+public class PriceBucketCount
+{
+    private BigDecimal min;
+    private BigDecimal max;
+    private int count;
+
+    public PriceBucketCount()
+    {
+    }
+
+    public PriceBucketCount(BigDecimal min, BigDecimal max, int count)
+    {
+        this.min = min;
+        this.max = max;
+        this.count = count;
+    }
+
+    public BigDecimal getMin() { return min; }
+    public void setMin(BigDecimal min) { this.min = min; }
+
+    public BigDecimal getMax() { return max; }
+    public void setMax(BigDecimal max) { this.max = max; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
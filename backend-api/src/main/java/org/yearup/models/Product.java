@@ -1,9 +1,15 @@
 package org.yearup.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.math.BigDecimal;
+import java.util.function.UnaryOperator;
 
 public class Product
 {
+    // imageUrl -> the grid's thumbnail URL; set by Thumbnails at startup, which knows the sizes and the source hashes
+    private static volatile UnaryOperator<String> thumbnailUrls = imageUrl -> null;
+
     private int productId;
     private String name;
     private BigDecimal price;
@@ -120,4 +126,20 @@ public class Product
     {
         this.imageUrl = imageUrl;
     }
+
+    // The image resized for the product grid (see ThumbnailController); sent
+    // with the product, ignored when one is posted
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public String getThumbnailUrl()
+    {
+        if (imageUrl == null || imageUrl.isBlank())
+            return null;
+
+        return thumbnailUrls.apply(imageUrl);
+    }
+
+    public static void setThumbnailUrls(UnaryOperator<String> thumbnailUrls)
+    {
+        Product.thumbnailUrls = thumbnailUrls;
+    }
 }
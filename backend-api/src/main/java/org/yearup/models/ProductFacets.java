@@ -0,0 +1,36 @@
+package org.yearup.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts for the product filter UI (GET /products/facets).
+ *
+ * total is the number of products matching every filter. Each facet list is
+ * counted with every filter EXCEPT its own, so the UI can show how many
+ * products picking a different option would return.
+ */
+public class ProductFacets
+{
+    private int total;
+    private long version;
+    private List<FacetCount> categories = new ArrayList<>();
+    private List<FacetCount> subCategories = new ArrayList<>();
+    private List<PriceBucketCount> priceBuckets = new ArrayList<>();
+
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+
+    // changes whenever the catalog does
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public List<FacetCount> getCategories() { return categories; }
+    public void setCategories(List<FacetCount> categories) { this.categories = categories; }
+
+    public List<FacetCount> getSubCategories() { return subCategories; }
+    public void setSubCategories(List<FacetCount> subCategories) { this.subCategories = subCategories; }
+
+    public List<PriceBucketCount> getPriceBuckets() { return priceBuckets; }
+    public void setPriceBuckets(List<PriceBucketCount> priceBuckets) { this.priceBuckets = priceBuckets; }
+}
@@ -0,0 +1,48 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the admin sales analytics, read from the rollup tables.
+ *
+ * Exactly one of period / categoryId / productId identifies the row,
+ * depending on the breakdown asked for. netSales = grossSales - discount
+ * (shipping is not product revenue and is left out).
+ */
+public class SalesTotals
+{
+    // "2026-10-18" for days, "2026-10-18T13:00" for hours
+    private String period;
+    private Integer categoryId;
+    private Integer productId;
+    // orders containing the product; only meaningful per product
+    private Integer orderCount;
+    private int units;
+    private BigDecimal grossSales = BigDecimal.ZERO;
+    private BigDecimal discount = BigDecimal.ZERO;
+    private BigDecimal netSales = BigDecimal.ZERO;
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public Integer getCategoryId() { return categoryId; }
+    public void setCategoryId(Integer categoryId) { this.categoryId = categoryId; }
+
+    public Integer getProductId() { return productId; }
+    public void setProductId(Integer productId) { this.productId = productId; }
+
+    public Integer getOrderCount() { return orderCount; }
+    public void setOrderCount(Integer orderCount) { this.orderCount = orderCount; }
+
+    public int getUnits() { return units; }
+    public void setUnits(int units) { this.units = units; }
+
+    public BigDecimal getGrossSales() { return grossSales; }
+    public void setGrossSales(BigDecimal grossSales) { this.grossSales = grossSales; }
+
+    public BigDecimal getDiscount() { return discount; }
+    public void setDiscount(BigDecimal discount) { this.discount = discount; }
+
+    public BigDecimal getNetSales() { return netSales; }
+    public void setNetSales(BigDecimal netSales) { this.netSales = netSales; }
+}
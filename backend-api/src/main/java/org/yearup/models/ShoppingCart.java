@@ -1,23 +1,18 @@
 package org.yearup.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
 
 public class ShoppingCart
 {
-    private Map<Integer, ShoppingCartItem> items = new HashMap<>();
+    private final CartItemMap items = new CartItemMap();
 
-    public Map<Integer, ShoppingCartItem> getItems()
+    public CartItemMap getItems()
     {
         return items;
     }
 
-    public void setItems(Map<Integer, ShoppingCartItem> items)
-    {
-        this.items = items;
-    }
-
     public boolean contains(int productId)
     {
         return items.containsKey(productId);
@@ -33,14 +28,18 @@ public class ShoppingCart
         return items.get(productId);
     }
 
-    public BigDecimal getTotal()
+    @JsonIgnore
+    public long getTotalCents()
     {
-        BigDecimal total = items.values()
-                                .stream()
-                                .map(i -> i.getLineTotal())
-                                .reduce( BigDecimal.ZERO, (lineTotal, subTotal) -> subTotal.add(lineTotal));
-
+        long total = 0;
+        for (int i = 0; i < items.size(); i++)
+            total += items.itemAt(i).getLineTotalCents();
         return total;
     }
 
+    public BigDecimal getTotal()
+    {
+        return Cents.toDecimal(getTotalCents());
+    }
+
 }
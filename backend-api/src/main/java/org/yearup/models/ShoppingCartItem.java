@@ -10,6 +10,11 @@ public class ShoppingCartItem
     private int quantity = 1;
     private BigDecimal discountPercent = BigDecimal.ZERO;
 
+    // cents versions of price and discount, so line totals are long math
+    private BigDecimal pricedFrom;
+    private long priceCents;
+    private long discountRate;
+
 
     public Product getProduct()
     {
@@ -39,6 +44,7 @@ public class ShoppingCartItem
     public void setDiscountPercent(BigDecimal discountPercent)
     {
         this.discountPercent = discountPercent;
+        this.discountRate = Cents.rateOf(discountPercent);
     }
 
     @JsonIgnore
@@ -47,14 +53,31 @@ public class ShoppingCartItem
         return this.product.getProductId();
     }
 
-    public BigDecimal getLineTotal()
+    /**
+     * price * quantity minus the discount, with the discount rounded to the
+     * cent like order_summaries does.
+     */
+    @JsonIgnore
+    public long getLineTotalCents()
     {
-        BigDecimal basePrice = product.getPrice();
-        BigDecimal quantity = new BigDecimal(this.quantity);
+        long subTotal = getPriceCents() * quantity;
+        return subTotal - Cents.applyRate(subTotal, discountRate);
+    }
 
-        BigDecimal subTotal = basePrice.multiply(quantity);
-        BigDecimal discountAmount = subTotal.multiply(discountPercent);
+    public BigDecimal getLineTotal()
+    {
+        return Cents.toDecimal(getLineTotalCents());
+    }
 
-        return subTotal.subtract(discountAmount);
+    // converted again only if the product's price object was swapped
+    private long getPriceCents()
+    {
+        BigDecimal price = product.getPrice();
+        if (price != pricedFrom)
+        {
+            priceCents = Cents.of(price);
+            pricedFrom = price;
+        }
+        return priceCents;
     }
 }
@@ -0,0 +1,50 @@
+package org.yearup.models;
+
+/**
+ * Point-in-time counters for one request-coalescing layer
+ * (GET /admin/caches/single-flight).
+ */
+public class SingleFlightStats
+{
+    private String name;
+    private int inFlight;
+    private long executed;
+    private long coalesced;
+    private long failed;
+
+    public SingleFlightStats()
+    {
+    }
+
+    public SingleFlightStats(String name, int inFlight, long executed, long coalesced, long failed)
+    {
+        this.name = name;
+        this.inFlight = inFlight;
+        this.executed = executed;
+        this.coalesced = coalesced;
+        this.failed = failed;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getInFlight() { return inFlight; }
+    public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+
+    // calls that actually reached the database
+    public long getExecuted() { return executed; }
+    public void setExecuted(long executed) { this.executed = executed; }
+
+    // calls that waited for an identical one instead
+    public long getCoalesced() { return coalesced; }
+    public void setCoalesced(long coalesced) { this.coalesced = coalesced; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public double getCoalescedRatio()
+    {
+        long calls = executed + coalesced;
+        return calls == 0 ? 0 : (double) coalesced / calls;
+    }
+}
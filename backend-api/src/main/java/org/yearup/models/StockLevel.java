@@ -0,0 +1,40 @@
+package org.yearup.models;
+
+/**
+ * A product's stock as pushed on the cart stream (event "stock").
+ */
+public class StockLevel
+{
+    private int productId;
+    private int stock;
+
+    public StockLevel()
+    {
+    }
+
+    public StockLevel(int productId, int stock)
+    {
+        this.productId = productId;
+        this.stock = stock;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public int getStock()
+    {
+        return stock;
+    }
+
+    public void setStock(int stock)
+    {
+        this.stock = stock;
+    }
+}
@@ -0,0 +1,35 @@
+package org.yearup.models;
+
+/**
+ * One autocomplete suggestion (GET /products/suggest).
+ * type is "product" (productId set) or "subCategory" (productId null).
+ */
+public class Suggestion
+{
+    public static final String PRODUCT = "product";
+    public static final String SUB_CATEGORY = "subCategory";
+
+    private String text;
+    private String type;
+    private Integer productId;
+
+    public Suggestion()
+    {
+    }
+
+    public Suggestion(String text, String type, Integer productId)
+    {
+        this.text = text;
+        this.type = type;
+        this.productId = productId;
+    }
+
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Integer getProductId() { return productId; }
+    public void setProductId(Integer productId) { this.productId = productId; }
+}
@@ -0,0 +1,227 @@
+package org.yearup.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.catalog.ProductIndex;
+import org.yearup.catalog.ProductSuggestions;
+import org.yearup.catalog.RelatedProducts;
+import org.yearup.data.cache.CachingCategoryDao;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+import org.yearup.models.Suggestion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * The read-only catalog endpoints of ProductsController and
+ * CategoriesController, as WebFlux routes (served by ReactiveCatalogServer).
+ *
+ * Same paths, parameters and JSON. Everything is answered from memory
+ * (ProductIndex, ProductSuggestions, RelatedProducts, CachingCategoryDao)
+ * right on the event loop. The only reads that still go to MySQL, the first
+ * index load and a stale category snapshot, are moved to boundedElastic.
+ *
+ * Product listings are written as a stream: a JSON array by default,
+ * or one product per line with Accept: application/x-ndjson.
+ */
+@Component
+@Profile("reactive-catalog")
+public class ReactiveCatalogRoutes
+{
+    private final ProductIndex productIndex;
+    private final ProductSuggestions productSuggestions;
+    private final RelatedProducts relatedProducts;
+    private final CachingCategoryDao categoryDao;
+
+    public ReactiveCatalogRoutes(ProductIndex productIndex,
+                                 ProductSuggestions productSuggestions,
+                                 RelatedProducts relatedProducts,
+                                 CachingCategoryDao categoryDao)
+    {
+        this.productIndex = productIndex;
+        this.productSuggestions = productSuggestions;
+        this.relatedProducts = relatedProducts;
+        this.categoryDao = categoryDao;
+    }
+
+    public RouterFunction<ServerResponse> routes()
+    {
+        // first match wins, so the fixed paths go before /products/{id}
+        return RouterFunctions.route()
+                .GET("/products", this::search)
+                .GET("/products/facets", this::facets)
+                .GET("/products/suggest", this::suggest)
+                .GET("/products/{id}", this::getProduct)
+                .GET("/products/{id}/related", this::related)
+                .GET("/categories", this::getAllCategories)
+                .GET("/categories/{id}", this::getCategory)
+                .GET("/categories/{categoryId}/products", this::getProductsByCategory)
+                .build();
+    }
+
+    // GET /products?cat=&minPrice=&maxPrice=&subCategory=
+    private Mono<ServerResponse> search(ServerRequest request)
+    {
+        return listing(request, products(() -> productIndex.search(
+                intParam(request, "cat"),
+                decimalParam(request, "minPrice"),
+                decimalParam(request, "maxPrice"),
+                param(request, "subCategory").orElse(null))));
+    }
+
+    // GET /products/facets (same filters as search)
+    private Mono<ServerResponse> facets(ServerRequest request)
+    {
+        Mono<ProductFacets> facets = read(productIndex.isLoaded(), () -> productIndex.facets(
+                intParam(request, "cat"),
+                decimalParam(request, "minPrice"),
+                decimalParam(request, "maxPrice"),
+                param(request, "subCategory").orElse(null)));
+
+        return json(facets);
+    }
+
+    // GET /products/suggest?q=&limit=
+    private Mono<ServerResponse> suggest(ServerRequest request)
+    {
+        Mono<List<Suggestion>> suggestions = read(true, () ->
+        {
+            int max = productSuggestions.getMaxResults();
+            Integer limit = intParam(request, "limit");
+
+            if (limit != null && (limit < 1 || limit > max))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + max);
+
+            // Nothing typed yet = nothing to suggest
+            String query = param(request, "q").orElse(null);
+            if (query == null || query.isBlank())
+                return List.of();
+
+            return productSuggestions.suggest(query, limit == null ? max : limit);
+        });
+
+        return json(suggestions);
+    }
+
+    // GET /products/{id}
+    private Mono<ServerResponse> getProduct(ServerRequest request)
+    {
+        Mono<Product> product = read(productIndex.isLoaded(), () ->
+                found(productIndex.getById(Integer.parseInt(request.pathVariable("id")))));
+
+        return json(product);
+    }
+
+    // GET /products/{id}/related?limit=
+    private Mono<ServerResponse> related(ServerRequest request)
+    {
+        return listing(request, products(() ->
+        {
+            int id = Integer.parseInt(request.pathVariable("id"));
+            int max = relatedProducts.getMaxResults();
+            Integer limit = intParam(request, "limit");
+
+            if (limit != null && (limit < 1 || limit > max))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + max);
+
+            found(productIndex.getById(id));
+            return relatedProducts.related(id, limit == null ? max : limit);
+        }));
+    }
+
+    // GET /categories
+    private Mono<ServerResponse> getAllCategories(ServerRequest request)
+    {
+        return json(read(categoryDao.isFresh(), categoryDao::getAllCategories));
+    }
+
+    // GET /categories/{id}
+    private Mono<ServerResponse> getCategory(ServerRequest request)
+    {
+        Mono<Category> category = read(categoryDao.isFresh(), () ->
+                found(categoryDao.getById(Integer.parseInt(request.pathVariable("id")))));
+
+        return json(category);
+    }
+
+    // GET /categories/{categoryId}/products
+    private Mono<ServerResponse> getProductsByCategory(ServerRequest request)
+    {
+        return listing(request, products(() -> productIndex.search(
+                Integer.parseInt(request.pathVariable("categoryId")), null, null, null)));
+    }
+
+    private Flux<Product> products(Callable<List<Product>> search)
+    {
+        return read(productIndex.isLoaded(), search).flatMapMany(Flux::fromIterable);
+    }
+
+    private static Mono<ServerResponse> listing(ServerRequest request, Flux<Product> products)
+    {
+        MediaType type = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON
+                : MediaType.APPLICATION_JSON;
+
+        return ServerResponse.ok().contentType(type).body(products, Product.class);
+    }
+
+    private static <T> Mono<ServerResponse> json(Mono<T> body)
+    {
+        return body.flatMap(value -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(value));
+    }
+
+    // Runs on the event loop when the answer is in memory, else on boundedElastic
+    private static <T> Mono<T> read(boolean inMemory, Callable<T> read)
+    {
+        Mono<T> result = Mono.fromCallable(read).onErrorMap(ReactiveCatalogRoutes::toStatus);
+        return inMemory ? result : result.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> T found(T value)
+    {
+        // If it does not exist, return 404
+        if (value == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        return value;
+    }
+
+    // Same answers as the MVC controllers: 400 for bad numbers, 500 "Oops" for the rest
+    private static Throwable toStatus(Throwable error)
+    {
+        if (error instanceof ResponseStatusException)
+            return error;
+        if (error instanceof NumberFormatException)
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, error.getMessage());
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.", error);
+    }
+
+    private static Integer intParam(ServerRequest request, String name)
+    {
+        return param(request, name).map(Integer::valueOf).orElse(null);
+    }
+
+    private static BigDecimal decimalParam(ServerRequest request, String name)
+    {
+        return param(request, name).map(BigDecimal::new).orElse(null);
+    }
+
+    // ?cat= is the same as no cat at all, like in the MVC controllers
+    private static Optional<String> param(ServerRequest request, String name)
+    {
+        return request.queryParam(name).filter(value -> !value.isBlank());
+    }
+}
@@ -0,0 +1,89 @@
+package org.yearup.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Serves ReactiveCatalogRoutes on a non-blocking Reactor Netty server of its
+ * own (reactive-catalog.port), next to the regular Tomcat/MVC app.
+ *
+ * Only runs with the reactive-catalog profile:
+ *
+ *   java -jar backend-api.jar --spring.profiles.active=reactive-catalog
+ *
+ * The same catalog reads can then be compared on both ports, and the
+ * frontend's config.catalogUrl decides which one it uses.
+ */
+@Component
+@Profile("reactive-catalog")
+public class ReactiveCatalogServer
+{
+    private final Logger log = LoggerFactory.getLogger(ReactiveCatalogServer.class);
+
+    private final ReactiveCatalogRoutes routes;
+    private final ObjectMapper objectMapper;
+    private final int port;
+
+    private DisposableServer server;
+
+    public ReactiveCatalogServer(ReactiveCatalogRoutes routes,
+                                 ObjectMapper objectMapper,
+                                 @Value("${reactive-catalog.port:8081}") int port)
+    {
+        this.routes = routes;
+        this.objectMapper = objectMapper;
+        this.port = port;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start()
+    {
+        // public, read-only endpoints: any origin may GET them (like @CrossOrigin on the controllers)
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("*"));
+        cors.setAllowedMethods(List.of("GET"));
+        cors.setAllowedHeaders(List.of("*"));
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", cors);
+
+        // the app's ObjectMapper, so the JSON is the same as on the MVC port
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .webFilter(new CorsWebFilter(corsSource))
+                .build();
+
+        HttpHandler handler = RouterFunctions.toHttpHandler(routes.routes(), strategies);
+        server = HttpServer.create()
+                           .port(port)
+                           .handle(new ReactorHttpHandlerAdapter(handler))
+                           .bindNow();
+
+        log.info("Reactive catalog listening on port {}.", server.port());
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        if (server != null)
+            server.disposeNow();
+    }
+}
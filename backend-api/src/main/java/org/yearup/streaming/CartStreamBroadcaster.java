@@ -0,0 +1,449 @@
+package org.yearup.streaming;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.yearup.catalog.ProductFollowedEvent;
+import org.yearup.data.CartChangedEvent;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.StockLevel;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes cart changes, and stock changes for the products in the cart, to
+ * every open GET /cart/stream of the user (Server-Sent Events).
+ *
+ * Streams are async-servlet SseEmitters: an idle stream holds no thread,
+ * just the emitter and its socket. Three kinds of threads, so that nothing
+ * slow can hold up everyone else:
+ *
+ * - ONE broadcaster thread decides what goes where. It owns the "who has
+ *   product X in their cart" index, so that index needs no locking, but it
+ *   never touches MySQL or a socket
+ * - cart.stream.load-threads load carts (with a queue of load-queue-size)
+ *   and hand them back to the broadcaster; a stream never gets a cart older
+ *   than one it already has, and only the newest load re-indexes the user
+ * - cart.stream.send-threads write to the sockets. Each stream has its own
+ *   queue of at most max-pending-events; a client that stops reading fills
+ *   it, or has a write stuck for send-timeout-seconds, and is dropped (its
+ *   browser reconnects) instead of tying up the senders
+ *
+ *   event: cart    the whole cart, sent on connect and after every change
+ *   event: stock   { productId, stock } when a product in the cart changes stock,
+ *                  here or on another instance (followed by ProductIndex)
+ *
+ * A comment line goes out every heartbeat-seconds so proxies keep idle
+ * streams open and dead ones are noticed; emitters also time out, after
+ * which the browser reconnects.
+ */
+@Component
+public class CartStreamBroadcaster implements DisposableBean
+{
+    private final Logger log = LoggerFactory.getLogger(CartStreamBroadcaster.class);
+
+    private final ShoppingCartDao shoppingCartDao;
+    private final long timeoutMillis;
+    private final int maxConnections;
+    private final int maxPendingEvents;
+    private final long sendTimeoutNanos;
+
+    // touched by request threads (subscribe / emitter callbacks)
+    private final Map<Integer, Set<Stream>> streamsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Set<Integer> pendingCarts = ConcurrentHashMap.newKeySet();
+
+    // orders cart loads, so an older cart never overwrites a newer one
+    private final AtomicLong loadSequence = new AtomicLong();
+
+    // owned by the broadcaster thread
+    private final Map<Integer, int[]> cartProductsByUser = new HashMap<>();
+    private final Map<Integer, Set<Integer>> usersByProduct = new HashMap<>();
+    private final Map<Integer, Integer> lastStock = new HashMap<>();
+    // the newest load the user's products were indexed from
+    private final Map<Integer, Long> lastCartLoad = new HashMap<>();
+
+    private final ScheduledExecutorService broadcaster;
+    private final ThreadPoolExecutor loaders;
+    private final ThreadPoolExecutor senders;
+
+    public CartStreamBroadcaster(ShoppingCartDao shoppingCartDao,
+                                 @Value("${cart.stream.timeout-minutes:30}") long timeoutMinutes,
+                                 @Value("${cart.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+                                 @Value("${cart.stream.max-connections:20000}") int maxConnections,
+                                 @Value("${cart.stream.load-threads:4}") int loadThreads,
+                                 @Value("${cart.stream.load-queue-size:1000}") int loadQueueSize,
+                                 @Value("${cart.stream.send-threads:8}") int sendThreads,
+                                 @Value("${cart.stream.max-pending-events:16}") int maxPendingEvents,
+                                 @Value("${cart.stream.send-timeout-seconds:10}") long sendTimeoutSeconds)
+    {
+        this.shoppingCartDao = shoppingCartDao;
+        this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+        this.maxConnections = maxConnections;
+        this.maxPendingEvents = maxPendingEvents;
+        this.sendTimeoutNanos = TimeUnit.SECONDS.toNanos(sendTimeoutSeconds);
+
+        this.broadcaster = Executors.newSingleThreadScheduledExecutor(r -> thread(r, "cart-stream"));
+        this.broadcaster.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        AtomicInteger loaderCount = new AtomicInteger();
+        this.loaders = new ThreadPoolExecutor(loadThreads, loadThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(loadQueueSize),
+                r -> thread(r, "cart-stream-load-" + loaderCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.loaders.allowCoreThreadTimeOut(true);
+
+        // at most one queued drain per stream, so this queue is bounded by max-connections
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> thread(r, "cart-stream-send-" + senderCount.incrementAndGet()));
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Opens a stream for this user, or returns null when max-connections
+     * streams are already open.
+     */
+    public SseEmitter subscribe(int userId)
+    {
+        if (connections.incrementAndGet() > maxConnections)
+        {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        Stream stream = new Stream(userId, new SseEmitter(timeoutMillis));
+        streamsByUser.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(stream);
+
+        Runnable closed = () -> unsubscribe(stream);
+        stream.emitter.onCompletion(closed);
+        stream.emitter.onTimeout(closed);
+        stream.emitter.onError(error -> closed.run());
+
+        // the current cart goes out first, before any change
+        loadCart(userId, stream);
+        return stream.emitter;
+    }
+
+    public int getConnectionCount()
+    {
+        return connections.get();
+    }
+
+    @EventListener
+    public void onCartChanged(CartChangedEvent event)
+    {
+        int userId = event.getUserId();
+        if (!streamsByUser.containsKey(userId))
+            return;
+
+        // ten clicks before a loader gets to it still make one push
+        if (pendingCarts.add(userId))
+            loadCart(userId, null);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event)
+    {
+        stockChanged(event.getProductId(), event.isDeleted() ? 0 : event.getProduct().getStock());
+    }
+
+    @EventListener
+    public void onProductFollowed(ProductFollowedEvent event)
+    {
+        stockChanged(event.getProductId(), event.isDeleted() ? 0 : event.getProduct().getStock());
+    }
+
+    // any thread: push the new stock to every stream whose cart holds the product
+    private void stockChanged(int productId, int stock)
+    {
+        broadcaster.execute(() ->
+        {
+            Set<Integer> users = usersByProduct.get(productId);
+            if (users == null)
+                return;
+
+            Integer previous = lastStock.put(productId, stock);
+            if (previous != null && previous == stock)
+                return;
+
+            StockLevel level = new StockLevel(productId, stock);
+            for (Integer userId : users)
+            {
+                Set<Stream> streams = streamsByUser.get(userId);
+                if (streams != null)
+                {
+                    for (Stream stream : streams)
+                        enqueue(stream, SseEmitter.event().name("stock").data(level, MediaType.APPLICATION_JSON));
+                }
+            }
+        });
+    }
+
+    // any thread: load the cart on a loader and hand it to the broadcaster;
+    // only is the one new stream to send it to, or null for all of the user's streams
+    private void loadCart(int userId, Stream only)
+    {
+        try
+        {
+            loaders.execute(() ->
+            {
+                // changes from here on need another load
+                if (only == null)
+                    pendingCarts.remove(userId);
+
+                long sequence = loadSequence.incrementAndGet();
+                ShoppingCart cart;
+                try
+                {
+                    cart = shoppingCartDao.getByUserId(userId);
+                }
+                catch (Exception e)
+                {
+                    log.error("Could not load the cart of user {} for its stream.", userId, e);
+                    return;
+                }
+
+                broadcaster.execute(() -> sendCart(userId, only, sequence, cart));
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // every loader is busy and the queue is full: try again in a second
+            log.warn("Cart loads for streams are backed up; retrying user {}.", userId);
+            broadcaster.schedule(() -> loadCart(userId, only), 1, TimeUnit.SECONDS);
+        }
+    }
+
+    // broadcaster thread: send a loaded cart and re-index its products.
+    // Sequences are compared per stream: a new tab's load can finish before
+    // an older load for all of the user's streams, which the others still need.
+    private void sendCart(int userId, Stream only, long sequence, ShoppingCart cart)
+    {
+        Collection<Stream> streams = only != null ? List.of(only) : streamsByUser.get(userId);
+        if (streams == null)
+            return;
+
+        for (Stream stream : streams)
+        {
+            if (stream.lastCartLoad > sequence)
+                continue;
+
+            stream.lastCartLoad = sequence;
+            enqueue(stream, SseEmitter.event().name("cart").data(cart, MediaType.APPLICATION_JSON));
+        }
+
+        Long newest = lastCartLoad.get(userId);
+        if (newest != null && newest > sequence)
+            return;
+        lastCartLoad.put(userId, sequence);
+
+        int[] productIds = new int[cart.getItems().size()];
+        for (int i = 0; i < productIds.length; i++)
+        {
+            productIds[i] = cart.getItems().productIdAt(i);
+            lastStock.put(productIds[i], cart.getItems().itemAt(i).getProduct().getStock());
+        }
+        watch(userId, productIds);
+    }
+
+    // broadcaster thread: queue an event for a sender; a stream that isn't keeping up is dropped
+    private void enqueue(Stream stream, SseEmitter.SseEventBuilder event)
+    {
+        if (stream.closed)
+            return;
+
+        if (stream.queued.incrementAndGet() > maxPendingEvents)
+        {
+            stream.queued.decrementAndGet();
+            log.warn("Dropping a cart stream of user {}: the client stopped reading.", stream.userId);
+            drop(stream);
+            return;
+        }
+
+        stream.pending.add(event);
+        if (stream.draining.compareAndSet(false, true))
+            senders.execute(() -> drain(stream));
+    }
+
+    // sender thread: write everything queued for this stream, in order
+    private void drain(Stream stream)
+    {
+        try
+        {
+            SseEmitter.SseEventBuilder event;
+            while (!stream.closed && (event = stream.pending.poll()) != null)
+            {
+                stream.queued.decrementAndGet();
+                stream.sendStartedNanos = System.nanoTime();
+                try
+                {
+                    stream.emitter.send(event);
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    // client went away (or the emitter already completed)
+                    drop(stream);
+                    stream.emitter.completeWithError(e);
+                    return;
+                }
+                finally
+                {
+                    stream.sendStartedNanos = 0;
+                }
+            }
+
+            // dropped while we were writing: close it now that the emitter is free
+            if (stream.closed)
+                stream.emitter.complete();
+        }
+        finally
+        {
+            stream.draining.set(false);
+
+            // an event that came in after the last poll() would otherwise wait for the next one
+            if (!stream.closed && !stream.pending.isEmpty() && stream.draining.compareAndSet(false, true))
+                senders.execute(() -> drain(stream));
+        }
+    }
+
+    // stop sending to this stream; the emitter is completed by whoever isn't stuck writing to it
+    private void drop(Stream stream)
+    {
+        unsubscribe(stream);
+        stream.pending.clear();
+
+        if (stream.draining.compareAndSet(false, true))
+            senders.execute(stream.emitter::complete);
+    }
+
+    private void heartbeat()
+    {
+        long now = System.nanoTime();
+        for (Set<Stream> streams : streamsByUser.values())
+        {
+            for (Stream stream : streams)
+            {
+                long started = stream.sendStartedNanos;
+                if (started != 0 && now - started > sendTimeoutNanos)
+                {
+                    log.warn("Dropping a cart stream of user {}: a write has been stuck for too long.", stream.userId);
+                    drop(stream);
+                }
+                else if (stream.queued.get() == 0)
+                {
+                    // only when idle: a stream with queued events is alive or about to be dropped anyway
+                    enqueue(stream, SseEmitter.event().comment("keep-alive"));
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Stream stream)
+    {
+        int userId = stream.userId;
+        stream.closed = true;
+
+        Set<Stream> streams = streamsByUser.get(userId);
+        if (streams == null || !streams.remove(stream))
+            return;
+
+        connections.decrementAndGet();
+        if (streams.isEmpty())
+        {
+            streamsByUser.remove(userId, streams);
+            broadcaster.execute(() ->
+            {
+                // the user may have reconnected in the meantime
+                if (!streamsByUser.containsKey(userId))
+                {
+                    watch(userId, new int[0]);
+                    lastCartLoad.remove(userId);
+                }
+            });
+        }
+    }
+
+    // broadcaster thread: replace the products this user is watched for
+    // (productIds is sorted: cart items are kept in product id order)
+    private void watch(int userId, int[] productIds)
+    {
+        int[] previous = productIds.length == 0
+                ? cartProductsByUser.remove(userId)
+                : cartProductsByUser.put(userId, productIds);
+
+        for (int productId : productIds)
+            usersByProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(userId);
+
+        if (previous == null)
+            return;
+
+        for (int productId : previous)
+        {
+            if (Arrays.binarySearch(productIds, productId) >= 0)
+                continue;
+
+            Set<Integer> users = usersByProduct.get(productId);
+            if (users != null && users.remove(userId) && users.isEmpty())
+            {
+                usersByProduct.remove(productId);
+                lastStock.remove(productId);
+            }
+        }
+    }
+
+    private static Thread thread(Runnable r, String name)
+    {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public void destroy()
+    {
+        broadcaster.shutdownNow();
+        loaders.shutdownNow();
+        senders.shutdownNow();
+        for (Set<Stream> streams : streamsByUser.values())
+            streams.forEach(stream -> stream.emitter.complete());
+    }
+
+    // one open GET /cart/stream and the events waiting to be written to it
+    private static final class Stream
+    {
+        private final int userId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+
+        // true while a sender owns this stream (one at a time keeps events in order)
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // the newest cart load sent to this stream (broadcaster thread only)
+        private long lastCartLoad;
+
+        // when the current write started, 0 when none is in progress
+        private volatile long sendStartedNanos;
+        private volatile boolean closed;
+
+        private Stream(int userId, SseEmitter emitter)
+        {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
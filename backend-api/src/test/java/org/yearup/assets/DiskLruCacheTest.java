@@ -0,0 +1,45 @@
+package org.yearup.assets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiskLruCacheTest
+{
+    @TempDir
+    Path dir;
+
+    @Test
+    public void put_shouldDeleteTheLeastRecentlyUsedFiles_andSurviveARestart() throws Exception
+    {
+        // arrange
+        DiskLruCache cache = new DiskLruCache("test", dir, 250);
+        put(cache, "a", 100);
+        put(cache, "b", 100);
+
+        // act
+        cache.get("a");
+        put(cache, "c", 100);
+        Files.writeString(dir.resolve("d.123.tmp"), "half written");
+        DiskLruCache restarted = new DiskLruCache("test", dir, 250);
+
+        // assert
+        assertNotNull(cache.get("a"), "Because a was used after b.");
+        assertNull(cache.get("b"), "Because b was the least recently used.");
+        assertFalse(Files.exists(dir.resolve("b")), "Because evicted files are deleted.");
+        assertEquals(200, restarted.getBytes(), "Because a and c are still on disk.");
+        assertTrue(restarted.contains("a") && restarted.contains("c"));
+        assertFalse(Files.exists(dir.resolve("d.123.tmp")), "Because unfinished writes are cleaned up on start.");
+    }
+
+    private static void put(DiskLruCache cache, String key, int size) throws Exception
+    {
+        Path temp = cache.newTempFile(key);
+        Files.write(temp, new byte[size]);
+        cache.put(key, temp);
+    }
+}
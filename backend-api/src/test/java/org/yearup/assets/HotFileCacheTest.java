@@ -0,0 +1,51 @@
+package org.yearup.assets;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotFileCacheTest
+{
+    @Test
+    public void put_shouldDropTheLeastRecentlyUsedFiles_untilTheBytesFit()
+    {
+        // arrange
+        HotFileCache cache = new HotFileCache("test", 300, 200);
+        Path a = Path.of("a.jpg");
+        Path b = Path.of("b.jpg");
+        Path c = Path.of("c.jpg");
+        cache.put(a, 1, new byte[100]);
+        cache.put(b, 1, new byte[100]);
+        cache.put(c, 1, new byte[100]);
+
+        // act
+        cache.get(a, 100, 1);
+        cache.put(Path.of("d.jpg"), 1, new byte[150]);
+
+        // assert
+        assertNotNull(cache.get(a, 100, 1), "Because a was used most recently.");
+        assertNull(cache.get(b, 100, 1), "Because b was the least recently used.");
+        assertNull(cache.get(c, 100, 1), "Because dropping b alone didn't make room for 150 bytes.");
+        assertEquals(250, cache.getBytes());
+        assertEquals(2, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void get_shouldMiss_whenTheFileChangedOnDisk()
+    {
+        // arrange
+        HotFileCache cache = new HotFileCache("test", 1000, 1000);
+        Path a = Path.of("a.jpg");
+        cache.put(a, 1, new byte[100]);
+
+        // act
+        byte[] changed = cache.get(a, 100, 2);
+
+        // assert
+        assertNull(changed, "Because the modification time moved.");
+        assertEquals(0, cache.getBytes());
+        assertFalse(cache.fits(1001));
+    }
+}
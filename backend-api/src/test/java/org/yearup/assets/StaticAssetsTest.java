@@ -0,0 +1,158 @@
+package org.yearup.assets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.yearup.data.cache.CacheRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaticAssetsTest
+{
+    @TempDir
+    Path folder;
+
+    private Path root;
+    private StaticAssets staticAssets;
+    private byte[] image;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        root = folder.resolve("frontend-ui");
+        Files.createDirectories(root.resolve("images/products"));
+        Files.writeString(root.resolve("index.html"), "<html></html>");
+        Files.writeString(folder.resolve("secret.txt"), "keep out");
+
+        // bigger than the 1 KB cache limit below, so it is sent from disk
+        image = new byte[5000];
+        for (int i = 0; i < image.length; i++)
+            image[i] = (byte) i;
+        Files.write(root.resolve("images/products/camera.jpg"), image);
+
+        staticAssets = new StaticAssets(new CacheRegistry(), root.toString(), 0, 64 * 1024, 1024, 48 * 1024);
+    }
+
+    @Test
+    public void serve_shouldAnswer304_whenTheBrowserHasTheSameVersion() throws Exception
+    {
+        // arrange
+        MockHttpServletResponse first = get("/index.html", null);
+        String etag = first.getHeader("ETag");
+
+        // act
+        MockHttpServletResponse second = get("/index.html", request ->
+                request.addHeader("If-None-Match", etag));
+
+        // assert
+        assertEquals(200, first.getStatus());
+        assertEquals("<html></html>", first.getContentAsString());
+        assertTrue(etag.matches("\"[0-9a-f]{32}\""), "Because the ETag is a strong content hash, was " + etag);
+        assertEquals("no-cache", first.getHeader("Cache-Control"));
+        assertEquals(304, second.getStatus());
+        assertEquals(0, second.getContentAsByteArray().length, "Because a 304 has no body.");
+    }
+
+    @Test
+    public void serve_shouldSendOnlyTheRequestedRange() throws Exception
+    {
+        // act
+        MockHttpServletResponse middle = get("/images/products/camera.jpg", request ->
+                request.addHeader("Range", "bytes=100-199"));
+        MockHttpServletResponse tail = get("/index.html", request ->
+                request.addHeader("Range", "bytes=-7"));
+        MockHttpServletResponse pastTheEnd = get("/images/products/camera.jpg", request ->
+                request.addHeader("Range", "bytes=5000-"));
+        MockHttpServletResponse oldVersion = get("/images/products/camera.jpg", request ->
+        {
+            request.addHeader("Range", "bytes=100-199");
+            request.addHeader("If-Range", "\"not-this-one\"");
+        });
+
+        // assert
+        assertEquals(206, middle.getStatus());
+        assertEquals("bytes 100-199/5000", middle.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(image, 100, 200), middle.getContentAsByteArray());
+        assertEquals("</html>", tail.getContentAsString(), "Because bytes=-7 is the last 7 bytes.");
+        assertEquals(416, pastTheEnd.getStatus());
+        assertEquals("bytes */5000", pastTheEnd.getHeader("Content-Range"));
+        assertEquals(200, oldVersion.getStatus(), "Because the file changed since the client's copy.");
+        assertArrayEquals(image, oldVersion.getContentAsByteArray());
+    }
+
+    @Test
+    public void serve_shouldMarkFingerprintedUrlsImmutable() throws Exception
+    {
+        // arrange
+        String hash = get("/images/products/camera.jpg", null).getHeader("ETag").substring(1, 11);
+
+        // act
+        MockHttpServletResponse current = get("/images/products/camera.jpg", request ->
+                request.addParameter("v", hash));
+        MockHttpServletResponse stale = get("/images/products/camera.jpg", request ->
+                request.addParameter("v", "0123456789"));
+
+        // assert
+        assertEquals(StaticAssets.IMMUTABLE, current.getHeader("Cache-Control"));
+        assertEquals("no-cache", stale.getHeader("Cache-Control"),
+                     "Because ?v= names another version of the file.");
+    }
+
+    @Test
+    public void serve_shouldNotFindFilesOutsideTheRoot() throws Exception
+    {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(staticAssets.serve("/../secret.txt", request("/../secret.txt"), response));
+        assertFalse(staticAssets.serve("/images/../../secret.txt", request("/images/../../secret.txt"), response));
+        assertFalse(staticAssets.serve("/images/products/missing.jpg", request("/images/products/missing.jpg"), response));
+        assertFalse(staticAssets.serve("/images", request("/images"), response), "Because folders aren't files.");
+    }
+
+    @Test
+    public void serve_shouldHandTheFileToSendfile_whenTheConnectorSupportsIt() throws Exception
+    {
+        // arrange
+        StaticAssets noCache = new StaticAssets(new CacheRegistry(), root.toString(), 0, 0, 0, 1024);
+        MockHttpServletRequest request = request("/images/products/camera.jpg");
+        request.setAttribute(StaticAssets.SENDFILE_SUPPORTED, Boolean.TRUE);
+        request.addHeader("Range", "bytes=1000-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // act
+        noCache.serve("/images/products/camera.jpg", request, response);
+
+        // assert
+        assertEquals(root.resolve("images/products/camera.jpg").toString(), request.getAttribute(StaticAssets.SENDFILE_FILENAME));
+        assertEquals(1000L, request.getAttribute(StaticAssets.SENDFILE_START));
+        assertEquals(5000L, request.getAttribute(StaticAssets.SENDFILE_END));
+        assertEquals(4000, response.getContentLength());
+        assertEquals(0, response.getContentAsByteArray().length, "Because Tomcat writes the body itself.");
+    }
+
+    private MockHttpServletResponse get(String path, Consumer<MockHttpServletRequest> customize) throws Exception
+    {
+        MockHttpServletRequest request = request(path);
+        if (customize != null)
+            customize.accept(request);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(staticAssets.serve(path, request, response));
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        return request;
+    }
+}
@@ -0,0 +1,136 @@
+package org.yearup.assets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.models.Product;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailsTest
+{
+    @TempDir
+    Path folder;
+
+    private Thumbnails thumbnails;
+    private Path cacheDir;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        Path root = folder.resolve("frontend-ui");
+        Files.createDirectories(root.resolve("images/products"));
+        Files.writeString(root.resolve("images/products/readme.txt"), "not an image");
+
+        // 1000 x 600 with a gradient, so the JPEG isn't trivially small
+        BufferedImage photo = new BufferedImage(1000, 600, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < photo.getWidth(); x++)
+            for (int y = 0; y < photo.getHeight(); y++)
+                photo.setRGB(x, y, (x % 256) << 16 | (y % 256) << 8 | (x + y) % 256);
+        ImageIO.write(photo, "jpeg", root.resolve("images/products/camera.jpg").toFile());
+
+        cacheDir = folder.resolve("thumbnail-cache");
+        CacheRegistry cacheRegistry = new CacheRegistry();
+        StaticAssets staticAssets = new StaticAssets(cacheRegistry, root.toString(), 0, 1024 * 1024, 256 * 1024, 48 * 1024);
+        thumbnails = new Thumbnails(staticAssets, cacheRegistry, List.of(160, 320, 2000), List.of(60, 75), 75, 160,
+                                    cacheDir.toString(), 10 * 1024 * 1024, 1, 4);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        thumbnails.destroy();
+    }
+
+    @Test
+    public void serve_shouldSendAResizedJpeg_andKeepItOnDisk() throws Exception
+    {
+        // act
+        MockHttpServletResponse first = get(160, null);
+        MockHttpServletResponse second = get(160, null);
+        MockHttpServletResponse bigger = get(2000, 60);
+
+        // assert
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(first.getContentAsByteArray()));
+        assertEquals(200, first.getStatus());
+        assertEquals("image/jpeg", first.getContentType());
+        assertEquals(160, small.getWidth());
+        assertEquals(96, small.getHeight(), "Because the 5:3 aspect ratio is kept.");
+        assertEquals(first.getHeader("ETag"), second.getHeader("ETag"), "Because the second request gets the stored copy.");
+
+        BufferedImage notUpscaled = ImageIO.read(new ByteArrayInputStream(bigger.getContentAsByteArray()));
+        assertEquals(1000, notUpscaled.getWidth(), "Because images are never made bigger than the original.");
+
+        try (var files = Files.list(cacheDir))
+        {
+            assertEquals(2, files.count(), "Because each size and quality is made once.");
+        }
+    }
+
+    @Test
+    public void serve_shouldOnlyMakeConfiguredSizes_ofImagesThatExist() throws Exception
+    {
+        // assert
+        assertTrue(thumbnails.isAllowed(320, null), "Because no quality means the default, 75.");
+        assertFalse(thumbnails.isAllowed(321, null));
+        assertFalse(thumbnails.isAllowed(320, 99));
+        assertFalse(thumbnails.serve("/images/products/missing.jpg", 160, null, request(), new MockHttpServletResponse()));
+        assertFalse(thumbnails.serve("/images/products/readme.txt", 160, null, request(), new MockHttpServletResponse()),
+                    "Because only images can be resized.");
+    }
+
+    @Test
+    public void gridUrl_shouldCarryTheSourceHash_soTheThumbnailIsImmutable() throws Exception
+    {
+        // act
+        String url = thumbnails.gridUrl("camera.jpg");
+        String thumbnailUrl = new Product(1, "Camera", BigDecimal.ONE, 1, "", "", 1, false, "camera.jpg").getThumbnailUrl();
+
+        // assert
+        assertTrue(url.matches("/images/products/camera\\.jpg\\?w=160&v=[0-9a-f]{16}"), url);
+        assertEquals(url, thumbnailUrl, "Because Product builds its thumbnail URL here.");
+        assertEquals("/images/products/missing.jpg?w=160", thumbnails.gridUrl("missing.jpg"));
+
+        MockHttpServletRequest request = request();
+        request.setParameter("v", url.substring(url.indexOf("&v=") + 3));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        thumbnails.serve("/images/products/camera.jpg", 160, null, request, response);
+        assertEquals(StaticAssets.IMMUTABLE, response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void constructor_shouldRefuse_aGridWidthThatIsNotMade()
+    {
+        // arrange
+        CacheRegistry cacheRegistry = new CacheRegistry();
+        StaticAssets staticAssets = new StaticAssets(cacheRegistry, folder.toString(), 0, 1024, 1024, 1024);
+
+        // act + assert
+        assertThrows(IllegalStateException.class, () -> new Thumbnails(staticAssets, cacheRegistry, List.of(80, 320),
+                List.of(75), 75, 160, cacheDir.toString(), 1024, 1, 1));
+    }
+
+    private MockHttpServletResponse get(int width, Integer quality) throws Exception
+    {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(thumbnails.serve("/images/products/camera.jpg", width, quality, request(), response));
+        return response;
+    }
+
+    private static MockHttpServletRequest request()
+    {
+        return new MockHttpServletRequest("GET", "/images/products/camera.jpg");
+    }
+}
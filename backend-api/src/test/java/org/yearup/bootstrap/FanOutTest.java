@@ -0,0 +1,85 @@
+package org.yearup.bootstrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void await_shouldReturnTheFastCalls_andSkipTheSlowOne()
+    {
+        // arrange
+        FanOut fanOut = new FanOut(executor, 200);
+        Future<String> fast = fanOut.submit(() -> "fast");
+        Future<String> slow = fanOut.submit(() ->
+        {
+            Thread.sleep(5_000);
+            return "slow";
+        });
+
+        // act
+        long started = System.nanoTime();
+        String fastResult = fanOut.await("fast", fast);
+        String slowResult = fanOut.await("slow", slow);
+        long waitedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        // assert
+        assertEquals("fast", fastResult);
+        assertNull(slowResult, "Because the slow call missed the 200 ms deadline.");
+        assertEquals(List.of("slow"), fanOut.getMissed());
+        assertTrue(waitedMillis < 2_000, "Because nobody waits past the deadline, waited " + waitedMillis + " ms.");
+        assertTrue(slow.isCancelled(), "Because a late call is cancelled.");
+    }
+
+    @Test
+    public void await_shouldSkipFailedAndRejectedCalls()
+    {
+        // arrange
+        ThreadPoolExecutor full = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try
+        {
+            FanOut fanOut = new FanOut(full, 1_000);
+            Future<String> busy = fanOut.submit(() ->
+            {
+                release.await();
+                return "busy";
+            });
+            Future<String> rejected = fanOut.submit(() -> "no room");
+            FanOut failing = new FanOut(executor, 1_000);
+            Future<String> failed = failing.submit(() ->
+            {
+                throw new IllegalStateException("database is down");
+            });
+
+            // act
+            String rejectedResult = fanOut.await("rejected", rejected);
+            String failedResult = failing.await("failed", failed);
+            release.countDown();
+
+            // assert
+            assertNull(rejectedResult, "Because the only worker was busy and there is no queue.");
+            assertNull(failedResult);
+            assertEquals(List.of("rejected"), fanOut.getMissed());
+            assertEquals(List.of("failed"), failing.getMissed());
+            assertEquals("busy", fanOut.await("busy", busy));
+        }
+        finally
+        {
+            full.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.yearup.catalog;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.CachingCategoryDao;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheTest
+{
+    private ProductIndex index;
+    private CatalogResponseCache cache;
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @BeforeEach
+    public void setup()
+    {
+        CacheRegistry cacheRegistry = new CacheRegistry();
+
+        // stand in for MySQL
+        MySqlProductDao products = new MySqlProductDao(null, event -> { }, cacheRegistry)
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                List<Product> all = new ArrayList<>();
+                for (int id = 1; id <= 50; id++)
+                    all.add(product(id, "19.99"));
+                return all;
+            }
+        };
+        MySqlCategoryDao categories = new MySqlCategoryDao(null, cacheRegistry)
+        {
+            @Override
+            public List<Category> getAllCategories()
+            {
+                return List.of(new Category(1, "Electronics", ""));
+            }
+        };
+
+        index = new ProductIndex(products, new BigDecimal[] { new BigDecimal("25") });
+        cache = new CatalogResponseCache(index, new CachingCategoryDao(categories, 300), new ObjectMapper(),
+                                         new MappingJackson2SmileHttpMessageConverter(),
+                                         new MappingJackson2CborHttpMessageConverter(),
+                                         cacheRegistry, 100, 600, 1024);
+    }
+
+    @Test
+    public void write_shouldSerializeOnce_untilTheCatalogChanges() throws Exception
+    {
+        // act
+        String first = get("identity").getContentAsString();
+        String second = get("identity").getContentAsString();
+        index.onProductChanged(new ProductChangedEvent(1, product(1, "9.99")));
+        String afterChange = get("identity").getContentAsString();
+
+        // assert
+        assertEquals(first, second);
+        assertEquals(2, builds.get(), "Because the second request was served from the cached bytes.");
+        assertTrue(afterChange.contains("9.99"), "Because a product change moves the catalog version.");
+    }
+
+    @Test
+    public void write_shouldSendTheGzippedCopy_toClientsThatAcceptIt() throws Exception
+    {
+        // act
+        MockHttpServletResponse plain = get(null);
+        MockHttpServletResponse gzipped = get("gzip, deflate, br");
+
+        // assert
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertTrue(gzipped.getContentAsByteArray().length < plain.getContentAsByteArray().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray())))
+        {
+            assertArrayEquals(plain.getContentAsByteArray(), in.readAllBytes(),
+                              "Because both variants are the same JSON.");
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    public void write_shouldAnswerInSmile_whenTheClientPrefersIt() throws Exception
+    {
+        // act
+        MockHttpServletResponse json = get(null, null);
+        MockHttpServletResponse smile = get("application/json;q=0.5, application/x-jackson-smile", null);
+        MockHttpServletResponse browser = get("text/html, */*;q=0.8", null);
+
+        // assert
+        assertEquals("application/x-jackson-smile", smile.getContentType());
+        assertEquals("application/json;charset=UTF-8", browser.getContentType());
+        assertTrue(smile.getContentAsByteArray().length < json.getContentAsByteArray().length);
+
+        JsonNode fromSmile = new ObjectMapper(new SmileFactory()).readTree(smile.getContentAsByteArray());
+        // Smile keeps prices as BigDecimal; read the JSON the same way to compare
+        JsonNode fromJson = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+                                              .readTree(json.getContentAsByteArray());
+        assertEquals(fromJson, fromSmile, "Because both formats carry the same products.");
+    }
+
+    @Test
+    public void key_shouldMatch_forRequestsWithTheSameMeaning()
+    {
+        assertEquals(CatalogResponseCache.key("products", 1, new BigDecimal("10.00"), null, " Red "),
+                     CatalogResponseCache.key("products", 1, new BigDecimal("10"), null, "red"));
+        assertNotEquals(CatalogResponseCache.key("products", 1, null, null, null),
+                        CatalogResponseCache.key("products", 2, null, null, null));
+        assertTrue(CatalogResponseCache.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertFalse(CatalogResponseCache.acceptsGzip("gzip;q=0, identity"));
+    }
+
+    private MockHttpServletResponse get(String acceptEncoding) throws Exception
+    {
+        return get(null, acceptEncoding);
+    }
+
+    private MockHttpServletResponse get(String accept, String acceptEncoding) throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        if (accept != null)
+            request.addHeader("Accept", accept);
+        if (acceptEncoding != null)
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        cache.write("products?cat=", () ->
+        {
+            builds.incrementAndGet();
+            return index.search(null, null, null, null);
+        }, request, response);
+        return response;
+    }
+
+    private static Product product(int id, String price)
+    {
+        return new Product(id, "Product " + id, new BigDecimal(price), 1, "A product", "", 10, false, "");
+    }
+}
@@ -0,0 +1,57 @@
+package org.yearup.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CoOccurrenceMatrixTest
+{
+    @Test
+    public void top_shouldRank_byOrdersInCommon()
+    {
+        // arrange
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+
+        // act
+        matrix.addOrder(new int[] { 1, 2, 3 });
+        matrix.addOrder(new int[] { 1, 3 });
+        matrix.addOrder(new int[] { 1, 3, 3 });
+        CoOccurrenceMatrix.TopN top = matrix.top(1);
+
+        // assert
+        assertEquals(2, top.size());
+        assertEquals(3, top.productId(0), "Because 3 was in all three orders with 1.");
+        assertEquals(3, top.count(0), "Because a product twice in one order still counts once.");
+        assertEquals(2, top.productId(1));
+    }
+
+    @Test
+    public void top_shouldKeep_onlyTheBestN_asCountsGrow()
+    {
+        // arrange
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(2);
+        matrix.addOrder(new int[] { 1, 2 });
+        matrix.addOrder(new int[] { 1, 3 });
+        matrix.addOrder(new int[] { 1, 4 });
+
+        // act
+        matrix.addOrder(new int[] { 1, 4 });
+        CoOccurrenceMatrix.TopN top = matrix.top(1);
+
+        // assert
+        assertEquals(2, top.size(), "Because only the top 2 are kept.");
+        assertEquals(4, top.productId(0), "Because 4 passed the weakest entry once it was ordered twice.");
+        assertEquals(2, top.productId(1), "Because ties keep the entry that got there first.");
+    }
+
+    @Test
+    public void top_shouldReturn_empty_forUnknownProducts()
+    {
+        // arrange
+        CoOccurrenceMatrix matrix = new CoOccurrenceMatrix(10);
+
+        // act / assert
+        assertSame(CoOccurrenceMatrix.TopN.EMPTY, matrix.top(42));
+    }
+}
@@ -0,0 +1,117 @@
+package org.yearup.catalog;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductIndex on a synthetic catalog of a million products (no MySQL
+ * needed): the filter UI's facets() and the cost of one product write,
+ * which has to move the product inside its bucket's price-sorted column.
+ *
+ *   mvn test-compile exec:java -Dexec.mainClass=org.yearup.catalog.ProductIndexBenchmark \
+ *       -Dexec.classpathScope=test
+ *
+ * Give the fork a few hundred MB of heap; a million Products is not small.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class ProductIndexBenchmark
+{
+    private static final int PRODUCTS = 1_000_000;
+    private static final String[] COLORS = { "Black", "White", "Red", "Dark Red", "Blue", "Navy Blue",
+                                             "Green", "Grey", "Brown", "Pink", "Yellow", "Orange" };
+
+    @Param({ "none", "category", "price", "all" })
+    public String filters;
+
+    private ProductIndex index;
+
+    private Integer categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String subCategory;
+
+    // the product the write benchmark keeps re-pricing, and its two prices
+    private Product cheaper;
+    private Product dearer;
+    private boolean flip;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(42);
+        List<Product> table = new ArrayList<>(PRODUCTS);
+        for (int id = 1; id <= PRODUCTS; id++)
+        {
+            // 1.00 to 1500.00, so the open top bucket holds about a third of the rows
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(150_000), 2);
+            table.add(new Product(id, "Product " + id, price, 1 + random.nextInt(20), "",
+                                  COLORS[random.nextInt(COLORS.length)], 10, id % 50 == 0, ""));
+        }
+
+        MySqlProductDao dao = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                return table;
+            }
+        };
+
+        index = new ProductIndex(dao, new BigDecimal[] {
+                new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+                new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000") });
+        index.reload();
+
+        // a price range that cuts through buckets, so the sorted price columns are searched
+        boolean all = filters.equals("all");
+        categoryId = all || filters.equals("category") ? 7 : null;
+        minPrice = all || filters.equals("price") ? new BigDecimal("30.00") : null;
+        maxPrice = all || filters.equals("price") ? new BigDecimal("1200.00") : null;
+        subCategory = all ? "red" : null;
+
+        // both prices are in the top bucket, the biggest column there is to keep sorted
+        cheaper = new Product(500_000, "Product 500000", new BigDecimal("1000.00"), 3, "", "Red", 10, false, "");
+        dearer = new Product(500_000, "Product 500000", new BigDecimal("1499.99"), 3, "", "Red", 10, false, "");
+    }
+
+    @Benchmark
+    public ProductFacets facets()
+    {
+        return index.facets(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Benchmark
+    public long priceChange()
+    {
+        flip = !flip;
+        index.onProductChanged(new ProductChangedEvent(500_000, flip ? dearer : cheaper));
+        return index.getVersion();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ProductIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,298 @@
+package org.yearup.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.CatalogChangeDao;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.CatalogChanges;
+import org.yearup.models.FacetCount;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductIndexTest
+{
+    private final List<Product> table = new ArrayList<>();
+    private ProductIndex index;
+
+    @BeforeEach
+    public void setup()
+    {
+        table.clear();
+        table.add(product(1, "19.99", 1, "Black"));
+        table.add(product(2, "49.99", 1, "Red"));
+        table.add(product(3, "50.00", 2, "Dark Red"));
+        table.add(product(4, "1200.00", 2, "Black"));
+
+        // stands in for MySQL: search() with no filters returns the whole table
+        MySqlProductDao dao = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                return new ArrayList<>(table);
+            }
+        };
+
+        index = new ProductIndex(dao, new BigDecimal[] { new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("1000") });
+    }
+
+    @Test
+    public void facets_shouldCount_eachFacetWithoutItsOwnFilter()
+    {
+        // act
+        ProductFacets facets = index.facets(1, null, null, "red");
+
+        // assert
+        assertEquals(1, facets.getTotal(), "Because only product 2 is in category 1 and red.");
+        assertEquals(1, count(facets.getCategories(), "1"), "Because category counts ignore the category filter.");
+        assertEquals(1, count(facets.getCategories(), "2"), "Because 'Dark Red' also contains 'red'.");
+        assertEquals(1, count(facets.getSubCategories(), "Black"), "Because subcategory counts ignore the subcategory filter.");
+    }
+
+    @Test
+    public void facets_shouldMatch_exactPriceBounds()
+    {
+        // act
+        ProductFacets facets = index.facets(null, new BigDecimal("49.99"), new BigDecimal("50"), null);
+
+        // assert
+        assertEquals(2, facets.getTotal(), "Because 49.99 and 50.00 are both inside [49.99, 50].");
+        assertEquals(1, facets.getPriceBuckets().get(0).getCount(), "Because price counts ignore the price filter.");
+        assertEquals(1, facets.getPriceBuckets().get(3).getCount(), "Because 1200.00 is in the open top bucket.");
+    }
+
+    @Test
+    public void search_shouldTrim_pricesInsideABucket()
+    {
+        // act
+        List<Product> actual = index.search(null, new BigDecimal("20"), new BigDecimal("49.99"), null);
+
+        // assert
+        assertEquals(1, actual.size(), "Because only 49.99 is in [20, 49.99]; 19.99 shares its bucket but is below it.");
+        assertEquals(2, actual.get(0).getProductId());
+    }
+
+    @Test
+    public void search_shouldCombine_allFilters_inProductIdOrder()
+    {
+        // arrange
+        table.add(product(5, "75.00", 2, "red"));
+
+        // act
+        List<Product> actual = index.search(2, new BigDecimal("50"), null, "RED");
+
+        // assert
+        assertEquals(2, actual.size(), "Because the subcategory match ignores case, like LIKE does.");
+        assertEquals(3, actual.get(0).getProductId());
+        assertEquals(5, actual.get(1).getProductId());
+    }
+
+    @Test
+    public void onProductChanged_shouldUpdate_theCounts()
+    {
+        // arrange
+        index.reload();
+        long before = index.getVersion();
+
+        // act
+        index.onProductChanged(new ProductChangedEvent(4, null));
+        index.onProductChanged(new ProductChangedEvent(2, product(2, "49.99", 2, "Red")));
+        ProductFacets facets = index.facets(null, null, null, null);
+
+        // assert
+        assertEquals(3, facets.getTotal());
+        assertEquals(1, count(facets.getCategories(), "1"));
+        assertEquals(2, count(facets.getCategories(), "2"));
+        assertEquals(before + 2, facets.getVersion());
+    }
+
+    @Test
+    public void onProductChanged_shouldKeep_theBucketsPriceOrder()
+    {
+        // arrange
+        table.add(product(5, "30.00", 1, "Blue"));
+        table.add(product(6, "40.00", 1, "Blue"));
+        index.reload();
+
+        // act: 6 moves below 5 in the [25, 50) bucket, 1 moves into it, 2 leaves it
+        index.onProductChanged(new ProductChangedEvent(6, product(6, "26.00", 1, "Blue")));
+        index.onProductChanged(new ProductChangedEvent(1, product(1, "30.00", 1, "Black")));
+        index.onProductChanged(new ProductChangedEvent(2, product(2, "10.00", 1, "Red")));
+        List<Product> actual = index.search(null, new BigDecimal("26.00"), new BigDecimal("30.00"), null);
+        List<Product> above = index.search(null, new BigDecimal("27.00"), new BigDecimal("49.99"), null);
+
+        // assert
+        assertEquals(List.of(1, 5, 6), ids(actual), "Because 26.00 and both 30.00s are inside [26, 30].");
+        assertEquals(List.of(1, 5), ids(above), "Because 6 is now 26.00 and 2 left the bucket.");
+    }
+
+    @Test
+    public void followChanges_shouldApply_otherInstancesWrites_once()
+    {
+        // arrange: a change log that starts at version 7, with the load above it
+        CatalogChanges pending = new CatalogChanges();
+        List<Long> polledSince = new ArrayList<>();
+        CatalogChangeDao changeLog = new CatalogChangeDao()
+        {
+            @Override
+            public CatalogChanges getChangesSince(long since, int limit, int settleSeconds)
+            {
+                polledSince.add(since);
+                CatalogChanges page = new CatalogChanges();
+                page.setVersion(since + pending.getProducts().size() + pending.getDeletedProductIds().size());
+                page.setProducts(new ArrayList<>(pending.getProducts()));
+                page.setDeletedProductIds(new ArrayList<>(pending.getDeletedProductIds()));
+                pending.getProducts().clear();
+                pending.getDeletedProductIds().clear();
+                return page;
+            }
+
+            @Override
+            public long getLatestVersion(int settleSeconds)
+            {
+                return 7;
+            }
+
+            @Override
+            public int compact()
+            {
+                return 0;
+            }
+        };
+        MySqlProductDao dao = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                return new ArrayList<>(table);
+            }
+        };
+        List<Object> published = new ArrayList<>();
+        ProductIndex following = new ProductIndex(dao, new BigDecimal[] { new BigDecimal("25") }, changeLog, 100, 2,
+                                                  published::add);
+        following.reload();
+        long loaded = following.getVersion();
+
+        // act: another instance re-prices 1 and deletes 4; then this instance's own write comes back
+        pending.getProducts().add(product(1, "99.00", 1, "Black"));
+        pending.getDeletedProductIds().add(4);
+        following.followChanges();
+        long followed = following.getVersion();
+
+        pending.getProducts().add(product(1, "99.00", 1, "Black"));
+        following.followChanges();
+
+        // assert
+        assertEquals(List.of(7L, 9L), polledSince, "Because each poll starts where the last one ended.");
+        assertEquals(new BigDecimal("99.00"), following.getById(1).getPrice());
+        assertNull(following.getById(4), "Because deletes are followed too.");
+        assertEquals(loaded + 1, followed, "Because one page of changes is one new version.");
+        assertEquals(followed, following.getVersion(), "Because a change the index already has keeps cached responses.");
+        assertEquals(List.of(4, 1), published.stream().map(event -> ((ProductFollowedEvent) event).getProductId()).toList(),
+                     "Because each followed change is published once, deletes first, and the echo not at all.");
+    }
+
+    @Test
+    public void reload_shouldKeepAnswering_fromTheOldColumns_whileMySqlIsRead() throws Exception
+    {
+        // arrange: the second scan copies the table, then hangs until released
+        AtomicBoolean hang = new AtomicBoolean();
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MySqlProductDao slow = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                List<Product> rows = new ArrayList<>(table);
+                if (hang.get())
+                {
+                    scanning.countDown();
+                    try
+                    {
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return rows;
+            }
+        };
+        ProductIndex slowIndex = new ProductIndex(slow, new BigDecimal[] { new BigDecimal("25") });
+        slowIndex.reload();
+        hang.set(true);
+        Thread reloader = new Thread(slowIndex::reload);
+        reloader.start();
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+
+        // act: a search and a local delete while the scan is stuck
+        List<Product> during = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> slowIndex.search(null, null, null, null),
+                "Because a reload must not hold the lock while MySQL is read.");
+        slowIndex.onProductChanged(new ProductChangedEvent(4, null));
+        release.countDown();
+        reloader.join(5_000);
+
+        // assert
+        assertEquals(4, during.size());
+        assertNull(slowIndex.getById(4), "Because a delete that landed during the scan is replayed onto the new columns.");
+        assertEquals(List.of(1, 2, 3), ids(slowIndex.search(null, null, null, null)));
+    }
+
+    @Test
+    public void compact_shouldDrop_deadRows_onceAQuarterAreDead()
+    {
+        // arrange
+        table.add(product(5, "30.00", 1, "Blue"));
+        index.reload();
+        index.onProductChanged(new ProductChangedEvent(4, null));
+        index.compact();
+        int afterOneDelete = index.rowCount();
+        index.onProductChanged(new ProductChangedEvent(1, null));
+        long version = index.getVersion();
+
+        // act
+        index.compact();
+
+        // assert
+        assertEquals(5, afterOneDelete, "Because 1 dead row in 5 is under a quarter.");
+        assertEquals(3, index.rowCount());
+        assertEquals(version, index.getVersion(), "Because the same products are still there.");
+        assertEquals(List.of(2, 3, 5), ids(index.search(null, null, null, null)));
+        assertEquals(List.of(2, 5), ids(index.search(null, new BigDecimal("26"), new BigDecimal("49.99"), null)),
+                     "Because the price columns are rebuilt too.");
+        assertEquals(2, count(index.facets(null, null, null, null).getCategories(), "1"));
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).toList();
+    }
+
+    private static int count(List<FacetCount> facets, String value)
+    {
+        return facets.stream().filter(f -> f.getValue().equals(value)).mapToInt(FacetCount::getCount).sum();
+    }
+
+    private static Product product(int id, String price, int categoryId, String subCategory)
+    {
+        return new Product(id, "Product " + id, new BigDecimal(price), categoryId, "", subCategory, 10, false, "");
+    }
+}
@@ -0,0 +1,104 @@
+package org.yearup.catalog;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductDao.search through SQL vs. through the in-memory ProductIndex,
+ * on the same rows. Needs a running MySQL with the products table loaded:
+ *
+ *   mvn test-compile exec:java -Dexec.mainClass=org.yearup.catalog.ProductSearchBenchmark \
+ *       -Dexec.classpathScope=test -Dbench.url=jdbc:mysql://localhost:3306/easyshop
+ *
+ * (bench.username / bench.password default to root / yearup24 like application.properties)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark
+{
+    @Param({ "none", "category", "price", "subCategory", "all" })
+    public String filters;
+
+    private BasicDataSource dataSource;
+    private MySqlProductDao sql;
+    private ProductIndex index;
+
+    private Integer categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private String subCategory;
+
+    @Setup
+    public void setup()
+    {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl(System.getProperty("bench.url", "jdbc:mysql://localhost:3306/easyshop"));
+        dataSource.setUsername(System.getProperty("bench.username", "root"));
+        dataSource.setPassword(System.getProperty("bench.password", "yearup24"));
+
+        sql = new MySqlProductDao(dataSource, event -> { }, new CacheRegistry());
+        index = new ProductIndex(sql, new BigDecimal[] {
+                new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+                new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000") });
+        index.reload();
+
+        // a price range that cuts through buckets, so the sorted price column is exercised
+        boolean all = filters.equals("all");
+        categoryId = all || filters.equals("category") ? 1 : null;
+        minPrice = all || filters.equals("price") ? new BigDecimal("30.00") : null;
+        maxPrice = all || filters.equals("price") ? new BigDecimal("700.00") : null;
+        subCategory = all || filters.equals("subCategory") ? "red" : null;
+
+        // both paths must agree before their timings mean anything
+        if (!ids(sql.search(categoryId, minPrice, maxPrice, subCategory))
+                .equals(ids(index.search(categoryId, minPrice, maxPrice, subCategory))))
+            throw new IllegalStateException("SQL and index searches returned different products for " + filters);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException
+    {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Product> sqlSearch()
+    {
+        return sql.search(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Benchmark
+    public List<Product> indexSearch()
+    {
+        return index.search(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).toList();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,125 @@
+package org.yearup.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.CatalogChangeDao;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.mysql.MySqlOrderDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.CatalogChanges;
+import org.yearup.models.Product;
+import org.yearup.models.Suggestion;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestionsTest
+{
+    private final List<Product> table = new ArrayList<>();
+    // what the next followChanges() poll finds in catalog_changes
+    private final List<Product> pending = new ArrayList<>();
+    private int rebuilds;
+
+    private ProductIndex index;
+    private ProductSuggestions suggestions;
+
+    @BeforeEach
+    public void setup()
+    {
+        table.clear();
+        pending.clear();
+        rebuilds = 0;
+        table.add(product(1, "Smartphone"));
+        table.add(product(2, "Laptop"));
+
+        // stand in for MySQL
+        MySqlProductDao products = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                return new ArrayList<>(table);
+            }
+        };
+        CatalogChangeDao changeLog = new CatalogChangeDao()
+        {
+            @Override
+            public CatalogChanges getChangesSince(long since, int limit, int settleSeconds)
+            {
+                CatalogChanges page = new CatalogChanges();
+                page.setVersion(since + pending.size());
+                page.setProducts(new ArrayList<>(pending));
+                pending.clear();
+                return page;
+            }
+
+            @Override
+            public long getLatestVersion(int settleSeconds)
+            {
+                return 0;
+            }
+
+            @Override
+            public int compact()
+            {
+                return 0;
+            }
+        };
+        MySqlOrderDao orders = new MySqlOrderDao(null, null, null, event -> { })
+        {
+            @Override
+            public Map<Integer, Integer> getUnitsSoldByProduct()
+            {
+                rebuilds++;
+                return Map.of();
+            }
+        };
+
+        index = new ProductIndex(products, new BigDecimal[] { new BigDecimal("25") }, changeLog, 100, 2, event -> { });
+        suggestions = new ProductSuggestions(index, orders, 10, 24, 3600000);
+    }
+
+    @Test
+    public void rebuildIfNeeded_shouldPickUp_aRenameFollowedFromAnotherInstance()
+    {
+        // arrange
+        suggestions.rebuildIfNeeded();
+        pending.add(product(2, "Notebook"));
+        index.followChanges();
+
+        // act
+        suggestions.rebuildIfNeeded();
+        List<Suggestion> actual = suggestions.suggest("note", 10);
+
+        // assert
+        assertEquals(2, rebuilds, "Because the index version moved without a local ProductChangedEvent.");
+        assertEquals(1, actual.size());
+        assertEquals("Notebook", actual.get(0).getText());
+        assertTrue(suggestions.suggest("lap", 10).isEmpty(), "Because the old name is gone.");
+    }
+
+    @Test
+    public void rebuildIfNeeded_shouldSkip_whenNothingChanged()
+    {
+        // arrange
+        suggestions.rebuildIfNeeded();
+
+        // act: the other instance's write is already what this index has
+        pending.add(product(1, "Smartphone"));
+        index.followChanges();
+        suggestions.rebuildIfNeeded();
+
+        // assert
+        assertEquals(1, rebuilds, "Because the index version did not move.");
+    }
+
+    private static Product product(int id, String name)
+    {
+        return new Product(id, name, new BigDecimal("10.00"), 1, "", "", 10, false, "");
+    }
+}
@@ -0,0 +1,70 @@
+package org.yearup.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Suggestion;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest
+{
+    @Test
+    public void lookup_shouldRank_byScore()
+    {
+        // arrange
+        SuggestionTrie trie = new SuggestionTrie.Builder(10, 24)
+                .add(new Suggestion("Smart Watch", Suggestion.PRODUCT, 1), 5)
+                .add(new Suggestion("Smartphone", Suggestion.PRODUCT, 2), 40)
+                .add(new Suggestion("Sneakers", Suggestion.PRODUCT, 3), 100)
+                .build();
+
+        // act
+        List<Suggestion> actual = trie.lookup("SMA", 10);
+
+        // assert
+        assertEquals(2, actual.size(), "Because only two names start with 'sma'.");
+        assertEquals("Smartphone", actual.get(0).getText(), "Because it sold more than the watch.");
+    }
+
+    @Test
+    public void lookup_shouldMatch_theStartOfAnyWord_once()
+    {
+        // arrange
+        SuggestionTrie trie = new SuggestionTrie.Builder(10, 24)
+                .add(new Suggestion("Red Red Wine", Suggestion.PRODUCT, 1), 1)
+                .add(new Suggestion("Navy Blue Jacket", Suggestion.PRODUCT, 2), 1)
+                .build();
+
+        // act
+        List<Suggestion> red = trie.lookup("red", 10);
+        List<Suggestion> blue = trie.lookup("blue j", 10);
+        List<Suggestion> middle = trie.lookup("lue", 10);
+
+        // assert
+        assertEquals(1, red.size(), "Because a name matching at two words is still one suggestion.");
+        assertEquals(2, (int) blue.get(0).getProductId());
+        assertTrue(middle.isEmpty(), "Because matches start at a word boundary.");
+    }
+
+    @Test
+    public void lookup_shouldKeep_onlyTopK_andCheck_beyondMaxDepth()
+    {
+        // arrange
+        SuggestionTrie.Builder builder = new SuggestionTrie.Builder(3, 4);
+        for (int i = 1; i <= 5; i++)
+            builder.add(new Suggestion("Shirt " + i, Suggestion.PRODUCT, i), i);
+        SuggestionTrie trie = builder.build();
+
+        // act
+        List<Suggestion> top = trie.lookup("shi", 10);
+        List<Suggestion> deep = trie.lookup("shirt 4", 10);
+
+        // assert
+        assertEquals(3, top.size(), "Because each prefix keeps only its top 3.");
+        assertEquals(5, (int) top.get(0).getProductId());
+        assertEquals(1, deep.size(), "Because input longer than the indexed depth is checked against the text.");
+        assertEquals(4, (int) deep.get(0).getProductId());
+    }
+}
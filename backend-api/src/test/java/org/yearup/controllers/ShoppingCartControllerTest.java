@@ -0,0 +1,93 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.data.mysql.MySqlShoppingCartDao;
+import org.yearup.data.mysql.MySqlUserDao;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.User;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class ShoppingCartControllerTest
+{
+    private MockMvc mvc;
+
+    @BeforeEach
+    public void setup()
+    {
+        // stand in for MySQL: product 1 exists and user 7 has 2 of it after the add
+        MySqlShoppingCartDao carts = new MySqlShoppingCartDao(null)
+        {
+            @Override
+            public int addProductToCart(int userId, int productId)
+            {
+                return 2;
+            }
+
+            @Override
+            public ShoppingCart getByUserId(int userId)
+            {
+                return new ShoppingCart();
+            }
+        };
+        MySqlUserDao users = new MySqlUserDao(null)
+        {
+            @Override
+            public User getByUserName(String username)
+            {
+                return new User(7, username, "", "ROLE_USER");
+            }
+        };
+        MySqlProductDao products = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public Product getById(int productId)
+            {
+                return new Product(productId, "Smartphone", new BigDecimal("499.99"), 1, "", "", 5, false, "");
+            }
+        };
+
+        mvc = MockMvcBuilders.standaloneSetup(new ShoppingCartController(carts, users, products, null)).build();
+    }
+
+    @Test
+    public void addProductToCart_shouldApplyReturnMinimal_amongOtherPreferences() throws Exception
+    {
+        for (String prefer : new String[] { "return=minimal", "respond-async, return=minimal",
+                                            "return=minimal; foo=bar", "RETURN = \"minimal\"" })
+        {
+            // act
+            MvcResult result = mvc.perform(post("/cart/products/1").header("Prefer", prefer)
+                                                                   .principal(() -> "george")).andReturn();
+
+            // assert
+            assertEquals("return=minimal", result.getResponse().getHeader("Preference-Applied"), prefer);
+            assertEquals("{\"productId\":1,\"quantity\":2}", result.getResponse().getContentAsString(), prefer);
+        }
+    }
+
+    @Test
+    public void addProductToCart_shouldReturnTheCart_withoutReturnMinimal() throws Exception
+    {
+        for (String prefer : new String[] { "return=representation", "respond-async", "return=minimalist" })
+        {
+            // act
+            MvcResult result = mvc.perform(post("/cart/products/1").header("Prefer", prefer)
+                                                                   .principal(() -> "george")).andReturn();
+
+            // assert
+            assertNull(result.getResponse().getHeader("Preference-Applied"), prefer);
+            assertTrue(result.getResponse().getContentAsString().contains("\"items\""), prefer);
+        }
+    }
+}
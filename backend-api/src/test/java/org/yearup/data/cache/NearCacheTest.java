@@ -0,0 +1,60 @@
+package org.yearup.data.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearCacheTest
+{
+    @Test
+    public void get_shouldCache_missingKeys()
+    {
+        // arrange
+        NearCache<String, String> cache = new NearCache<>("test", 10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        // act
+        cache.get("nobody", k -> { loads.incrementAndGet(); return null; });
+        String second = cache.get("nobody", k -> { loads.incrementAndGet(); return null; });
+
+        // assert
+        assertNull(second);
+        assertEquals(1, loads.get(), "Because the unknown key was negatively cached.");
+        assertEquals(1, cache.stats().getNegativeHits());
+    }
+
+    @Test
+    public void invalidate_shouldForce_aReload()
+    {
+        // arrange
+        NearCache<Integer, String> cache = new NearCache<>("test", 10, Duration.ofMinutes(1), Duration.ZERO);
+        cache.get(1, k -> "old");
+
+        // act
+        cache.invalidate(1);
+        String actual = cache.get(1, k -> "new");
+
+        // assert
+        assertEquals("new", actual);
+    }
+
+    @Test
+    public void get_shouldStay_withinMaxEntries()
+    {
+        // arrange
+        NearCache<Integer, Integer> cache = new NearCache<>("test", 100, Duration.ofMinutes(1), Duration.ZERO);
+
+        // act
+        for (int i = 0; i < 1_000; i++)
+            cache.get(i, k -> k);
+
+        // assert
+        assertTrue(cache.stats().getSize() <= 100);
+        assertTrue(cache.stats().getEvictions() > 0);
+    }
+}
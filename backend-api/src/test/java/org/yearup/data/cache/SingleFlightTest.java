@@ -0,0 +1,111 @@
+package org.yearup.data.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.SingleFlightStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest
+{
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void run_shouldShareOneCall_betweenConcurrentCallersForTheSameKey() throws Exception
+    {
+        // arrange
+        SingleFlight<Integer, StringBuilder> flight = new SingleFlight<>("test", StringBuilder::new);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Callable<StringBuilder> caller = () -> flight.run(1, key ->
+        {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new StringBuilder("product " + key);
+        });
+
+        // act
+        List<Future<StringBuilder>> results = new ArrayList<>();
+        results.add(executor.submit(caller));
+        started.await();
+        for (int i = 0; i < 7; i++)
+            results.add(executor.submit(caller));
+        while (flight.stats().getCoalesced() < 7)
+            Thread.sleep(5);
+        release.countDown();
+
+        // assert
+        List<StringBuilder> values = new ArrayList<>();
+        for (Future<StringBuilder> result : results)
+            values.add(result.get(5, TimeUnit.SECONDS));
+
+        assertEquals(1, calls.get(), "Because 8 identical calls in flight should reach the loader once.");
+        assertTrue(values.stream().allMatch(v -> v.toString().equals("product 1")));
+        assertEquals(8, values.stream().map(System::identityHashCode).distinct().count(),
+                     "Because every caller gets its own copy of the result.");
+
+        SingleFlightStats stats = flight.stats();
+        assertEquals(1, stats.getExecuted());
+        assertEquals(7, stats.getCoalesced());
+        assertEquals(0, stats.getInFlight(), "Because nothing is kept once the call returns.");
+    }
+
+    @Test
+    public void run_shouldFailEveryJoinedCaller_andStartFreshAfterwards() throws Exception
+    {
+        // arrange
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test", value -> value);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> flight.run(1, key ->
+        {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("database is down");
+        }));
+        started.await();
+        Future<String> follower = executor.submit(() -> flight.run(1, key -> "never called"));
+        while (flight.stats().getCoalesced() < 1)
+            Thread.sleep(5);
+
+        // act
+        release.countDown();
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        String afterwards = flight.run(1, key -> "back up");
+
+        // assert
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertInstanceOf(IllegalStateException.class, followerError.getCause(),
+                         "Because the joined caller sees the loader's own exception.");
+        assertEquals("back up", afterwards, "Because a failed call is not remembered.");
+        assertEquals(1, flight.stats().getFailed());
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
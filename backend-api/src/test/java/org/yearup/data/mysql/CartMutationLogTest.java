@@ -0,0 +1,58 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartMutationLogTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replay_shouldReturn_finalStatePerUser_afterRestart()
+    {
+        // arrange: a "crashed" run that never checkpointed
+        CartMutationLog log = new CartMutationLog(directory);
+        log.appendSet(1, 10, 1);
+        log.appendSet(1, 10, 2);
+        log.rotate();
+        log.appendClear(1);
+        log.appendSet(1, 11, 4);
+        log.appendSet(2, 10, 3);
+        log.close();
+
+        // act
+        CartMutationLog reopened = new CartMutationLog(directory);
+        Set<Integer> cleared = new HashSet<>();
+        Map<Integer, Map<Integer, Integer>> state = reopened.replay(cleared);
+
+        // assert
+        assertEquals(Map.of(11, 4), state.get(1), "Because the clear wiped product 10 before 11 was set.");
+        assertEquals(Map.of(10, 3), state.get(2));
+        assertTrue(cleared.contains(1));
+    }
+
+    @Test
+    public void checkpoint_shouldDelete_flushedSegments()
+    {
+        // arrange
+        CartMutationLog log = new CartMutationLog(directory);
+        log.appendSet(1, 10, 1);
+        int segments = log.rotate();
+
+        // act
+        log.checkpoint(segments);
+        log.close();
+
+        // assert
+        assertTrue(new CartMutationLog(directory).replay(new HashSet<>()).isEmpty(), "Because everything was flushed.");
+    }
+}
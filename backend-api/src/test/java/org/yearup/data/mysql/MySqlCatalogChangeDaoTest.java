@@ -0,0 +1,158 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.CatalogChanges;
+import org.yearup.models.Product;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySqlCatalogChangeDaoTest extends BaseDaoTestClass
+{
+    // test-data.sql logs the 3 categories (change 1-3), then the 12 products (change 4-15).
+    // Rows added here are rolled back, but their ids are not handed out again, so they
+    // are compared with MAX(change_id) rather than a fixed number.
+    private static final int SETTLE_SECONDS = 2;
+
+    private MySqlCatalogChangeDao dao;
+
+    @BeforeEach
+    public void setup() throws SQLException
+    {
+        dao = new MySqlCatalogChangeDao(dataSource);
+        settle();
+    }
+
+    @Test
+    public void getChangesSince_shouldReturn_theWholeCatalog_fromZero()
+    {
+        // act
+        CatalogChanges changes = dao.getChangesSince(0, 1000, SETTLE_SECONDS);
+
+        // assert
+        assertEquals(15, changes.getVersion(), "Because 3 categories and 12 products were logged.");
+        assertFalse(changes.isHasMore());
+        assertEquals(3, changes.getCategories().size());
+        assertEquals(12, changes.getProducts().size());
+        assertEquals("Smartphone", changes.getProducts().get(0).getName(), "Because upserts come with the current row.");
+        assertTrue(changes.getDeletedProductIds().isEmpty());
+        assertEquals(15, dao.getLatestVersion(SETTLE_SECONDS));
+    }
+
+    @Test
+    public void getChangesSince_shouldPage_untilHasMoreIsFalse()
+    {
+        // arrange
+        List<Integer> productIds = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        long since = 0;
+
+        // act
+        CatalogChanges page;
+        do
+        {
+            page = dao.getChangesSince(since, 4, SETTLE_SECONDS);
+            page.getProducts().forEach(product -> productIds.add(product.getProductId()));
+            versions.add(page.getVersion());
+            since = page.getVersion();
+        }
+        while (page.isHasMore());
+
+        // assert
+        assertEquals(List.of(4L, 8L, 12L, 15L), versions, "Because 15 change rows come 4 at a time, and the short page is the last.");
+        assertEquals(12, productIds.size());
+        assertEquals(12, productIds.stream().distinct().count(), "Because no product shows up on two pages.");
+    }
+
+    @Test
+    public void getChangesSince_shouldCollapse_anUpdateThenDelete_toOneTombstone() throws SQLException
+    {
+        // arrange: product 2 is updated, then deleted
+        try (Connection connection = dataSource.getConnection())
+        {
+            MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, 2, false);
+            execute(connection, "DELETE FROM products WHERE product_id = 2;");
+            MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, 2, true);
+        }
+        settle();
+
+        // act
+        CatalogChanges changes = dao.getChangesSince(15, 1000, SETTLE_SECONDS);
+
+        // assert
+        assertEquals(latestChangeId(), changes.getVersion());
+        assertTrue(changes.getProducts().isEmpty(), "Because the update is superseded by the delete.");
+        assertEquals(List.of(2), changes.getDeletedProductIds());
+    }
+
+    @Test
+    public void compact_shouldKeep_theNewestRowPerEntity() throws SQLException
+    {
+        // arrange: product 3 changes twice more, category 1 once more
+        try (Connection connection = dataSource.getConnection())
+        {
+            MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, 3, false);
+            MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.PRODUCT, 3, false);
+            MySqlCatalogChangeDao.record(connection, MySqlCatalogChangeDao.CATEGORY, 1, false);
+        }
+        settle();
+
+        // act
+        int removed = dao.compact();
+        CatalogChanges fullSync = dao.getChangesSince(0, 1000, SETTLE_SECONDS);
+
+        // assert
+        assertEquals(3, removed, "Because product 3 had 2 older rows and category 1 had 1.");
+        assertEquals(15, countChangeRows(), "Because one row per product and category is left.");
+        assertEquals(latestChangeId(), fullSync.getVersion(), "Because the newest rows are the ones kept.");
+        assertEquals(12, fullSync.getProducts().size());
+        assertEquals(3, fullSync.getCategories().size());
+        assertTrue(fullSync.getProducts().stream().map(Product::getProductId).anyMatch(id -> id == 3));
+    }
+
+    // Rows are only read once settle-seconds old; age every logged change past that
+    private void settle() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            execute(connection, "UPDATE catalog_changes SET changed_at = NOW() - INTERVAL 1 MINUTE;");
+        }
+    }
+
+    private int countChangeRows() throws SQLException
+    {
+        return (int) queryLong("SELECT COUNT(*) FROM catalog_changes;");
+    }
+
+    private long latestChangeId() throws SQLException
+    {
+        return queryLong("SELECT MAX(change_id) FROM catalog_changes;");
+    }
+
+    private long queryLong(String sql) throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet row = statement.executeQuery())
+        {
+            row.next();
+            return row.getLong(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException
+    {
+        try (Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate(sql);
+        }
+    }
+}
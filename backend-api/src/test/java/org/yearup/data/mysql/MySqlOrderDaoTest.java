@@ -0,0 +1,144 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+import org.yearup.models.OrderPage;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySqlOrderDaoTest extends BaseDaoTestClass
+{
+    private static final LocalDate MARCH_1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate MARCH_2 = LocalDate.of(2024, 3, 2);
+
+    private MySqlOrderDao dao;
+
+    // order id -> the product ids of its line items, in the order they were added
+    private final Map<Integer, List<Integer>> lines = new HashMap<>();
+
+    @BeforeEach
+    public void setup()
+    {
+        // reads only: no cart or profile needed
+        dao = new MySqlOrderDao(dataSource, null, null, event -> { });
+        lines.clear();
+    }
+
+    @Test
+    public void getOrdersByUserId_shouldPage_throughOrdersOnTheSameDate_withoutSkippingOrRepeating() throws SQLException
+    {
+        // arrange: three orders share March 2nd, so the first page ends in the middle of a tie
+        int a = insertOrder(1, MARCH_1, 5, 6);
+        int b = insertOrder(1, MARCH_2, 1);
+        int c = insertOrder(1, MARCH_2, 2, 3, 4);
+        int d = insertOrder(1, MARCH_2);
+        int e = insertOrder(1, MARCH_1, 7);
+        insertOrder(2, MARCH_2, 8);
+
+        // act
+        List<OrderPage> pages = new ArrayList<>();
+        OrderPage page = dao.getOrdersByUserId(1, null, null, 2);
+        pages.add(page);
+        while (page.isHasMore())
+        {
+            page = dao.getOrdersByUserId(1, page.getNextBeforeDate(), page.getNextBeforeId(), 2);
+            pages.add(page);
+        }
+
+        // assert
+        assertEquals(3, pages.size(), "Because 5 orders come 2 at a time.");
+        assertEquals(List.of(d, c), ids(pages.get(0)), "Because newest date first, then the higher id.");
+        assertEquals(MARCH_2, pages.get(0).getNextBeforeDate());
+        assertEquals(c, pages.get(0).getNextBeforeId());
+        assertEquals(List.of(b, e), ids(pages.get(1)), "Because the cursor's id breaks the tie on March 2nd.");
+        assertEquals(List.of(a), ids(pages.get(2)));
+        assertFalse(pages.get(2).isHasMore());
+    }
+
+    @Test
+    public void getOrdersByUserId_shouldReturn_everyOrdersLineItems_fromTheOneJoin() throws SQLException
+    {
+        // arrange
+        insertOrder(1, MARCH_1, 5, 6);
+        insertOrder(1, MARCH_2, 2, 3, 4);
+        insertOrder(1, MARCH_2);
+        insertOrder(1, MARCH_1, 7);
+
+        // act
+        OrderPage page = dao.getOrdersByUserId(1, null, null, 10);
+
+        // assert
+        assertEquals(4, page.getOrders().size());
+        for (Order order : page.getOrders())
+        {
+            List<Integer> productIds = order.getItems().stream().map(OrderLineItem::getProductId).toList();
+            assertEquals(lines.get(order.getOrderId()), productIds,
+                         "Because each order carries exactly its own line items, in the order they were added.");
+            order.getItems().forEach(item -> assertEquals(order.getOrderId(), item.getOrderId()));
+        }
+        assertTrue(page.getOrders().stream().anyMatch(order -> order.getItems().isEmpty()),
+                   "Because an order without line items still comes back, with none.");
+    }
+
+    private int insertOrder(int userId, LocalDate date, int... productIds) throws SQLException
+    {
+        String orderSql = """
+                INSERT INTO orders (user_id, date, address, city, state, zip, shipping_amount)
+                VALUES (?, ?, '789 Oak Avenue', 'Dallas', 'TX', '75051', 0);
+                """;
+        String lineSql = """
+                INSERT INTO order_line_items (order_id, product_id, sales_price, quantity, discount)
+                VALUES (?, ?, 9.99, 1, 0);
+                """;
+
+        try (Connection connection = dataSource.getConnection())
+        {
+            int orderId;
+            try (PreparedStatement ps = connection.prepareStatement(orderSql, Statement.RETURN_GENERATED_KEYS))
+            {
+                ps.setInt(1, userId);
+                ps.setDate(2, Date.valueOf(date));
+                ps.executeUpdate();
+
+                try (ResultSet keys = ps.getGeneratedKeys())
+                {
+                    keys.next();
+                    orderId = keys.getInt(1);
+                }
+            }
+
+            try (PreparedStatement ps = connection.prepareStatement(lineSql))
+            {
+                for (int productId : productIds)
+                {
+                    ps.setInt(1, orderId);
+                    ps.setInt(2, productId);
+                    ps.executeUpdate();
+                }
+            }
+
+            lines.put(orderId, Arrays.stream(productIds).boxed().toList());
+            return orderId;
+        }
+    }
+
+    private static List<Integer> ids(OrderPage page)
+    {
+        return page.getOrders().stream().map(Order::getOrderId).toList();
+    }
+}
@@ -3,6 +3,7 @@ package org.yearup.data.mysql;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.yearup.data.cache.CacheRegistry;
 import org.yearup.models.Product;
 
 import java.math.BigDecimal;
@@ -17,7 +18,7 @@ class MySqlProductDaoTest extends BaseDaoTestClass
     @BeforeEach
     public void setup()
     {
-        dao = new MySqlProductDao(dataSource);
+        dao = new MySqlProductDao(dataSource, event -> { }, new CacheRegistry());
     }
 
     @Test
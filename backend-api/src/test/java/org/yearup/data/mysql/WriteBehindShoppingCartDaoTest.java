@@ -0,0 +1,277 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindShoppingCartDaoTest
+{
+    @TempDir
+    Path logDir;
+
+    // stands in for the shopping_cart table: userId -> productId -> quantity
+    private final Map<Integer, Map<Integer, Integer>> table = new ConcurrentHashMap<>();
+    // every write() call, one list of carts per transaction
+    private final List<List<WriteBehindShoppingCartDao.PendingWrite>> transactions = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger failingWrites = new AtomicInteger();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final List<WriteBehindShoppingCartDao> started = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws Exception
+    {
+        for (WriteBehindShoppingCartDao dao : started)
+            dao.stop();
+    }
+
+    @Test
+    public void flushAll_shouldWrite_onlyTheFinalQuantity_ofEachLine()
+    {
+        // arrange
+        WriteBehindShoppingCartDao dao = start(10_000);
+
+        // act
+        for (int i = 0; i < 10; i++)
+            dao.addProductToCart(1, 10);
+        dao.updateProductQuantity(1, 10, 4);
+        dao.flushAll();
+
+        // assert
+        assertEquals(1, transactions.size(), "Because one flush is one transaction.");
+        assertEquals(Map.of(10, 4), transactions.get(0).get(0).lines, "Because eleven clicks on one line are one row write.");
+        assertEquals(Map.of(10, 4), table.get(1));
+        assertEquals(11, dao.getMutationCount());
+    }
+
+    @Test
+    public void flushAll_shouldClear_beforeSettingLinesAddedAfterTheClear()
+    {
+        // arrange
+        WriteBehindShoppingCartDao dao = start(10_000);
+        dao.addProductToCart(1, 10);
+        dao.addProductToCart(1, 11);
+        dao.flushAll();
+
+        // act
+        dao.clearCart(1);
+        dao.addProductToCart(1, 12);
+        dao.flushAll();
+
+        // assert
+        WriteBehindShoppingCartDao.PendingWrite pending = transactions.get(1).get(0);
+        assertTrue(pending.cleared);
+        assertEquals(Map.of(12, 1), pending.lines);
+        assertEquals(Map.of(12, 1), table.get(1), "Because the clear wiped 10 and 11, but not 12 added after it.");
+    }
+
+    @Test
+    public void flushAll_shouldPutAFailedBatchBack_forTheNextFlush() throws Exception
+    {
+        // arrange: the database is down for the batch and for the one-by-one retry
+        WriteBehindShoppingCartDao dao = start(10_000);
+        dao.addProductToCart(1, 10);
+        dao.addProductToCart(1, 11);
+        failingWrites.set(2);
+
+        // act
+        dao.flushAll();
+        boolean logKept = segmentCount() > 0;
+        dao.addProductToCart(1, 10);
+        dao.flushAll();
+
+        // assert
+        assertTrue(logKept, "Because segments whose changes are not in MySQL must survive a crash.");
+        assertEquals(Map.of(10, 2, 11, 1), table.get(1), "Because the next flush writes the restored 11 and the newer 10.");
+        assertEquals(1, transactions.size(), "Because only the last flush got through.");
+    }
+
+    @Test
+    public void start_shouldReplay_whatTheLastRunNeverFlushed() throws Exception
+    {
+        // arrange: a run that crashed after logging but before any flush reached MySQL
+        table.put(1, new HashMap<>(Map.of(10, 5)));
+        CartMutationLog crashed = new CartMutationLog(logDir);
+        crashed.appendSet(1, 10, 1);
+        crashed.appendClear(1);
+        crashed.appendSet(1, 11, 3);
+        crashed.appendSet(2, 10, 2);
+        crashed.close();
+
+        // act
+        WriteBehindShoppingCartDao dao = start(10_000);
+
+        // assert
+        assertEquals(Map.of(11, 3), table.get(1), "Because the logged clear removed the 10 MySQL still had.");
+        assertEquals(Map.of(10, 2), table.get(2));
+        assertEquals(3, dao.getItemByUserAndProduct(1, 11).getQuantity());
+
+        dao.stop();
+        started.clear();
+        transactions.clear();
+        start(10_000);
+        assertTrue(transactions.isEmpty(), "Because the replayed segments were checkpointed.");
+    }
+
+    @Test
+    public void getByUserId_shouldLoad_everyLinesProduct_inOneQuery()
+    {
+        // arrange
+        AtomicInteger productQueries = new AtomicInteger();
+        WriteBehindShoppingCartDao dao = new FakeMySql(10_000)
+        {
+            @Override
+            Map<Integer, Product> loadProducts(Collection<Integer> productIds)
+            {
+                productQueries.incrementAndGet();
+                return super.loadProducts(productIds);
+            }
+        };
+        dao.start();
+        started.add(dao);
+        dao.addProductToCart(1, 10);
+        dao.addProductToCart(1, 11);
+        dao.addProductToCart(1, 12);
+
+        // act
+        ShoppingCart cart = dao.getByUserId(1);
+
+        // assert
+        assertEquals(1, productQueries.get());
+        assertEquals(3, cart.getItems().size());
+        assertEquals(3300, cart.getTotalCents(), "Because products 10, 11 and 12 cost 10, 11 and 12 dollars.");
+    }
+
+    @Test
+    public void mutations_shouldNotBeLost_whenTheyLoseARaceWithEviction() throws Exception
+    {
+        // arrange: room for one cart, so every flush evicts whichever carts are clean
+        WriteBehindShoppingCartDao dao = start(1);
+        int users = 4;
+        int reloads = users * 25;
+        ExecutorService shoppers = Executors.newFixedThreadPool(users);
+        CountDownLatch go = new CountDownLatch(1);
+
+        // act: everyone keeps clicking until carts were evicted and loaded again plenty of times
+        List<Future<Integer>> running = new ArrayList<>();
+        for (int user = 1; user <= users; user++)
+        {
+            int userId = user;
+            running.add(shoppers.submit(() ->
+            {
+                go.await();
+                int clicks = 0;
+                while (loads.get() < reloads && clicks < 100_000)
+                {
+                    dao.addProductToCart(userId, 10);
+                    clicks++;
+                    // a pause between clicks, so a flush can find the cart clean and evict it
+                    LockSupport.parkNanos(20_000);
+                }
+                return clicks;
+            }));
+        }
+        go.countDown();
+        while (!running.stream().allMatch(Future::isDone))
+            dao.flushAll();
+        shoppers.shutdown();
+        dao.flushAll();
+
+        // assert
+        assertTrue(loads.get() >= reloads, "Because carts were evicted and loaded again while in use.");
+        for (int user = 1; user <= users; user++)
+        {
+            int clicks = running.get(user - 1).get(10, TimeUnit.SECONDS);
+            assertEquals(Map.of(10, clicks), table.get(user), "Because no click may land on an evicted copy of the cart.");
+            assertEquals(clicks, dao.getItemByUserAndProduct(user, 10).getQuantity());
+        }
+    }
+
+    private WriteBehindShoppingCartDao start(int maxCarts)
+    {
+        WriteBehindShoppingCartDao dao = new FakeMySql(maxCarts);
+        dao.start();
+        started.add(dao);
+        return dao;
+    }
+
+    private long segmentCount() throws Exception
+    {
+        try (Stream<Path> files = Files.list(logDir))
+        {
+            return files.filter(file -> file.toFile().length() > 0).count();
+        }
+    }
+
+    /**
+     * The cart store with its three SQL calls answered from the maps above.
+     * The flush interval is an hour, so only the test calls flushAll().
+     */
+    private class FakeMySql extends WriteBehindShoppingCartDao
+    {
+        FakeMySql(int maxCarts)
+        {
+            super(null, event -> { }, logDir.toString(), 3_600_000, maxCarts);
+        }
+
+        @Override
+        Map<Integer, Integer> loadQuantities(int userId)
+        {
+            loads.incrementAndGet();
+            return new HashMap<>(table.getOrDefault(userId, Map.of()));
+        }
+
+        @Override
+        Map<Integer, Product> loadProducts(Collection<Integer> productIds)
+        {
+            Map<Integer, Product> products = new HashMap<>();
+            for (int productId : productIds)
+                products.put(productId, new Product(productId, "Product " + productId, BigDecimal.valueOf(productId),
+                                                    1, "", "", 10, false, ""));
+            return products;
+        }
+
+        @Override
+        void write(List<PendingWrite> writes) throws SQLException
+        {
+            if (failingWrites.getAndUpdate(n -> Math.max(0, n - 1)) > 0)
+                throw new SQLTransientConnectionException("Connection refused");
+
+            // same order as the real statements: clears, then every line
+            for (PendingWrite pending : writes)
+            {
+                Map<Integer, Integer> rows = table.computeIfAbsent(pending.userId, k -> new ConcurrentHashMap<>());
+                if (pending.cleared)
+                    rows.clear();
+                pending.lines.forEach((productId, quantity) ->
+                {
+                    if (quantity > 0)
+                        rows.put(productId, quantity);
+                    else
+                        rows.remove(productId);
+                });
+            }
+            transactions.add(writes);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.yearup.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ColumnarOrderFileTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    public void scan_shouldReturn_everyLineItem_asWritten()
+    {
+        // arrange
+        ColumnarOrderWriter.write(directory, List.of(
+                order(5, 42, "2026-10-17", item(1, "19.99", 2, "0.10")),
+                order(6, 7, "2026-10-16")));  // no line items
+        ColumnarOrderWriter.write(directory, List.of(
+                order(9, 42, "2026-10-18", item(1, "19.99", 1, "0"), item(300, "1200.00", 1, "0"))));
+        List<String> rows = new ArrayList<>();
+
+        // act
+        long count = new ColumnarOrderReader(directory).scan((orderId, userId, day, productId, qty, price, discount) ->
+                rows.add(orderId + "," + userId + "," + LocalDate.ofEpochDay(day) + "," + productId + "," + qty + "," + price + "," + discount));
+
+        // assert
+        assertEquals(3, count);
+        assertEquals(List.of("5,42,2026-10-17,1,2,1999,400",
+                             "9,42,2026-10-18,1,1,1999,0",
+                             "9,42,2026-10-18,300,1,120000,0"), rows,
+                     "Because ids, dates and cents must decode back to the original values.");
+    }
+
+    @Test
+    public void reader_shouldAggregate_andTrack_theLastOrder()
+    {
+        // arrange
+        ColumnarOrderWriter.write(directory, List.of(
+                order(1, 1, "2026-10-17", item(1, "10.00", 3, "0")),
+                order(2, 2, "2026-10-18", item(2, "5.50", 2, "0.50"))));
+        ColumnarOrderReader reader = new ColumnarOrderReader(directory);
+
+        // act
+        long net = reader.totalNetCents();
+        Map<LocalDate, Long> byDay = reader.netCentsByDay();
+
+        // assert
+        assertEquals(3000 + 1100 - 550, net);
+        assertEquals(550L, byDay.get(LocalDate.parse("2026-10-18")));
+        assertEquals(2, reader.getLastOrderId(), "Because the export resumes after the last written order.");
+    }
+
+    private static Order order(int orderId, int userId, String date, OrderLineItem... items)
+    {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(userId);
+        order.setDate(LocalDate.parse(date));
+        for (OrderLineItem item : items)
+        {
+            item.setOrderId(orderId);
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    private static OrderLineItem item(int productId, String price, int quantity, String discount)
+    {
+        OrderLineItem item = new OrderLineItem();
+        item.setProductId(productId);
+        item.setSalesPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        item.setDiscount(new BigDecimal(discount));
+        return item;
+    }
+}
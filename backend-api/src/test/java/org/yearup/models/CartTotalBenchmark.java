@@ -0,0 +1,155 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totals and cart JSON: the cents-based ShoppingCart vs. the
+ * BigDecimal/HashMap one it replaced (copied below as LegacyCart).
+ * Run with the GC profiler to see bytes allocated per call:
+ *
+ *   mvn test-compile exec:java -Dexec.mainClass=org.yearup.models.CartTotalBenchmark \
+ *       -Dexec.classpathScope=test
+ *
+ * and compare gc.alloc.rate.norm between the legacy* and cents* rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalBenchmark
+{
+    @Param({ "3", "20" })
+    public int lines;
+
+    // the sink is reused, so the mapper must not close it
+    private final ObjectMapper mapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    private ShoppingCart cart;
+    private LegacyCart legacy;
+
+    @Setup
+    public void setup()
+    {
+        cart = new ShoppingCart();
+        legacy = new LegacyCart();
+
+        for (int i = 1; i <= lines; i++)
+        {
+            Product product = new Product(i, "Product " + i, new BigDecimal(i + ".90"), 1,
+                                          "", "red", 10, false, "");
+            BigDecimal discount = i % 3 == 0 ? new BigDecimal("0.10") : BigDecimal.ZERO;
+
+            ShoppingCartItem item = new ShoppingCartItem();
+            item.setProduct(product);
+            item.setQuantity(i % 4 + 1);
+            item.setDiscountPercent(discount);
+            cart.add(item);
+
+            LegacyItem old = new LegacyItem();
+            old.product = product;
+            old.quantity = item.getQuantity();
+            old.discountPercent = discount;
+            legacy.items.put(i, old);
+        }
+
+        // x.90 * qty * 0.10 is always whole cents, so the old (unrounded) total must match
+        if (legacy.getTotal().compareTo(cart.getTotal()) != 0)
+            throw new IllegalStateException("Totals differ: " + legacy.getTotal() + " vs " + cart.getTotal());
+    }
+
+    @Benchmark
+    public BigDecimal legacyTotal()
+    {
+        return legacy.getTotal();
+    }
+
+    @Benchmark
+    public long centsTotal()
+    {
+        return cart.getTotalCents();
+    }
+
+    @Benchmark
+    public BigDecimal centsTotalAsDecimal()
+    {
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public void legacyJson() throws IOException
+    {
+        mapper.writeValue(sink, legacy);
+    }
+
+    @Benchmark
+    public void centsJson() throws IOException
+    {
+        mapper.writeValue(sink, cart);
+    }
+
+    // ShoppingCart / ShoppingCartItem as they were before money moved to cents
+    public static class LegacyCart
+    {
+        private final Map<Integer, LegacyItem> items = new HashMap<>();
+
+        public Map<Integer, LegacyItem> getItems()
+        {
+            return items;
+        }
+
+        public BigDecimal getTotal()
+        {
+            return items.values()
+                        .stream()
+                        .map(i -> i.getLineTotal())
+                        .reduce(BigDecimal.ZERO, (lineTotal, subTotal) -> subTotal.add(lineTotal));
+        }
+    }
+
+    public static class LegacyItem
+    {
+        private Product product;
+        private int quantity;
+        private BigDecimal discountPercent;
+
+        public Product getProduct() { return product; }
+        public int getQuantity() { return quantity; }
+        public BigDecimal getDiscountPercent() { return discountPercent; }
+
+        @JsonIgnore
+        public int getProductId() { return product.getProductId(); }
+
+        public BigDecimal getLineTotal()
+        {
+            BigDecimal subTotal = product.getPrice().multiply(new BigDecimal(quantity));
+            return subTotal.subtract(subTotal.multiply(discountPercent));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .include(CartTotalBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,40 @@
+package org.yearup.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderSummaryTest
+{
+    @Test
+    public void fromOrder_shouldTotal_linesDiscountAndShipping()
+    {
+        // arrange
+        Order order = new Order();
+        order.setOrderId(7);
+        order.setUserId(1);
+        order.setShippingAmount(new BigDecimal("5.00"));
+        order.getItems().add(lineItem("19.99", 3, "0.10"));
+        order.getItems().add(lineItem("4.50", 2, "0.00"));
+
+        // act
+        OrderSummary summary = OrderSummary.fromOrder(order);
+
+        // assert
+        assertEquals(5, summary.getItemCount(), "Because 3 + 2 units were ordered.");
+        assertEquals(new BigDecimal("68.97"), summary.getSubtotal());
+        assertEquals(new BigDecimal("6.00"), summary.getDiscount(), "Because 59.97 * 0.10 rounds to 6.00.");
+        assertEquals(new BigDecimal("67.97"), summary.getGrandTotal());
+    }
+
+    private OrderLineItem lineItem(String price, int quantity, String discount)
+    {
+        OrderLineItem item = new OrderLineItem();
+        item.setSalesPrice(new BigDecimal(price));
+        item.setQuantity(quantity);
+        item.setDiscount(new BigDecimal(discount));
+        return item;
+    }
+}
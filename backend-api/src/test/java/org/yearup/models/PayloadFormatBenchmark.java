@@ -0,0 +1,137 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs. Smile vs. CBOR (see BinaryFormatsConfig) on the payloads the API
+ * sends most: a GET /products page and a GET /cart. main() prints the
+ * payload sizes first, then runs encode/decode for each format:
+ *
+ *   mvn test-compile exec:java -Dexec.mainClass=org.yearup.models.PayloadFormatBenchmark \
+ *       -Dexec.classpathScope=test
+ *
+ * Carts are decoded as trees: like the frontend, clients read them but never
+ * send a whole cart back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark
+{
+    @Param({ "json", "smile", "cbor" })
+    public String format;
+
+    private ObjectMapper mapper;
+    private List<Product> products;
+    private ShoppingCart cart;
+    private byte[] productBytes;
+    private byte[] cartBytes;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        mapper = mapper(format);
+        products = products(50);
+        cart = cart(20);
+        productBytes = mapper.writeValueAsBytes(products);
+        cartBytes = mapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeProducts() throws IOException
+    {
+        return mapper.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public Product[] decodeProducts() throws IOException
+    {
+        return mapper.readValue(productBytes, Product[].class);
+    }
+
+    @Benchmark
+    public byte[] encodeCart() throws IOException
+    {
+        return mapper.writeValueAsBytes(cart);
+    }
+
+    @Benchmark
+    public JsonNode decodeCart() throws IOException
+    {
+        return mapper.readTree(cartBytes);
+    }
+
+    private static ObjectMapper mapper(String format)
+    {
+        JsonFactory factory = switch (format)
+        {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        return new ObjectMapper(factory).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static List<Product> products(int count)
+    {
+        List<Product> products = new ArrayList<>();
+        for (int i = 1; i <= count; i++)
+        {
+            products.add(new Product(i, "Product " + i, new BigDecimal(i + ".99"), i % 3 + 1,
+                                     "A sturdy, everyday product number " + i + " with a short description.",
+                                     i % 2 == 0 ? "Red" : "Black", 10 + i, i % 7 == 0, "product-" + i + ".jpg"));
+        }
+        return products;
+    }
+
+    private static ShoppingCart cart(int lines)
+    {
+        ShoppingCart cart = new ShoppingCart();
+        for (Product product : products(lines))
+        {
+            ShoppingCartItem item = new ShoppingCartItem();
+            item.setProduct(product);
+            item.setQuantity(product.getProductId() % 4 + 1);
+            item.setDiscountPercent(product.getProductId() % 3 == 0 ? new BigDecimal("0.10") : BigDecimal.ZERO);
+            cart.add(item);
+        }
+        return cart;
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException
+    {
+        for (String format : List.of("json", "smile", "cbor"))
+        {
+            ObjectMapper mapper = mapper(format);
+            System.out.printf("%-6s products(50): %6d bytes   cart(20): %6d bytes%n", format,
+                              mapper.writeValueAsBytes(products(50)).length,
+                              mapper.writeValueAsBytes(cart(20)).length);
+        }
+
+        Options options = new OptionsBuilder()
+                .include(PayloadFormatBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
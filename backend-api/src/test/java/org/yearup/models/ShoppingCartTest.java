@@ -0,0 +1,114 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShoppingCartTest
+{
+    @Test
+    public void getTotal_shouldRoundEachLineDiscount_toTheCent()
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+        cart.add(item(2, "19.99", 3, "0.10"));
+        cart.add(item(1, "4.50", 2, "0.00"));
+
+        // act
+        BigDecimal total = cart.getTotal();
+
+        // assert
+        assertEquals(5397 + 900, cart.getTotalCents(), "Because 59.97 - 6.00 + 9.00 = 62.97.");
+        assertEquals(new BigDecimal("62.97"), total);
+        assertEquals(new BigDecimal("53.97"), cart.get(2).getLineTotal());
+    }
+
+    @Test
+    public void add_shouldReplaceTheLine_forTheSameProduct()
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+        cart.add(item(7, "1.00", 1, "0"));
+
+        // act
+        cart.add(item(7, "1.00", 4, "0"));
+
+        // assert
+        assertEquals(1, cart.getItems().size(), "Because product 7 can only have one line.");
+        assertEquals(4, cart.get(7).getQuantity());
+        assertFalse(cart.contains(8));
+    }
+
+    @Test
+    public void json_shouldKeyItemsByProductId_inProductIdOrder() throws Exception
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+        cart.add(item(40, "2.00", 1, "0"));
+        cart.add(item(3, "1.25", 2, "0"));
+        cart.add(item(12, "0.99", 1, "0"));
+
+        // act
+        JsonNode json = new ObjectMapper().valueToTree(cart);
+
+        // assert
+        assertEquals("[3, 12, 40]", fieldNames(json.get("items")), "Because items is an object keyed by product id.");
+        assertEquals(2, json.get("items").get("3").get("quantity").asInt());
+        assertEquals(0, new BigDecimal("2.50").compareTo(json.get("items").get("3").get("lineTotal").decimalValue()));
+        assertEquals(0, new BigDecimal("5.49").compareTo(json.get("total").decimalValue()), "Because 2.00 + 2.50 + 0.99 = 5.49.");
+    }
+
+    @Test
+    public void smileAndCbor_shouldDecodeToTheSameCart_asJson() throws Exception
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+        cart.add(item(40, "2.00", 1, "0"));
+        cart.add(item(3, "1.25", 2, "0.10"));
+        // prices are BigDecimals; read them back as such, so 2.00 from JSON equals 2.00 from CBOR
+        ObjectMapper json = new ObjectMapper().enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        ObjectMapper smile = new ObjectMapper(new SmileFactory()).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory()).enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+
+        // act
+        JsonNode fromJson = json.readTree(json.writeValueAsBytes(cart));
+        JsonNode fromSmile = smile.readTree(smile.writeValueAsBytes(cart));
+        byte[] cborItems = cbor.writeValueAsBytes(cart.getItems());
+        JsonNode fromCbor = cbor.readTree(cbor.writeValueAsBytes(cart));
+
+        // assert
+        // as text: node types differ (a JSON 0 reads back as an int, a CBOR 0 as a decimal)
+        assertEquals(fromJson.toString(), fromSmile.toString());
+        assertEquals(fromJson.toString(), fromCbor.toString());
+        assertEquals("[3, 40]", fieldNames(fromCbor.get("items")));
+        // byte 0 opens the map, byte 1 starts the first key; major type 3 = text string, 0 = integer
+        assertEquals(3, (cborItems[1] & 0xff) >>> 5, "Because CBOR decoders outside Jackson must see \"3\", like JSON has, not 3.");
+    }
+
+    private static String fieldNames(JsonNode node)
+    {
+        StringBuilder names = new StringBuilder("[");
+        node.fieldNames().forEachRemaining(name -> names.append(names.length() > 1 ? ", " : "").append(name));
+        return names.append("]").toString();
+    }
+
+    private static ShoppingCartItem item(int productId, String price, int quantity, String discount)
+    {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setPrice(new BigDecimal(price));
+
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setDiscountPercent(new BigDecimal(discount));
+        return item;
+    }
+}
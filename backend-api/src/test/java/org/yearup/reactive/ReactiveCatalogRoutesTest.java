@@ -0,0 +1,98 @@
+package org.yearup.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.yearup.catalog.ProductIndex;
+import org.yearup.catalog.ProductSuggestions;
+import org.yearup.catalog.RelatedProducts;
+import org.yearup.data.cache.CacheRegistry;
+import org.yearup.data.cache.CachingCategoryDao;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Category;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReactiveCatalogRoutesTest
+{
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setup()
+    {
+        // stand in for MySQL
+        MySqlProductDao products = new MySqlProductDao(null, event -> { }, new CacheRegistry())
+        {
+            @Override
+            public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+            {
+                return List.of(product(1, "19.99", 1), product(2, "49.99", 1), product(3, "5.00", 2));
+            }
+        };
+        MySqlCategoryDao categories = new MySqlCategoryDao(null, new CacheRegistry())
+        {
+            @Override
+            public List<Category> getAllCategories()
+            {
+                Category category = new Category();
+                category.setCategoryId(1);
+                category.setName("Electronics");
+                return List.of(category);
+            }
+        };
+
+        ProductIndex index = new ProductIndex(products, new BigDecimal[] { new BigDecimal("25") });
+        ReactiveCatalogRoutes routes = new ReactiveCatalogRoutes(index,
+                new ProductSuggestions(index, null, 10, 24, 3600000),
+                new RelatedProducts(null, index, 10),
+                new CachingCategoryDao(categories, 300));
+
+        client = WebTestClient.bindToRouterFunction(routes.routes()).build();
+    }
+
+    @Test
+    public void search_shouldReturn_theSameProductsAsTheIndex()
+    {
+        // act
+        List<Product> found = client.get().uri("/products?cat=1").exchange()
+                                    .expectStatus().isOk()
+                                    .expectBodyList(Product.class).returnResult().getResponseBody();
+
+        // assert
+        assertEquals(List.of(1, 2), found.stream().map(Product::getProductId).toList(),
+                     "Because products 1 and 2 are in category 1.");
+    }
+
+    @Test
+    public void search_shouldStreamOneProductPerLine_forNdjson()
+    {
+        // act
+        String body = client.get().uri("/products").accept(MediaType.APPLICATION_NDJSON).exchange()
+                            .expectStatus().isOk()
+                            .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                            .expectBody(String.class).returnResult().getResponseBody();
+
+        // assert
+        assertEquals(3, body.strip().split("\n").length, "Because every product is its own JSON line.");
+    }
+
+    @Test
+    public void getById_shouldAnswer_withTheMvcStatusCodes()
+    {
+        client.get().uri("/products/99").exchange().expectStatus().isNotFound();
+        client.get().uri("/products/abc").exchange().expectStatus().isBadRequest();
+        client.get().uri("/categories/1").exchange().expectStatus().isOk()
+              .expectBody().jsonPath("$.name").isEqualTo("Electronics");
+    }
+
+    private static Product product(int id, String price, int categoryId)
+    {
+        return new Product(id, "Product " + id, new BigDecimal(price), categoryId, "", "", 10, false, "");
+    }
+}
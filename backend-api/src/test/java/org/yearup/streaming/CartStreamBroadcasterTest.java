@@ -0,0 +1,204 @@
+package org.yearup.streaming;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.yearup.catalog.ProductFollowedEvent;
+import org.yearup.controllers.ShoppingCartController;
+import org.yearup.data.CartChangedEvent;
+import org.yearup.data.ProductChangedEvent;
+import org.yearup.data.mysql.MySqlShoppingCartDao;
+import org.yearup.data.mysql.MySqlUserDao;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+import org.yearup.models.User;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+class CartStreamBroadcasterTest
+{
+    private final AtomicInteger quantity = new AtomicInteger(1);
+    private final CountDownLatch slowCart = new CountDownLatch(1);
+    // when set, the next cart load of user 7 waits for it
+    private final AtomicReference<CountDownLatch> holdNextLoad = new AtomicReference<>();
+    private MySqlShoppingCartDao carts;
+    private MySqlUserDao users;
+    private CartStreamBroadcaster broadcaster;
+    private MockMvc mvc;
+
+    @BeforeEach
+    public void setup()
+    {
+        // stand in for MySQL: user 7 has product 1 in the cart, user 8's cart takes until slowCart opens
+        carts = new MySqlShoppingCartDao(null)
+        {
+            @Override
+            public ShoppingCart getByUserId(int userId)
+            {
+                if (userId == 8)
+                    awaitQuietly(slowCart);
+
+                CountDownLatch hold = userId == 7 ? holdNextLoad.getAndSet(null) : null;
+                if (hold != null)
+                    awaitQuietly(hold);
+
+                ShoppingCartItem item = new ShoppingCartItem();
+                item.setProduct(new Product(1, "Smartphone", new BigDecimal("499.99"), 1, "", "", 5, false, ""));
+                item.setQuantity(quantity.get());
+
+                ShoppingCart cart = new ShoppingCart();
+                cart.add(item);
+                return cart;
+            }
+        };
+        users = new MySqlUserDao(null)
+        {
+            @Override
+            public User getByUserName(String username)
+            {
+                return new User(7, username, "", "ROLE_USER");
+            }
+        };
+
+        broadcaster = new CartStreamBroadcaster(carts, 30, 25, 1, 2, 10, 2, 16, 10);
+        mvc = MockMvcBuilders.standaloneSetup(new ShoppingCartController(carts, users, null, broadcaster)).build();
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        slowCart.countDown();
+        broadcaster.destroy();
+    }
+
+    @Test
+    public void stream_shouldPushTheCart_thenCartAndStockChanges() throws Exception
+    {
+        // arrange
+        MvcResult stream = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn();
+        MockHttpServletResponse response = stream.getResponse();
+
+        // act + assert
+        assertTrue(stream.getRequest().isAsyncStarted(), "Because the stream must not hold the request thread.");
+        // SseEmitter writes "event:" and the data in separate writes, so wait for the data itself
+        awaitContent(response, "\"quantity\":1");
+        assertTrue(response.getContentAsString().contains("event:cart"));
+
+        quantity.set(3);
+        broadcaster.onCartChanged(new CartChangedEvent(7));
+        awaitContent(response, "\"quantity\":3");
+
+        broadcaster.onProductChanged(new ProductChangedEvent(1,
+                new Product(1, "Smartphone", new BigDecimal("499.99"), 1, "", "", 0, false, "")));
+        // product 1 is in the cart and just sold out
+        awaitContent(response, "{\"productId\":1,\"stock\":0}");
+        assertTrue(response.getContentAsString().contains("event:stock"));
+    }
+
+    @Test
+    public void stream_shouldAnswer503_whenEveryStreamSlotIsTaken() throws Exception
+    {
+        // arrange: max-connections is 1 in this test
+        mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn();
+
+        // act
+        MvcResult second = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn();
+
+        // assert
+        assertEquals(503, second.getResponse().getStatus());
+        assertEquals(1, broadcaster.getConnectionCount());
+    }
+
+    @Test
+    public void stream_shouldGetItsCart_whileAnotherUsersCartIsStuckInTheDatabase() throws Exception
+    {
+        // arrange: room for two streams, user 8's cart load hangs
+        broadcaster.destroy();
+        broadcaster = new CartStreamBroadcaster(carts, 30, 25, 2, 2, 10, 2, 16, 10);
+        mvc = MockMvcBuilders.standaloneSetup(new ShoppingCartController(carts, users, null, broadcaster)).build();
+        broadcaster.subscribe(8);
+
+        // act
+        MvcResult stream = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn();
+
+        // assert
+        awaitContent(stream.getResponse(), "\"quantity\":1");
+        assertEquals(1, slowCart.getCount(), "Because user 8's load is still stuck.");
+    }
+
+    @Test
+    public void stream_shouldGetTheChangedCart_whenANewTabsLoadFinishesFirst() throws Exception
+    {
+        // arrange: room for two streams; the first tab is open and has its cart
+        broadcaster.destroy();
+        broadcaster = new CartStreamBroadcaster(carts, 30, 25, 2, 2, 10, 2, 16, 10);
+        mvc = MockMvcBuilders.standaloneSetup(new ShoppingCartController(carts, users, null, broadcaster)).build();
+        MockHttpServletResponse firstTab = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn().getResponse();
+        awaitContent(firstTab, "\"quantity\":1");
+
+        // act: the load for the change hangs, and a second tab's load starts after it but finishes first
+        CountDownLatch changeLoad = new CountDownLatch(1);
+        holdNextLoad.set(changeLoad);
+        quantity.set(3);
+        broadcaster.onCartChanged(new CartChangedEvent(7));
+        while (holdNextLoad.get() != null)
+            Thread.sleep(5);
+
+        MockHttpServletResponse secondTab = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn().getResponse();
+        awaitContent(secondTab, "\"quantity\":3");
+        changeLoad.countDown();
+
+        // assert
+        awaitContent(firstTab, "\"quantity\":3");
+    }
+
+    @Test
+    public void stream_shouldPushStock_followedFromAnotherInstance() throws Exception
+    {
+        // arrange
+        MockHttpServletResponse response = mvc.perform(get("/cart/stream").principal(() -> "george")).andReturn().getResponse();
+        awaitContent(response, "\"quantity\":1");
+
+        // act: another instance sold the last one; ProductIndex followed it from the change log
+        broadcaster.onProductFollowed(new ProductFollowedEvent(1,
+                new Product(1, "Smartphone", new BigDecimal("499.99"), 1, "", "", 0, false, "")));
+
+        // assert
+        awaitContent(response, "{\"productId\":1,\"stock\":0}");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String text) throws Exception
+    {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!response.getContentAsString().contains(text))
+        {
+            if (System.currentTimeMillis() > deadline)
+                fail("Stream never sent " + text + ", got: " + response.getContentAsString());
+            Thread.sleep(10);
+        }
+    }
+}
@@ -32,8 +32,37 @@ function loadHome()
 {
     templateBuilder.build('home',{},'main')
 
-    productService.search();
-    categoryService.getAllCategories(loadCategories);
+    // one request for categories, products and (when logged in) the cart;
+    // whatever the server could not load in time is fetched on its own
+    const url = `${config.baseUrl}/bootstrap${productService.filter.queryString()}`;
+
+    axios.get(url)
+         .then(response => {
+             const data = response.data;
+
+             if(data.incomplete.includes("products")) productService.search();
+             else
+             {
+                 productService.showProducts(data.products);
+                 productService.loadFacets();
+             }
+
+             if(data.incomplete.includes("categories")) categoryService.getAllCategories(loadCategories);
+             else loadCategories(data.categories);
+
+             if(data.cart)
+             {
+                 cartService.setCart(data.cart);
+                 cartService.updateCartDisplay();
+             }
+             else if(userService.isLoggedIn()) cartService.loadCart();
+         })
+         .catch(error => {
+             // fall back to the separate calls
+             productService.search();
+             categoryService.getAllCategories(loadCategories);
+             if(userService.isLoggedIn()) cartService.loadCart();
+         });
 }
 
 function editProfile()
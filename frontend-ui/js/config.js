@@ -1,3 +1,6 @@
 const config = {
-    baseUrl: 'http://localhost:8080'
+    baseUrl: 'http://localhost:8080',
+    // catalog reads (products, categories); point at the reactive catalog
+    // port (e.g. http://localhost:8081) to route them there
+    catalogUrl: 'http://localhost:8080'
 }
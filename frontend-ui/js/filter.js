@@ -13,5 +13,38 @@ function loadCategories(categories)
     })
 }
 
+// Show how many products each filter option would return, e.g. "Red (12)"
+function showFacetCounts(facets)
+{
+    const categoryCounts = {};
+    facets.categories.forEach(f => categoryCounts[f.value] = f.count);
+
+    [...document.querySelectorAll('#category-select option')].forEach(option => {
+        if(option.value == "" || option.value == "0") return;
+        setOptionCount(option, categoryCounts[option.value] || 0);
+    });
+
+    // the subcategory filter is a "contains" match, so add up every value it would match
+    [...document.querySelectorAll('#subcategory-select option')].forEach(option => {
+        if(option.value == "") return;
+        const label = (option.dataset.label || option.innerText).toLowerCase();
+        const count = facets.subCategories
+                            .filter(f => f.value.toLowerCase().includes(label))
+                            .reduce((sum, f) => sum + f.count, 0);
+        setOptionCount(option, count);
+    });
+}
+
+function setOptionCount(option, count)
+{
+    if(!option.dataset.label)
+    {
+        option.dataset.label = option.innerText;
+        // options without a value attribute submit their text; keep it stable
+        option.value = option.value || option.innerText;
+    }
+    option.innerText = `${option.dataset.label} (${count})`;
+}
+
 document.addEventListener('DOMContentLoaded', () => {
 })
@@ -5,7 +5,7 @@ class CategoryService {
 
     getAllCategories(callback)
     {
-        const url = `${config.baseUrl}/categories`;
+        const url = `${config.catalogUrl}/categories`;
 
         return axios.get(url)
             .then(response => {
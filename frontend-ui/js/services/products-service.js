@@ -89,22 +89,11 @@ class ProductService {
 
     search()
     {
-        const url = `${config.baseUrl}/products${this.filter.queryString()}`;
+        const url = `${config.catalogUrl}/products${this.filter.queryString()}`;
 
         axios.get(url)
              .then(response => {
-                 let data = {};
-                 data.products = response.data;
-
-                 data.products.forEach(product => {
-                     if(!this.hasPhoto(product.imageUrl))
-                     {
-                         product.imageUrl = "no-image.jpg";
-                     }
-                 })
-
-                 templateBuilder.build('product', data, 'content', this.enableButtons);
-
+                 this.showProducts(response.data);
              })
             .catch(error => {
 
@@ -114,6 +103,37 @@ class ProductService {
 
                 templateBuilder.append("error", data, "errors")
             });
+
+        this.loadFacets();
+    }
+
+    showProducts(products)
+    {
+        let data = {};
+        data.products = products;
+
+        data.products.forEach(product => {
+            if(!this.hasPhoto(product.imageUrl))
+            {
+                product.imageUrl = "no-image.jpg";
+                product.thumbnailUrl = "/images/products/no-image.jpg?w=160";
+            }
+        })
+
+        templateBuilder.build('product', data, 'content', this.enableButtons);
+    }
+
+    loadFacets()
+    {
+        const url = `${config.catalogUrl}/products/facets${this.filter.queryString()}`;
+
+        axios.get(url)
+             .then(response => {
+                 showFacetCounts(response.data);
+             })
+             .catch(error => {
+                 // counts are a nice-to-have; the product list still works without them
+             });
     }
 
     enableButtons()
@@ -7,14 +7,21 @@ class ShoppingCartService {
         total:0
     };
 
+    // open GET /cart/stream (see openStream)
+    stream = null;
+
     addToCart(productId)
     {
         const url = `${config.baseUrl}/cart/products/${productId}`;
-        // const headers = userService.getHeaders();
+        // only the changed line comes back ({ productId, quantity }), not the whole cart
+        const headers = { 'Prefer': 'return=minimal' };
 
-        axios.post(url, {})// ,{headers})
+        axios.post(url, {}, { headers })
             .then(response => {
-                this.setCart(response.data)
+                if (response.headers['preference-applied'] === 'return=minimal')
+                    this.applyDelta(response.data)
+                else
+                    this.setCart(response.data)
 
                 this.updateCartDisplay()
 
@@ -43,6 +50,17 @@ class ShoppingCartService {
         }
     }
 
+    // A line's new quantity from a minimal response. Totals, and the product of a
+    // line that wasn't in the cart yet, come with the cart the stream sends next;
+    // without a stream we ask for the cart instead.
+    applyDelta(delta)
+    {
+        const item = this.cart.items.find(i => i.product.productId === delta.productId);
+        if (item) item.quantity = delta.quantity;
+
+        if (!this.stream) this.loadCart();
+    }
+
     loadCart()
     {
 
@@ -66,6 +84,102 @@ class ShoppingCartService {
 
     }
 
+    // Server-Sent Events from GET /cart/stream: the cart on connect and after
+    // every change, plus stock changes for what is in it. fetch() instead of
+    // EventSource because EventSource can't send the Authorization header.
+    openStream()
+    {
+        this.closeStream();
+
+        const controller = new AbortController();
+        this.stream = controller;
+
+        fetch(`${config.baseUrl}/cart/stream`, {
+            headers: { ...userService.getHeader(), 'Accept': 'text/event-stream' },
+            signal: controller.signal
+        })
+            .then(response => {
+                if (!response.ok) throw new Error(`cart stream: ${response.status}`);
+                return this.readStream(response.body.getReader());
+            })
+            .catch(() => {})
+            .finally(() => {
+                // ended by the server (timeout, restart): reconnect unless closed on purpose
+                if (this.stream === controller && userService.isLoggedIn())
+                {
+                    this.stream = null;
+                    setTimeout(() => { if (!this.stream && userService.isLoggedIn()) this.openStream(); }, 3000);
+                }
+            });
+    }
+
+    closeStream()
+    {
+        if (this.stream)
+        {
+            const controller = this.stream;
+            this.stream = null;
+            controller.abort();
+        }
+    }
+
+    async readStream(reader)
+    {
+        const decoder = new TextDecoder();
+        let buffer = "";
+
+        while (true)
+        {
+            const { done, value } = await reader.read();
+            if (done) return;
+
+            // events are separated by a blank line
+            buffer += decoder.decode(value, { stream: true });
+            const events = buffer.split("\n\n");
+            buffer = events.pop();
+
+            events.forEach(event => this.onStreamEvent(event));
+        }
+    }
+
+    onStreamEvent(text)
+    {
+        let name = "message";
+        let data = "";
+
+        text.split("\n").forEach(line => {
+            if (line.startsWith("event:")) name = line.substring(6).trim();
+            else if (line.startsWith("data:")) data += line.substring(5);
+        });
+
+        // comment-only keep-alives carry no data
+        if (!data) return;
+
+        if (name === "cart")
+        {
+            this.setCart(JSON.parse(data));
+            this.updateCartDisplay();
+        }
+        else if (name === "stock")
+        {
+            const level = JSON.parse(data);
+            const item = this.cart.items.find(i => i.product.productId === level.productId);
+            if (!item) return;
+
+            item.product.stock = level.stock;
+            if (level.stock < item.quantity)
+            {
+                const data = {
+                    error: level.stock === 0
+                        ? `${item.product.name} is out of stock.`
+                        : `Only ${level.stock} ${item.product.name} left in stock.`
+                };
+
+                templateBuilder.append("error", data, "errors")
+            }
+        }
+    }
+
     loadCartPage()
     {
         // templateBuilder.build("cart", this.cart, "main");
@@ -118,9 +232,11 @@ class ShoppingCartService {
         let photoDiv = document.createElement("div");
         photoDiv.classList.add("photo")
         let img = document.createElement("img");
-        img.src = `/images/products/${item.product.imageUrl}`
+        // the small copy in the list, the full image when clicked
+        const imageUrl = `/images/products/${item.product.imageUrl}`
+        img.src = item.product.thumbnailUrl || imageUrl
         img.addEventListener("click", () => {
-            showImageDetailForm(item.product.name, img.src)
+            showImageDetailForm(item.product.name, imageUrl)
         })
         photoDiv.appendChild(img)
         let priceH4 = document.createElement("h4");
@@ -194,9 +310,6 @@ class ShoppingCartService {
 document.addEventListener('DOMContentLoaded', () => {
     cartService = new ShoppingCartService();
 
-    if(userService.isLoggedIn())
-    {
-        cartService.loadCart();
-    }
-
+    // the cart itself comes with GET /bootstrap (see loadHome); changes come from the stream
+    if(userService.isLoggedIn()) cartService.openStream();
 });
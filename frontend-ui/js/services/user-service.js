@@ -120,7 +120,9 @@ class UserService {
 
                 axios.defaults.headers.common = {'Authorization': `Bearer ${this.currentUser.token}`}
                 productService.enableButtons();
-                cartService.loadCart();
+
+                // the stream sends the cart as soon as it is open
+                cartService.openStream();
             })
             .catch(error => {
                 const data = {
@@ -133,6 +135,7 @@ class UserService {
 
     logout()
     {
+        cartService.closeStream();
         localStorage.removeItem('user');
         axios.defaults.headers.common = {'Authorization': `bearer ${this.currentUser.token}`}
         this.currentUser = {};